@@ -0,0 +1,112 @@
+package com.udacity.vehicles.benchmarks;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.udacity.vehicles.api.CarResourceAssembler;
+import com.udacity.vehicles.domain.car.Car;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.hateoas.Resource;
+import org.springframework.hateoas.Resources;
+import org.springframework.hateoas.core.AnnotationRelProvider;
+import org.springframework.hateoas.hal.Jackson2HalModule;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+/**
+ * Measures the rendering of cars as HAL resources: building the links of
+ * each car, and serializing a page of them to JSON the way the list
+ * endpoint does. Links are built through the controller or from
+ * precomputed templates, with or without the list link of each car.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CarResourceBenchmark {
+
+    @Param({"1", "50", "500"})
+    private int size;
+
+    @Param({"false", "true"})
+    private boolean precomputed;
+
+    @Param({"true", "false"})
+    private boolean itemCarsLink;
+
+    private CarResourceAssembler assembler;
+    private ObjectMapper mapper;
+    private Car car;
+    private SliceImpl<Car> slice;
+    private Resources<Resource<Car>> page;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/cars");
+        request.setServerName("localhost");
+        request.setServerPort(8080);
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+
+        assembler = new CarResourceAssembler(precomputed, itemCarsLink);
+        mapper = Jackson2ObjectMapperBuilder.json()
+                .modulesToInstall(new Jackson2HalModule())
+                .handlerInstantiator(new Jackson2HalModule.HalHandlerInstantiator(
+                        new AnnotationRelProvider(), null, null))
+                .build();
+
+        List<Car> cars = Fixtures.cars(size);
+        car = cars.get(0);
+        slice = new SliceImpl<>(cars, PageRequest.of(0, size), true);
+        page = assembler.toResources(slice, null, size, null);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    /**
+     * Builds the self and cars links of one car.
+     */
+    @Benchmark
+    public Resource<Car> toResource() {
+        return assembler.toResource(car);
+    }
+
+    /**
+     * Builds the resources of a page of cars, with the page links.
+     */
+    @Benchmark
+    public Resources<Resource<Car>> toResources() {
+        return assembler.toResources(slice, null, size, null);
+    }
+
+    /**
+     * Serializes an assembled page of cars as HAL JSON.
+     */
+    @Benchmark
+    public byte[] serialize() throws JsonProcessingException {
+        return mapper.writeValueAsBytes(page);
+    }
+}
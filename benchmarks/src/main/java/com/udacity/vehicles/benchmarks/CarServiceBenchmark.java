@@ -0,0 +1,131 @@
+package com.udacity.vehicles.benchmarks;
+
+import java.io.IOException;
+import java.lang.reflect.Proxy;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import com.udacity.vehicles.client.Downstream;
+import com.udacity.vehicles.client.DownstreamProperties;
+import com.udacity.vehicles.client.maps.MapsClient;
+import com.udacity.vehicles.client.prices.PriceClient;
+import com.udacity.vehicles.domain.car.Car;
+import com.udacity.vehicles.domain.car.CarRepository;
+import com.udacity.vehicles.service.CarEnricher;
+import com.udacity.vehicles.service.CarLocationIndex;
+import com.udacity.vehicles.service.CarService;
+
+import io.github.resilience4j.bulkhead.BulkheadRegistry;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.web.reactive.function.client.WebClient;
+
+/**
+ * Measures {@link CarService#list()}: reading the cars and enriching them
+ * with their address and price from stubbed downstream services.
+ *
+ * The lookups run one after the other with a single enricher thread, or
+ * side by side with several. With the caches disabled every call reaches
+ * the stubs; with them enabled, only the first one does.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CarServiceBenchmark {
+
+    @Param({"100"})
+    private int cars;
+
+    @Param({"0", "10"})
+    private long latencyMillis;
+
+    @Param({"1", "16"})
+    private int concurrency;
+
+    @Param({"false", "true"})
+    private boolean cached;
+
+    private DownstreamStubs stubs;
+    private MapsClient maps;
+    private PriceClient pricing;
+    private CarEnricher enricher;
+    private CarService service;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        stubs = new DownstreamStubs(latencyMillis);
+        MeterRegistry registry = new SimpleMeterRegistry();
+        WebClient client = WebClient.create(stubs.baseUrl());
+
+        maps = new MapsClient(client, 8, cached ? 16_777_216L : 0L,
+                Duration.ofHours(24), registry, downstream("maps"));
+        pricing = new PriceClient(client, 100, cached ? 10_000L : 0L,
+                Duration.ofMinutes(5), Duration.ofHours(1), registry, downstream("pricing"));
+        enricher = new CarEnricher(concurrency, 5000, false);
+        CarRepository repository = repository(Fixtures.cars(cars));
+        service = new CarService(repository, maps, pricing, enricher,
+                new CarLocationIndex(repository, false, Duration.ofMinutes(10), 500), event -> { }, 500, 100, false);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        enricher.shutdown();
+        maps.shutdown();
+        pricing.shutdown();
+        stubs.close();
+    }
+
+    /**
+     * Lists every car, with its address and price.
+     */
+    @Benchmark
+    public List<Car> list() {
+        return service.list();
+    }
+
+    private static Downstream downstream(String name) {
+        DownstreamProperties properties = new DownstreamProperties();
+        properties.setMaxConcurrentCalls(100);
+        return new Downstream(name, properties, CircuitBreakerRegistry.ofDefaults(), BulkheadRegistry.ofDefaults());
+    }
+
+    /**
+     * Stands in for the JPA repository, serving the given cars from memory.
+     */
+    private static CarRepository repository(List<Car> cars) {
+        return (CarRepository) Proxy.newProxyInstance(CarRepository.class.getClassLoader(),
+                new Class<?>[] {CarRepository.class}, (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "findAll":
+                            return cars;
+                        case "toString":
+                            return "CarRepository(" + cars.size() + " cars)";
+                        case "hashCode":
+                            return System.identityHashCode(proxy);
+                        case "equals":
+                            return proxy == args[0];
+                        default:
+                            throw new UnsupportedOperationException(method.getName());
+                    }
+                });
+    }
+}
@@ -0,0 +1,108 @@
+package com.udacity.vehicles.benchmarks;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Serves the batch endpoints of the pricing and Maps services in process,
+ * answering every request after a fixed latency.
+ */
+final class DownstreamStubs implements AutoCloseable {
+
+    private static final ObjectMapper JSON = new ObjectMapper();
+
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final long latencyMillis;
+
+    /**
+     * Starts the stubs on a free local port.
+     * @param latencyMillis time each response is delayed by
+     */
+    DownstreamStubs(long latencyMillis) throws IOException {
+        this.latencyMillis = latencyMillis;
+        this.executor = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "downstream-stub");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        this.server.createContext("/services/price/batch", this::prices);
+        this.server.createContext("/maps/batch", this::addresses);
+        this.server.setExecutor(executor);
+        this.server.start();
+    }
+
+    /**
+     * Gets the base URL both services are served at.
+     * @return base URL, ending with a slash
+     */
+    String baseUrl() {
+        return "http://localhost:" + server.getAddress().getPort() + "/";
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    /**
+     * Prices every requested vehicle, answering like the batch endpoint
+     * of the pricing service.
+     */
+    private void prices(HttpExchange exchange) throws IOException {
+        List<Long> ids = JSON.readValue(exchange.getRequestBody(), new TypeReference<List<Long>>() { });
+        List<Map<String, Object>> prices = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            prices.add(Map.of("currency", "USD", "price", 10000 + id, "vehicleId", id));
+        }
+        respond(exchange, "application/json",
+                JSON.writeValueAsBytes(Map.of("prices", prices, "missing", List.of())));
+    }
+
+    /**
+     * Resolves every requested coordinate to an address, answering like the
+     * batch endpoint of the Maps service, one JSON document per line.
+     */
+    private void addresses(HttpExchange exchange) throws IOException {
+        StringBuilder body = new StringBuilder();
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(exchange.getRequestBody(), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (!line.isBlank()) {
+                    body.append(JSON.writeValueAsString(Fixtures.address())).append('\n');
+                }
+            }
+        }
+        respond(exchange, "application/stream+json", body.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    private void respond(HttpExchange exchange, String contentType, byte[] body) throws IOException {
+        try {
+            Thread.sleep(latencyMillis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        exchange.getResponseHeaders().set("Content-Type", contentType);
+        exchange.sendResponseHeaders(200, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+}
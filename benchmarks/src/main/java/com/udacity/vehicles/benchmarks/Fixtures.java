@@ -0,0 +1,72 @@
+package com.udacity.vehicles.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.udacity.vehicles.client.maps.Address;
+import com.udacity.vehicles.domain.Condition;
+import com.udacity.vehicles.domain.Location;
+import com.udacity.vehicles.domain.car.Car;
+import com.udacity.vehicles.domain.car.Details;
+import com.udacity.vehicles.domain.manufacturer.Manufacturer;
+
+/**
+ * Builds the cars and addresses the benchmarks work on.
+ */
+final class Fixtures {
+
+    private Fixtures() {
+    }
+
+    /**
+     * Creates cars with consecutive IDs, each parked at its own spot.
+     * @param count number of cars
+     * @return the cars, in ID order
+     */
+    static List<Car> cars(int count) {
+        List<Car> cars = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            cars.add(car(i + 1L, new Location(40.730610 + i * 0.01, -73.935242 - i * 0.01)));
+        }
+        return cars;
+    }
+
+    /**
+     * Creates a car with the given ID and location.
+     * @param id ID of the car
+     * @param location location of the car
+     * @return the car
+     */
+    static Car car(Long id, Location location) {
+        Car car = new Car();
+        car.setId(id);
+        car.setLocation(location);
+        Details details = new Details();
+        details.setManufacturer(new Manufacturer(101, "Chevrolet"));
+        details.setModel("Impala");
+        details.setMileage(32280);
+        details.setExternalColor("white");
+        details.setBody("sedan");
+        details.setEngine("3.6L V6");
+        details.setFuelType("Gasoline");
+        details.setModelYear(2018);
+        details.setProductionYear(2018);
+        details.setNumberOfDoors(4);
+        car.setDetails(details);
+        car.setCondition(Condition.USED);
+        return car;
+    }
+
+    /**
+     * Creates an address, as returned by the Maps service.
+     * @return the address
+     */
+    static Address address() {
+        Address address = new Address();
+        address.setAddress("777 Brockton Avenue");
+        address.setCity("Abington");
+        address.setState("MA");
+        address.setZip("2351");
+        return address;
+    }
+}
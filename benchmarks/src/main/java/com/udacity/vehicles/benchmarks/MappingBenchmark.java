@@ -0,0 +1,88 @@
+package com.udacity.vehicles.benchmarks;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+import com.udacity.vehicles.client.maps.Address;
+import com.udacity.vehicles.client.maps.AddressMapper;
+import com.udacity.vehicles.client.prices.Price;
+import com.udacity.vehicles.client.prices.PriceMapper;
+import com.udacity.vehicles.domain.Location;
+
+import org.modelmapper.ModelMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the mapping of downstream responses onto cars: a Maps service
+ * address onto a location, done for every car located, and a price onto
+ * the price of a car, done for every car priced. The hand-written mappers
+ * the clients use are compared with the ModelMapper and String.format
+ * calls they replaced; run with {@code -prof gc} to compare allocation.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MappingBenchmark {
+
+    private ModelMapper mapper;
+    private Address address;
+    private Price price;
+
+    @Setup
+    public void setup() {
+        mapper = new ModelMapper();
+        address = Fixtures.address();
+        mapper.map(address, new Location(40.730610, -73.935242));
+
+        price = new Price();
+        price.setCurrency("USD");
+        price.setPrice(new BigDecimal("15432.10"));
+        price.setVehicleId(1L);
+    }
+
+    /**
+     * Maps an address onto a new location through ModelMapper.
+     */
+    @Benchmark
+    public Location addressModelMapper() {
+        Location location = new Location(40.730610, -73.935242);
+        mapper.map(address, location);
+        return location;
+    }
+
+    /**
+     * Maps an address onto a new location, the way MapsClient does.
+     */
+    @Benchmark
+    public Location addressHandWritten() {
+        return AddressMapper.toLocation(address, new Location(40.730610, -73.935242));
+    }
+
+    /**
+     * Formats a price through String.format.
+     */
+    @Benchmark
+    public String priceFormat() {
+        return String.format("%s %s", price.getCurrency(), price.getPrice());
+    }
+
+    /**
+     * Formats a price, the way PriceClient does.
+     */
+    @Benchmark
+    public String priceHandWritten() {
+        return PriceMapper.toPrice(price);
+    }
+}
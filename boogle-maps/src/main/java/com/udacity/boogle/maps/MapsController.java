@@ -1,16 +1,99 @@
 package com.udacity.boogle.maps;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 @RestController
 @RequestMapping("/maps")
 public class MapsController {
 
+    /**
+     * Number of addresses written between flushes of a batch response.
+     */
+    private static final int FLUSH_INTERVAL = 64;
+
+    private final ObjectMapper mapper;
+    private final int maxBatchSize;
+
+    public MapsController(ObjectMapper mapper, @Value("${maps.batch.max-size:1000}") int maxBatchSize) {
+        this.mapper = mapper;
+        this.maxBatchSize = maxBatchSize;
+    }
+
     @GetMapping
     public Address get(@RequestParam Double lat, @RequestParam Double lon) {
         return MockAddressRepository.getRandom();
     }
+
+    /**
+     * Resolves the addresses of several coordinates in a single request.
+     * Coordinates are read either as a JSON array or as newline-delimited
+     * JSON ({@code application/stream+json}), at most
+     * {@code maps.batch.max-size} of them, and each address is written as
+     * soon as it is resolved, so the response is never buffered whole.
+     * @param body coordinates to resolve, each with "lat" and "lon"
+     * @param accept accepted media types; {@code application/stream+json}
+     *   gets newline-delimited addresses, anything else a JSON array
+     * @return addresses in the same order as the coordinates, or error that
+     *   the coordinates are invalid or more than a batch allows
+     */
+    @PostMapping(value = "/batch",
+            consumes = { MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_STREAM_JSON_VALUE })
+    public ResponseEntity<StreamingResponseBody> getBatch(InputStream body,
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) throws IOException {
+        List<Coordinates> coordinates = new ArrayList<>();
+        try (MappingIterator<Coordinates> values = mapper.readerFor(Coordinates.class).readValues(body)) {
+            while (values.hasNextValue()) {
+                if (coordinates.size() == maxBatchSize) {
+                    throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                            "At most " + maxBatchSize + " coordinates can be resolved at once");
+                }
+                coordinates.add(values.nextValue());
+            }
+        } catch (IOException ex) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid coordinates", ex);
+        }
+
+        boolean stream = accept != null && accept.contains(MediaType.APPLICATION_STREAM_JSON_VALUE);
+        ObjectWriter writer = mapper.writerFor(Address.class)
+                .without(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+
+        StreamingResponseBody addresses = out -> {
+            try (SequenceWriter sequence = stream
+                    ? writer.withRootValueSeparator("\n").writeValues(out)
+                    : writer.writeValuesAsArray(out)) {
+                int written = 0;
+                for (Coordinates next : coordinates) {
+                    sequence.write(get(next.getLat(), next.getLon()));
+                    if (++written % FLUSH_INTERVAL == 0) {
+                        sequence.flush();
+                    }
+                }
+            }
+        };
+
+        return ResponseEntity.ok()
+                .contentType(stream ? MediaType.APPLICATION_STREAM_JSON : MediaType.APPLICATION_JSON)
+                .body(addresses);
+    }
 }
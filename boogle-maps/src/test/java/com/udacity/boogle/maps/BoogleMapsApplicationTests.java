@@ -1,16 +1,57 @@
 package com.udacity.boogle.maps;
 
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 import org.junit.Test;
 import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
 import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 
 @RunWith(SpringRunner.class)
+@AutoConfigureMockMvc
 @SpringBootTest
 public class BoogleMapsApplicationTests {
+	@Autowired
+	private MockMvc mvc;
 
 	@Test
 	public void contextLoads() {
 	}
 
+	@Test
+	public void getBatch() throws Exception {
+		MvcResult result = mvc.perform(post("/maps/batch")
+					.contentType(MediaType.APPLICATION_JSON)
+					.content("[{\"lat\":40.73,\"lon\":-73.93},{\"lat\":42.36,\"lon\":-71.05}]"))
+			.andExpect(request().asyncStarted())
+			.andReturn();
+
+		mvc.perform(asyncDispatch(result))
+			.andExpect(status().isOk())
+			.andExpect(jsonPath("$.length()").value(2))
+			.andExpect(jsonPath("$[0].city").exists());
+	}
+
+	@Test
+	public void rejectsOversizedBatch() throws Exception {
+		String coordinates = IntStream.rangeClosed(1, 1001)
+				.mapToObj(i -> "{\"lat\":40.73,\"lon\":-73.93}")
+				.collect(Collectors.joining(",", "[", "]"));
+		mvc.perform(post("/maps/batch")
+					.contentType(MediaType.APPLICATION_JSON)
+					.content(coordinates))
+			.andExpect(status().isBadRequest());
+	}
+
 }
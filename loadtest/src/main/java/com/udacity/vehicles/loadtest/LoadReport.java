@@ -0,0 +1,200 @@
+package com.udacity.vehicles.loadtest;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.OptionalDouble;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+/**
+ * Summarizes the latencies, errors and throughput of a load test run,
+ * per endpoint and overall, and checks them against the objectives.
+ */
+final class LoadReport {
+
+    private static final String TOTAL = "total";
+
+    private final LoadTestSettings settings;
+    private final Map<String, EndpointStats> endpoints;
+    private final double seconds;
+
+    LoadReport(LoadTestSettings settings, Map<String, EndpointStats> endpoints, Duration duration) {
+        this.settings = settings;
+        this.endpoints = endpoints;
+        this.seconds = duration.toMillis() / 1000.0;
+    }
+
+    /**
+     * Prints a table of the results.
+     * @param out where to print
+     */
+    void print(PrintStream out) {
+        out.println();
+        out.printf(Locale.ROOT, "%-8s %9s %8s %8s %10s %9s %9s %9s %9s %9s%n",
+                "endpoint", "requests", "errors", "dropped", "req/s", "p50 ms", "p95 ms", "p99 ms", "p99.9 ms",
+                "max ms");
+        summaries().forEach((name, summary) -> out.printf(Locale.ROOT,
+                "%-8s %9d %8d %8d %10.1f %9.2f %9.2f %9.2f %9.2f %9.2f%n",
+                name, summary.get("requests"), summary.get("errors"), summary.get("dropped"),
+                summary.get("throughput"), summary.get("p50Ms"), summary.get("p95Ms"), summary.get("p99Ms"),
+                summary.get("p999Ms"), summary.get("maxMs")));
+        out.println();
+    }
+
+    /**
+     * Writes the results as JSON, along with the full latency distribution
+     * of each endpoint in HdrHistogram percentile format.
+     * @param directory where to write {@code result.json} and the {@code .hgrm} files
+     */
+    void write(Path directory) throws IOException {
+        Files.createDirectories(directory);
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("settings", settings.toMap());
+        result.put("endpoints", summaries());
+        result.put("violations", violations());
+        new ObjectMapper()
+                .enable(SerializationFeature.INDENT_OUTPUT)
+                .writeValue(directory.resolve("result.json").toFile(), result);
+
+        for (Map.Entry<String, Histogram> entry : histograms().entrySet()) {
+            try (PrintStream out = new PrintStream(directory.resolve(entry.getKey() + ".hgrm").toFile(), "UTF-8")) {
+                entry.getValue().outputPercentileDistribution(out, 1000.0);
+            }
+        }
+    }
+
+    /**
+     * Checks the overall results against the objectives that were set.
+     * @return a description of each objective missed, empty if all were met
+     */
+    List<String> violations() {
+        Histogram total = histograms().get(TOTAL);
+        Map<String, Object> summary = summaries().get(TOTAL);
+        List<String> violations = new ArrayList<>();
+
+        checkAtMost(violations, "p50-ms", millis(total.getValueAtPercentile(50)));
+        checkAtMost(violations, "p95-ms", millis(total.getValueAtPercentile(95)));
+        checkAtMost(violations, "p99-ms", millis(total.getValueAtPercentile(99)));
+        checkAtMost(violations, "p999-ms", millis(total.getValueAtPercentile(99.9)));
+        checkAtMost(violations, "error-rate", (double) summary.get("errorRate"));
+
+        OptionalDouble minRatio = settings.getSlo("min-throughput-ratio");
+        double ratio = (double) summary.get("throughput") / settings.getRate();
+        if (minRatio.isPresent() && ratio < minRatio.getAsDouble()) {
+            violations.add(String.format(Locale.ROOT, "throughput was %.1f%% of the offered rate, below %.1f%%",
+                    ratio * 100, minRatio.getAsDouble() * 100));
+        }
+        return violations;
+    }
+
+    private void checkAtMost(List<String> violations, String objective, double actual) {
+        OptionalDouble threshold = settings.getSlo(objective);
+        if (threshold.isPresent() && actual > threshold.getAsDouble()) {
+            violations.add(String.format(Locale.ROOT, "%s was %.3f, above %.3f",
+                    objective, actual, threshold.getAsDouble()));
+        }
+    }
+
+    private Map<String, Histogram> histograms() {
+        Map<String, Histogram> histograms = new LinkedHashMap<>();
+        Histogram total = new Histogram(EndpointStats.HIGHEST_MICROS, 3);
+        endpoints.forEach((name, stats) -> {
+            Histogram copy = stats.latency.copy();
+            histograms.put(name, copy);
+            total.add(copy);
+        });
+        histograms.put(TOTAL, total);
+        return histograms;
+    }
+
+    private Map<String, Map<String, Object>> summaries() {
+        Map<String, Map<String, Object>> summaries = new LinkedHashMap<>();
+        long succeeded = 0;
+        long failed = 0;
+        long dropped = 0;
+        for (EndpointStats stats : endpoints.values()) {
+            Histogram latency = stats.latency.copy();
+            summaries.put(stats.name, summary(latency, stats.succeeded.sum(), stats.failed.sum(),
+                    stats.dropped.sum()));
+            succeeded += stats.succeeded.sum();
+            failed += stats.failed.sum();
+            dropped += stats.dropped.sum();
+        }
+        summaries.put(TOTAL, summary(histograms().get(TOTAL), succeeded, failed, dropped));
+        return summaries;
+    }
+
+    private Map<String, Object> summary(Histogram latency, long succeeded, long failed, long dropped) {
+        long requests = succeeded + failed + dropped;
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("requests", requests);
+        summary.put("errors", failed);
+        summary.put("dropped", dropped);
+        summary.put("errorRate", requests == 0 ? 0.0 : (double) (failed + dropped) / requests);
+        summary.put("throughput", succeeded / seconds);
+        summary.put("p50Ms", millis(latency.getValueAtPercentile(50)));
+        summary.put("p95Ms", millis(latency.getValueAtPercentile(95)));
+        summary.put("p99Ms", millis(latency.getValueAtPercentile(99)));
+        summary.put("p999Ms", millis(latency.getValueAtPercentile(99.9)));
+        summary.put("maxMs", millis(latency.getMaxValue()));
+        return summary;
+    }
+
+    private static double millis(long micros) {
+        return micros / 1000.0;
+    }
+
+    /**
+     * Records the outcome of the requests sent to one endpoint.
+     */
+    static final class EndpointStats {
+
+        static final long HIGHEST_MICROS = TimeUnit.MINUTES.toMicros(10);
+
+        private final String name;
+        private final ConcurrentHistogram latency = new ConcurrentHistogram(HIGHEST_MICROS, 3);
+        private final LongAdder succeeded = new LongAdder();
+        private final LongAdder failed = new LongAdder();
+        private final LongAdder dropped = new LongAdder();
+
+        EndpointStats(String name) {
+            this.name = name;
+        }
+
+        /**
+         * Records a completed request.
+         * @param latencyNanos time from the scheduled send to the response
+         * @param success whether the request got a successful response
+         */
+        void record(long latencyNanos, boolean success) {
+            latency.recordValue(Math.min(HIGHEST_MICROS, Math.max(0, TimeUnit.NANOSECONDS.toMicros(latencyNanos))));
+            if (success) {
+                succeeded.increment();
+            } else {
+                failed.increment();
+            }
+        }
+
+        /**
+         * Records a request that was not sent, as too many were in flight.
+         */
+        void recordDropped() {
+            dropped.increment();
+        }
+    }
+}
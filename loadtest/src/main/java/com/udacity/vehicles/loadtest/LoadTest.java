@@ -0,0 +1,112 @@
+package com.udacity.vehicles.loadtest;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Runs a load test of the Vehicles API against stubbed downstream services.
+ *
+ * Starts stand-ins for the pricing and Maps services, starts the Vehicles
+ * API against them, creates the cars to request, and drives the
+ * {@code /cars} endpoints with an {@link OpenWorkload}. The results are
+ * printed and written to {@code target/loadtest}; the run exits with a
+ * non-zero status when a service level objective is missed, which fails
+ * the build when run through the {@code slo} Maven profile.
+ */
+public final class LoadTest {
+
+    private static final Path OUTPUT = Path.of("target", "loadtest");
+
+    private LoadTest() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        LoadTestSettings settings = LoadTestSettings.load();
+        System.out.println("Load test settings: " + settings.toMap());
+
+        List<String> violations;
+        try (StubServer pricing = StubServer.pricing(settings.getStub("pricing"), settings.getSeed());
+             StubServer maps = StubServer.maps(settings.getStub("maps"), settings.getSeed() + 1);
+             VehiclesApiProcess application = VehiclesApiProcess.start(settings, pricing, maps,
+                     OUTPUT.resolve("vehicles-api.log"))) {
+
+            HttpClient client = HttpClient.newBuilder()
+                    .version(HttpClient.Version.HTTP_1_1)
+                    .connectTimeout(Duration.ofSeconds(5))
+                    .build();
+            List<Long> carIds = createCars(client, application.getBaseUri(), settings);
+
+            System.out.printf("Offering %.1f requests/s to %s for %s after a %s warmup%n",
+                    settings.getRate(), application.getBaseUri(), settings.getDuration(), settings.getWarmup());
+            LoadReport report = new OpenWorkload(client, application.getBaseUri(), settings, carIds).run();
+
+            report.print(System.out);
+            System.out.printf("Stubs: pricing served %d requests (%d failed), maps served %d (%d failed)%n",
+                    pricing.getRequests(), pricing.getFailures(), maps.getRequests(), maps.getFailures());
+            report.write(OUTPUT);
+            System.out.println("Results written to " + OUTPUT.toAbsolutePath());
+            violations = report.violations();
+        }
+
+        if (!violations.isEmpty()) {
+            System.err.println("Service level objectives missed:");
+            violations.forEach(violation -> System.err.println("  " + violation));
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Creates the cars the workload requests, spread over a city.
+     * @return IDs of the created cars
+     * @throws IllegalStateException if a car cannot be created
+     */
+    private static List<Long> createCars(HttpClient client, URI baseUri, LoadTestSettings settings)
+            throws IOException, InterruptedException {
+        ObjectMapper json = new ObjectMapper();
+        Random random = new Random(settings.getSeed());
+        List<Long> ids = new ArrayList<>(settings.getCars());
+        for (int i = 0; i < settings.getCars(); i++) {
+            Map<String, Object> car = Map.of(
+                    "condition", i % 3 == 0 ? "NEW" : "USED",
+                    "details", Map.of(
+                            "body", "sedan",
+                            "model", "Impala",
+                            "manufacturer", Map.of("code", 100 + i % 5),
+                            "numberOfDoors", 4,
+                            "fuelType", "Gasoline",
+                            "engine", "3.6L V6",
+                            "mileage", random.nextInt(150_000),
+                            "modelYear", 2010 + i % 10,
+                            "productionYear", 2010 + i % 10,
+                            "externalColor", "white"),
+                    "location", Map.of(
+                            "lat", 40.70 + random.nextDouble() * 0.1,
+                            "lon", -74.00 + random.nextDouble() * 0.1));
+
+            HttpRequest request = HttpRequest.newBuilder(baseUri.resolve("/cars"))
+                    .header("Content-Type", "application/json")
+                    .header("Accept", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofByteArray(json.writeValueAsBytes(car)))
+                    .build();
+            HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+            String location = response.headers().firstValue("Location").orElse(null);
+            if (response.statusCode() != 201 || location == null) {
+                throw new IllegalStateException("Could not create car " + i + ": status " + response.statusCode());
+            }
+            ids.add(Long.valueOf(location.substring(location.lastIndexOf('/') + 1)));
+        }
+        System.out.println("Created " + ids.size() + " cars");
+        return ids;
+    }
+}
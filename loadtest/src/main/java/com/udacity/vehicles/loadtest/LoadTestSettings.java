@@ -0,0 +1,202 @@
+package com.udacity.vehicles.loadtest;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.OptionalDouble;
+import java.util.Properties;
+import java.util.stream.Collectors;
+
+/**
+ * Holds the settings of a load test run: the workload, the application
+ * under test, the stubbed downstream services and the objectives to meet.
+ *
+ * Settings are read from {@code loadtest.properties}, filled in from the
+ * pom at build time, and may be overridden by {@code loadtest.*} system
+ * properties when the harness is launched directly.
+ */
+final class LoadTestSettings {
+
+    private final Properties properties;
+
+    private LoadTestSettings(Properties properties) {
+        this.properties = properties;
+    }
+
+    /**
+     * Loads the settings of this run.
+     * @return settings from the classpath, overridden by system properties
+     */
+    static LoadTestSettings load() {
+        Properties properties = new Properties();
+        try (InputStream in = LoadTestSettings.class.getResourceAsStream("/loadtest.properties")) {
+            if (in != null) {
+                properties.load(in);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        System.getProperties().stringPropertyNames().stream()
+                .filter(name -> name.startsWith("loadtest."))
+                .forEach(name -> properties.setProperty(name, System.getProperty(name)));
+        return new LoadTestSettings(properties);
+    }
+
+    /** Requests per second offered, regardless of how fast they complete. */
+    double getRate() {
+        return Double.parseDouble(value("rate", "200"));
+    }
+
+    /** Time the workload runs before latencies are recorded. */
+    Duration getWarmup() {
+        return Duration.parse(value("warmup", "PT30S"));
+    }
+
+    /** Time latencies are recorded for. */
+    Duration getDuration() {
+        return Duration.parse(value("duration", "PT60S"));
+    }
+
+    /** Number of cars created before the workload starts. */
+    int getCars() {
+        return Integer.parseInt(value("cars", "200"));
+    }
+
+    /**
+     * Gets the share of requests sent to each endpoint.
+     * @return relative weight keyed by endpoint name, such as "get" or "list"
+     */
+    Map<String, Integer> getMix() {
+        Map<String, Integer> mix = new LinkedHashMap<>();
+        for (String entry : value("mix", "get:90,list:10").split(",")) {
+            String[] parts = entry.trim().split(":");
+            mix.put(parts[0].trim(), parts.length > 1 ? Integer.parseInt(parts[1].trim()) : 1);
+        }
+        return mix;
+    }
+
+    /** Number of cars requested per page by the list endpoint. */
+    int getListLimit() {
+        return Integer.parseInt(value("list-limit", "50"));
+    }
+
+    /** Requests allowed in flight; beyond it, requests are dropped and counted as errors. */
+    int getMaxInFlight() {
+        return Integer.parseInt(value("max-in-flight", "5000"));
+    }
+
+    /** Time after which a request is abandoned and counted as an error. */
+    Duration getRequestTimeout() {
+        return Duration.parse(value("request-timeout", "PT10S"));
+    }
+
+    /** Seed of the random choices of the workload and the stubs. */
+    long getSeed() {
+        return Long.parseLong(value("seed", "42"));
+    }
+
+    /** Spring profiles the application runs with, such as "reactive". */
+    List<String> getProfiles() {
+        String profiles = value("profiles", "");
+        return profiles.isEmpty()
+                ? Collections.emptyList()
+                : Arrays.stream(profiles.split(",")).map(String::trim).collect(Collectors.toList());
+    }
+
+    /** Whether the application handles requests on virtual threads. */
+    boolean isVirtualThreads() {
+        return Boolean.parseBoolean(value("virtual-threads", "false"));
+    }
+
+    /** Options of the JVM the application runs in. */
+    List<String> getJvmArgs() {
+        String args = value("jvm-args", "");
+        return args.isEmpty() ? Collections.emptyList() : Arrays.asList(args.split("\\s+"));
+    }
+
+    /** Time the application is given to start. */
+    Duration getStartupTimeout() {
+        return Duration.parse(value("startup-timeout", "PT120S"));
+    }
+
+    /**
+     * Gets how a stubbed downstream service behaves.
+     * @param service "pricing" or "maps"
+     * @return the latency and error rate of the service
+     */
+    StubBehavior getStub(String service) {
+        return new StubBehavior(
+                Duration.parse(value(service + ".latency", "PT0S")),
+                Duration.parse(value(service + ".jitter", "PT0S")),
+                Double.parseDouble(value(service + ".error-rate", "0")));
+    }
+
+    /**
+     * Gets a service level objective.
+     * @param name name of the objective, such as "p99-ms" or "error-rate"
+     * @return the threshold, or empty if the objective is not checked
+     */
+    OptionalDouble getSlo(String name) {
+        String threshold = value("slo." + name, "");
+        return threshold.isEmpty() ? OptionalDouble.empty() : OptionalDouble.of(Double.parseDouble(threshold));
+    }
+
+    /**
+     * Lists every setting, to be reported along with the results.
+     * @return setting values keyed by name, without the "loadtest." prefix
+     */
+    Map<String, String> toMap() {
+        Map<String, String> settings = new LinkedHashMap<>();
+        properties.stringPropertyNames().stream()
+                .sorted()
+                .forEach(name -> settings.put(name.substring("loadtest.".length()), value(
+                        name.substring("loadtest.".length()), "")));
+        return settings;
+    }
+
+    /**
+     * Reads a setting. Blank values, and placeholders left unfilled when the
+     * harness runs outside Maven, fall back to the default.
+     */
+    private String value(String name, String defaultValue) {
+        String value = properties.getProperty("loadtest." + name, "").trim();
+        return value.isEmpty() || value.startsWith("@") ? defaultValue : value;
+    }
+
+    /**
+     * Describes how a stubbed downstream service responds.
+     */
+    static final class StubBehavior {
+
+        private final Duration latency;
+        private final Duration jitter;
+        private final double errorRate;
+
+        StubBehavior(Duration latency, Duration jitter, double errorRate) {
+            this.latency = latency;
+            this.jitter = jitter;
+            this.errorRate = errorRate;
+        }
+
+        /** Minimum time before each response. */
+        Duration getLatency() {
+            return latency;
+        }
+
+        /** Maximum random time added to the latency. */
+        Duration getJitter() {
+            return jitter;
+        }
+
+        /** Share of requests answered with a server error. */
+        double getErrorRate() {
+            return errorRate;
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package com.udacity.vehicles.loadtest;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Function;
+
+/**
+ * Drives the Vehicles API with an open workload: requests are sent at a
+ * constant rate, on schedule, whether or not earlier ones have completed,
+ * the way independent users arrive in production.
+ *
+ * Latency is measured from the time a request was scheduled to be sent,
+ * not from the time it actually was, so a stalled application or an
+ * overloaded generator shows up in the percentiles instead of silently
+ * lowering the rate. Requests scheduled during the warmup are sent but
+ * not recorded.
+ */
+final class OpenWorkload {
+
+    private static final Map<String, Function<OpenWorkload, String>> ENDPOINTS = Map.of(
+            "get", workload -> "/cars/" + workload.nextCarId(),
+            "list", workload -> "/cars?limit=" + workload.settings.getListLimit());
+
+    private final HttpClient client;
+    private final URI baseUri;
+    private final LoadTestSettings settings;
+    private final List<Long> carIds;
+    private final Random random;
+    private final String[] schedule;
+
+    OpenWorkload(HttpClient client, URI baseUri, LoadTestSettings settings, List<Long> carIds) {
+        this.client = client;
+        this.baseUri = baseUri;
+        this.settings = settings;
+        this.carIds = carIds;
+        this.random = new Random(settings.getSeed());
+        this.schedule = schedule(settings.getMix());
+    }
+
+    /**
+     * Runs the warmup, then the measured part of the workload, and waits
+     * for the requests still in flight.
+     * @return the latencies and errors recorded per endpoint
+     */
+    LoadReport run() throws InterruptedException {
+        Map<String, LoadReport.EndpointStats> stats = new LinkedHashMap<>();
+        for (String endpoint : settings.getMix().keySet()) {
+            stats.put(endpoint, new LoadReport.EndpointStats(endpoint));
+        }
+        AtomicInteger inFlight = new AtomicInteger();
+        Duration timeout = settings.getRequestTimeout();
+        int maxInFlight = settings.getMaxInFlight();
+
+        double intervalNanos = TimeUnit.SECONDS.toNanos(1) / settings.getRate();
+        long start = System.nanoTime();
+        long measureFrom = start + settings.getWarmup().toNanos();
+        long end = measureFrom + settings.getDuration().toNanos();
+
+        for (long i = 0; ; i++) {
+            long intended = start + (long) (i * intervalNanos);
+            if (intended >= end) {
+                break;
+            }
+            long wait = intended - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            }
+
+            String endpoint = schedule[random.nextInt(schedule.length)];
+            LoadReport.EndpointStats endpointStats = intended >= measureFrom ? stats.get(endpoint) : null;
+            if (inFlight.get() >= maxInFlight) {
+                if (endpointStats != null) {
+                    endpointStats.recordDropped();
+                }
+                continue;
+            }
+
+            HttpRequest request = HttpRequest.newBuilder(baseUri.resolve(ENDPOINTS.get(endpoint).apply(this)))
+                    .timeout(timeout)
+                    .header("Accept", "application/json")
+                    .build();
+            inFlight.incrementAndGet();
+            client.sendAsync(request, HttpResponse.BodyHandlers.discarding())
+                    .whenComplete((response, error) -> {
+                        inFlight.decrementAndGet();
+                        if (endpointStats != null) {
+                            long latency = System.nanoTime() - intended;
+                            endpointStats.record(latency, error == null && response.statusCode() < 400);
+                        }
+                    });
+        }
+
+        long drainDeadline = System.nanoTime() + timeout.toNanos();
+        while (inFlight.get() > 0 && System.nanoTime() < drainDeadline) {
+            Thread.sleep(10);
+        }
+
+        return new LoadReport(settings, stats, settings.getDuration());
+    }
+
+    private long nextCarId() {
+        return carIds.get(random.nextInt(carIds.size()));
+    }
+
+    /**
+     * Spreads the endpoints over a table in proportion to their weight, so
+     * picking a random slot follows the configured mix.
+     */
+    private static String[] schedule(Map<String, Integer> mix) {
+        mix.keySet().forEach(endpoint -> {
+            if (!ENDPOINTS.containsKey(endpoint)) {
+                throw new IllegalArgumentException("Unknown endpoint " + endpoint
+                        + " in loadtest.mix, expected one of " + ENDPOINTS.keySet());
+            }
+        });
+        return mix.entrySet().stream()
+                .flatMap(entry -> Collections.nCopies(entry.getValue(), entry.getKey()).stream())
+                .toArray(String[]::new);
+    }
+}
@@ -0,0 +1,207 @@
+package com.udacity.vehicles.loadtest;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Stands in for a downstream service of the Vehicles API, answering
+ * after a configurable latency and failing a configurable share of
+ * requests with a server error.
+ */
+final class StubServer implements AutoCloseable {
+
+    private static final ObjectMapper JSON = new ObjectMapper();
+
+    private final String name;
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final LoadTestSettings.StubBehavior behavior;
+    private final Random random;
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong failures = new AtomicLong();
+
+    private StubServer(String name, LoadTestSettings.StubBehavior behavior, long seed) throws IOException {
+        this.name = name;
+        this.behavior = behavior;
+        this.random = new Random(seed);
+        this.executor = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, name + "-stub");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.server = HttpServer.create(new InetSocketAddress("localhost", 0), 1024);
+        this.server.setExecutor(executor);
+    }
+
+    /**
+     * Starts a stand-in for the pricing service, serving the single and
+     * batch price endpoints.
+     * @param behavior latency and error rate of the responses
+     * @param seed seed of the latency jitter and of the failed requests
+     * @return the started stub
+     */
+    static StubServer pricing(LoadTestSettings.StubBehavior behavior, long seed) throws IOException {
+        StubServer stub = new StubServer("pricing", behavior, seed);
+        stub.handle("/services/price/batch", StubServer::prices);
+        stub.handle("/services/price", StubServer::price);
+        stub.server.start();
+        return stub;
+    }
+
+    /**
+     * Starts a stand-in for the Maps service, serving the batch address
+     * endpoint.
+     * @param behavior latency and error rate of the responses
+     * @param seed seed of the latency jitter and of the failed requests
+     * @return the started stub
+     */
+    static StubServer maps(LoadTestSettings.StubBehavior behavior, long seed) throws IOException {
+        StubServer stub = new StubServer("maps", behavior, seed);
+        stub.handle("/maps/batch", StubServer::addresses);
+        stub.server.start();
+        return stub;
+    }
+
+    /**
+     * Gets the URL the stub is served at.
+     * @return base URL of the stub
+     */
+    String getUrl() {
+        return "http://localhost:" + server.getAddress().getPort();
+    }
+
+    /** Number of requests received so far. */
+    long getRequests() {
+        return requests.get();
+    }
+
+    /** Number of requests answered with a server error so far. */
+    long getFailures() {
+        return failures.get();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    private void handle(String path, Responder responder) {
+        server.createContext(path, exchange -> {
+            requests.incrementAndGet();
+            long delayMillis;
+            boolean fail;
+            synchronized (random) {
+                delayMillis = behavior.getLatency().toMillis()
+                        + (long) (random.nextDouble() * behavior.getJitter().toMillis());
+                fail = random.nextDouble() < behavior.getErrorRate();
+            }
+            try {
+                Thread.sleep(delayMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+
+            if (fail) {
+                failures.incrementAndGet();
+                exchange.getRequestBody().readAllBytes();
+                respond(exchange, 503, "text/plain",
+                        (name + " stub failure").getBytes(StandardCharsets.UTF_8));
+            } else {
+                responder.respond(exchange);
+            }
+        });
+    }
+
+    /**
+     * Prices one vehicle, answering like the pricing service.
+     */
+    private static void price(HttpExchange exchange) throws IOException {
+        long id = vehicleId(exchange.getRequestURI());
+        respond(exchange, 200, "application/json", JSON.writeValueAsBytes(price(id)));
+    }
+
+    /**
+     * Prices every requested vehicle, answering like the batch endpoint
+     * of the pricing service.
+     */
+    private static void prices(HttpExchange exchange) throws IOException {
+        List<Long> ids = JSON.readValue(exchange.getRequestBody(), new TypeReference<List<Long>>() { });
+        List<Map<String, Object>> prices = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            prices.add(price(id));
+        }
+        respond(exchange, 200, "application/json",
+                JSON.writeValueAsBytes(Map.of("prices", prices, "missing", List.of())));
+    }
+
+    /**
+     * Resolves every requested coordinate to an address, answering like
+     * the batch endpoint of the Maps service, one JSON document per line.
+     */
+    private static void addresses(HttpExchange exchange) throws IOException {
+        StringBuilder body = new StringBuilder();
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(exchange.getRequestBody(), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (!line.isBlank()) {
+                    body.append(JSON.writeValueAsString(Map.of(
+                            "address", "777 Brockton Avenue",
+                            "city", "Abington",
+                            "state", "MA",
+                            "zip", "2351"))).append('\n');
+                }
+            }
+        }
+        respond(exchange, 200, "application/stream+json", body.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static Map<String, Object> price(long id) {
+        return Map.of("currency", "USD", "price", 10000 + id % 90000, "vehicleId", id);
+    }
+
+    private static long vehicleId(URI uri) {
+        String query = uri.getQuery() == null ? "" : uri.getQuery();
+        for (String parameter : query.split("&")) {
+            if (parameter.startsWith("vehicleId=")) {
+                return Long.parseLong(parameter.substring("vehicleId=".length()));
+            }
+        }
+        return 0L;
+    }
+
+    private static void respond(HttpExchange exchange, int status, String contentType, byte[] body)
+            throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", contentType);
+        exchange.sendResponseHeaders(status, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    /**
+     * Writes the successful response of an endpoint.
+     */
+    private interface Responder {
+
+        void respond(HttpExchange exchange) throws IOException;
+    }
+}
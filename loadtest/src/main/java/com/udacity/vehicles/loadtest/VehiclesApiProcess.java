@@ -0,0 +1,127 @@
+package com.udacity.vehicles.loadtest;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs the Vehicles API in its own JVM, so the load generator does not
+ * share its heap, threads or JIT with the application under test.
+ *
+ * The application is started from the classpath of the harness, talks
+ * to the stubbed downstream services directly instead of through Eureka,
+ * and writes its log to {@code target/loadtest/vehicles-api.log}.
+ */
+final class VehiclesApiProcess implements AutoCloseable {
+
+    private static final String MAIN_CLASS = "com.udacity.vehicles.VehiclesApiApplication";
+
+    private final Process process;
+    private final URI baseUri;
+
+    private VehiclesApiProcess(Process process, URI baseUri) {
+        this.process = process;
+        this.baseUri = baseUri;
+    }
+
+    /**
+     * Starts the application and waits until it serves requests.
+     * @param settings JVM options, profiles and threading of the application
+     * @param pricing stand-in for the pricing service
+     * @param maps stand-in for the Maps service
+     * @param log file the output of the application is written to
+     * @return the running application
+     * @throws IllegalStateException if the application exits or does not
+     *   serve requests within the startup timeout
+     */
+    static VehiclesApiProcess start(LoadTestSettings settings, StubServer pricing, StubServer maps, Path log)
+            throws IOException, InterruptedException {
+        int port = freePort();
+
+        List<String> command = new ArrayList<>();
+        command.add(Path.of(System.getProperty("java.home"), "bin", "java").toString());
+        command.addAll(settings.getJvmArgs());
+        command.add("-cp");
+        command.add(System.getProperty("java.class.path"));
+        command.add(MAIN_CLASS);
+        command.add("--server.port=" + port);
+        command.add("--pricing.endpoint=" + pricing.getUrl());
+        command.add("--maps.endpoint=" + maps.getUrl());
+        command.add("--eureka.client.enabled=false");
+        command.add("--spring.cloud.config.enabled=false");
+        command.add("--spring.devtools.restart.enabled=false");
+        command.add("--vehicles.threads.virtual=" + settings.isVirtualThreads());
+        if (!settings.getProfiles().isEmpty()) {
+            command.add("--spring.profiles.active=" + String.join(",", settings.getProfiles()));
+        }
+
+        Files.createDirectories(log.getParent());
+        Process process = new ProcessBuilder(command)
+                .redirectErrorStream(true)
+                .redirectOutput(log.toFile())
+                .start();
+        VehiclesApiProcess application = new VehiclesApiProcess(process, URI.create("http://localhost:" + port));
+        try {
+            application.awaitReady(settings.getStartupTimeout(), log.toFile());
+        } catch (IOException | InterruptedException | RuntimeException e) {
+            application.close();
+            throw e;
+        }
+        return application;
+    }
+
+    /**
+     * Gets the URI the application is served at.
+     * @return base URI of the application
+     */
+    URI getBaseUri() {
+        return baseUri;
+    }
+
+    @Override
+    public void close() throws InterruptedException {
+        process.destroy();
+        if (!process.waitFor(30, TimeUnit.SECONDS)) {
+            process.destroyForcibly();
+        }
+    }
+
+    private void awaitReady(Duration timeout, File log) throws IOException, InterruptedException {
+        HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(1)).build();
+        HttpRequest probe = HttpRequest.newBuilder(baseUri.resolve("/cars?limit=1&expand=none"))
+                .timeout(Duration.ofSeconds(5))
+                .build();
+        long deadline = System.nanoTime() + timeout.toNanos();
+        while (System.nanoTime() < deadline) {
+            if (!process.isAlive()) {
+                throw new IllegalStateException("Vehicles API exited with status " + process.exitValue()
+                        + ", see " + log);
+            }
+            try {
+                if (client.send(probe, HttpResponse.BodyHandlers.discarding()).statusCode() < 300) {
+                    return;
+                }
+            } catch (IOException e) {
+                // not listening yet
+            }
+            Thread.sleep(500);
+        }
+        throw new IllegalStateException("Vehicles API did not start within " + timeout + ", see " + log);
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+}
@@ -1,10 +1,15 @@
 package com.udacity.pricing.api;
 
 import com.udacity.pricing.domain.price.Price;
+import com.udacity.pricing.domain.price.PriceBatch;
 import com.udacity.pricing.service.PriceException;
 import com.udacity.pricing.service.PricingService;
+import java.util.List;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
@@ -17,6 +22,12 @@ import org.springframework.web.server.ResponseStatusException;
 @RequestMapping("/services/price")
 public class PricingController {
 
+    private final int maxBatchSize;
+
+    public PricingController(@Value("${pricing.batch.max-size:100}") int maxBatchSize) {
+        this.maxBatchSize = maxBatchSize;
+    }
+
     /**
      * Gets the price for a requested vehicle.
      * @param vehicleId ID number of the vehicle for which the price is requested
@@ -32,4 +43,19 @@ public class PricingController {
         }
 
     }
+
+    /**
+     * Gets the prices for several vehicles in a single request.
+     * @param vehicleIds ID numbers of the vehicles for which prices are requested
+     * @return prices found, along with the IDs that have no price, or error
+     *   that more IDs were requested than a batch allows
+     */
+    @PostMapping("/batch")
+    public PriceBatch getBatch(@RequestBody List<Long> vehicleIds) {
+        if (vehicleIds.size() > maxBatchSize) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "At most " + maxBatchSize + " vehicles can be priced at once");
+        }
+        return PricingService.getPrices(vehicleIds);
+    }
 }
@@ -1,9 +1,11 @@
 package com.udacity.pricing.service;
 
 import com.udacity.pricing.domain.price.Price;
+import com.udacity.pricing.domain.price.PriceBatch;
 
 import java.math.BigDecimal;
 import java.math.RoundingMode;
+import java.util.Collection;
 import java.util.Map;
 import java.util.concurrent.ThreadLocalRandom;
 import java.util.stream.Collectors;
@@ -37,6 +39,27 @@ public class PricingService {
         return PRICES.get(vehicleId);
     }
 
+    /**
+     * Gets the prices of several vehicles at once. Unknown vehicle IDs
+     * are reported as missing instead of failing the whole lookup.
+     * @param vehicleIds ID numbers of the vehicles the prices are requested for.
+     * @return prices found, in request order, and the IDs without a price
+     */
+    public static PriceBatch getPrices(Collection<Long> vehicleIds) {
+        PriceBatch batch = new PriceBatch();
+
+        vehicleIds.stream().distinct().forEach(vehicleId -> {
+            Price price = PRICES.get(vehicleId);
+            if (price != null) {
+                batch.getPrices().add(price);
+            } else {
+                batch.getMissing().add(vehicleId);
+            }
+        });
+
+        return batch;
+    }
+
     /**
      * Gets a random price to fill in for a given vehicle ID.
      * @return random price for a vehicle
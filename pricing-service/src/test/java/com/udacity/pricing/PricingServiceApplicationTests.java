@@ -1,9 +1,13 @@
 package com.udacity.pricing;
 
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -33,4 +37,27 @@ public class PricingServiceApplicationTests {
 			.andExpect(content().contentType(MediaType.APPLICATION_JSON_UTF8));
 	}
 
+	@Test
+	public void getPriceBatch() throws Exception{
+		mvc.perform(post("/services/price/batch")
+					.contentType(MediaType.APPLICATION_JSON)
+					.content("[1, 2, 999]"))
+			.andExpect(status().isOk())
+			.andExpect(jsonPath("$.prices.length()").value(2))
+			.andExpect(jsonPath("$.prices[0].vehicleId").value(1))
+			.andExpect(jsonPath("$.prices[1].vehicleId").value(2))
+			.andExpect(jsonPath("$.missing[0]").value(999));
+	}
+
+	@Test
+	public void rejectsOversizedPriceBatch() throws Exception{
+		String ids = LongStream.rangeClosed(1, 101)
+				.mapToObj(Long::toString)
+				.collect(Collectors.joining(",", "[", "]"));
+		mvc.perform(post("/services/price/batch")
+					.contentType(MediaType.APPLICATION_JSON)
+					.content(ids))
+			.andExpect(status().isBadRequest());
+	}
+
 }
@@ -1,14 +1,14 @@
 package com.udacity.vehicles;
 
-import java.util.List;
+import java.util.concurrent.TimeUnit;
 
-import com.netflix.appinfo.InstanceInfo;
 import com.netflix.discovery.EurekaClient;
-import com.netflix.discovery.shared.Application;
+import com.udacity.vehicles.client.DownstreamProperties;
+import com.udacity.vehicles.client.LoadBalancer;
 import com.udacity.vehicles.domain.manufacturer.Manufacturer;
 import com.udacity.vehicles.domain.manufacturer.ManufacturerRepository;
-import org.modelmapper.ModelMapper;
-import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.CommandLineRunner;
 import org.springframework.boot.SpringApplication;
@@ -18,8 +18,13 @@ import org.springframework.context.annotation.Bean;
 import org.springframework.data.jpa.repository.config.EnableJpaAuditing;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
 import org.springframework.web.reactive.function.client.WebClient;
 
+import io.netty.channel.ChannelOption;
+import io.netty.handler.timeout.ReadTimeoutHandler;
+import reactor.netty.http.client.HttpClient;
+
 /**
  * Launches a Spring Boot application for the Vehicles API,
  * initializes the car manufacturers in the database,
@@ -29,8 +34,6 @@ import org.springframework.web.reactive.function.client.WebClient;
 @EnableEurekaClient
 @EnableJpaAuditing
 public class VehiclesApiApplication {
-    @Autowired
-    private EurekaClient eurekaClient;
 
     public static void main(String[] args) {
         SpringApplication.run(VehiclesApiApplication.class, args);
@@ -52,39 +55,65 @@ public class VehiclesApiApplication {
         };
     }
 
-    @Bean
-    public ModelMapper modelMapper() {
-        return new ModelMapper();
-    }
-
     /**
-     * Web Client for the maps (location) API
-     * @param endpoint where to communicate for the maps API
+     * Web Client for the maps (location) API, balanced across the
+     * instances registered in Eureka
+     * @param service name of the maps API in the registry
+     * @param endpoint where to communicate for the maps API without discovery
+     * @param eurekaClient the registry client, if discovery is enabled
+     * @param properties timeouts and ejection settings for the maps API
      * @return created maps endpoint
      */
     @Bean(name="maps")
-    public WebClient webClientMaps(@Value("${maps.service}") String service) {
-        Application maps = eurekaClient.getApplication(service);
-        List<InstanceInfo> instances = maps.getInstances();
+    public WebClient webClientMaps(@Value("${maps.service}") String service,
+            @Value("${maps.endpoint}") String endpoint,
+            ObjectProvider<EurekaClient> eurekaClient,
+            @Qualifier("mapsClientProperties") DownstreamProperties properties) {
         return WebClient.builder()
-                        .baseUrl(instances.get(0).getHomePageUrl())
+                        .baseUrl(LoadBalancer.baseUrl(service))
+                        .filter(LoadBalancer.eureka(service, eurekaClient, endpoint, properties))
+                        .clientConnector(connector(properties))
                         .defaultHeader(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
                         .build();
     }
 
     /**
-     * Web Client for the pricing API
-     * @param endpoint where to communicate for the pricing API
+     * Web Client for the pricing API, balanced across the instances
+     * registered in Eureka
+     * @param service name of the pricing API in the registry
+     * @param endpoint where to communicate for the pricing API without discovery
+     * @param eurekaClient the registry client, if discovery is enabled
+     * @param properties timeouts and ejection settings for the pricing API
      * @return created pricing endpoint
      */
     @Bean(name="pricing")
-    public WebClient webClientPricing(@Value("${pricing.service}") String service) {
-        Application pricing = eurekaClient.getApplication(service);
-        List<InstanceInfo> instances = pricing.getInstances();
+    public WebClient webClientPricing(@Value("${pricing.service}") String service,
+            @Value("${pricing.endpoint}") String endpoint,
+            ObjectProvider<EurekaClient> eurekaClient,
+            @Qualifier("pricingClientProperties") DownstreamProperties properties) {
         return WebClient.builder()
-                        .baseUrl(instances.get(0).getHomePageUrl())
+                        .baseUrl(LoadBalancer.baseUrl(service))
+                        .filter(LoadBalancer.eureka(service, eurekaClient, endpoint, properties))
+                        .clientConnector(connector(properties))
                         .defaultHeader(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
                         .build();
     }
 
+    /**
+     * Creates an HTTP connector that gives up on connections not opened
+     * within the connect timeout, or idle for longer than the read timeout.
+     * @param properties timeouts of the downstream service
+     * @return connector for a web client
+     */
+    private static ReactorClientHttpConnector connector(DownstreamProperties properties) {
+        HttpClient httpClient = HttpClient.create()
+                .tcpConfiguration(tcpClient -> tcpClient
+                        .option(ChannelOption.CONNECT_TIMEOUT_MILLIS,
+                                (int) properties.getConnectTimeout().toMillis())
+                        .doOnConnected(connection -> connection.addHandlerLast(
+                                new ReadTimeoutHandler(properties.getReadTimeout().toMillis(),
+                                        TimeUnit.MILLISECONDS))));
+        return new ReactorClientHttpConnector(httpClient);
+    }
+
 }
@@ -1,17 +1,46 @@
 package com.udacity.vehicles.api;
 
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.time.Duration;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.function.Predicate;
 
+import javax.servlet.http.HttpServletRequest;
 import javax.validation.Valid;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
 import com.udacity.vehicles.domain.car.Car;
+import com.udacity.vehicles.domain.car.CarSearch;
+import com.udacity.vehicles.domain.car.CarSpecifications;
+import com.udacity.vehicles.domain.car.Expansion;
+import com.udacity.vehicles.service.CarImporter;
 import com.udacity.vehicles.service.CarService;
+import com.udacity.vehicles.service.CarVersion;
+import com.udacity.vehicles.service.ImportSummary;
+import com.udacity.vehicles.service.Versioned;
 
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.hateoas.PagedResources;
 import org.springframework.hateoas.Resource;
+import org.springframework.hateoas.Resources;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -20,54 +49,211 @@ import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.context.request.async.AsyncWebRequest;
+import org.springframework.web.context.request.async.CallableProcessingInterceptor;
+import org.springframework.web.context.request.async.WebAsyncUtils;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import io.swagger.annotations.ApiResponse;
 import io.swagger.annotations.ApiResponses;
 
+import static org.springframework.hateoas.mvc.ControllerLinkBuilder.linkTo;
+import static org.springframework.hateoas.mvc.ControllerLinkBuilder.methodOn;
+
 /**
  * Implements a REST-based controller for the Vehicles API.
  */
 
 @RestController
 @RequestMapping("/cars")
+@Profile("!reactive")
 class CarController {
+    static final String APPLICATION_NDJSON_VALUE = "application/x-ndjson";
+
     private final CarService carService;
     private final CarResourceAssembler assembler;
+    private final RenderedCarCache renderCache;
+    private final CarImporter importer;
+    private final ObjectWriter carWriter;
+    private final ObjectReader carReader;
+    private final int defaultLimit;
+    private final int maxLimit;
+    private final int maxK;
+    private final Duration streamTimeout;
 
-    CarController(CarService carService, CarResourceAssembler assembler) {
+    CarController(CarService carService, CarResourceAssembler assembler, RenderedCarCache renderCache,
+            CarImporter importer, ObjectMapper mapper,
+            @Value("${vehicles.page.default-limit:50}") int defaultLimit,
+            @Value("${vehicles.page.max-limit:500}") int maxLimit,
+            @Value("${vehicles.near.max-k:500}") int maxK,
+            @Value("${vehicles.export.timeout:PT1H}") Duration streamTimeout) {
         this.carService = carService;
         this.assembler = assembler;
+        this.renderCache = renderCache;
+        this.importer = importer;
+        this.carWriter = mapper.writerFor(Car.class);
+        this.carReader = mapper.readerFor(Car.class);
+        this.defaultLimit = defaultLimit;
+        this.maxLimit = maxLimit;
+        this.maxK = maxK;
+        this.streamTimeout = streamTimeout;
     }
 
     /**
-     * Creates a list to store any vehicles.
-     * @return list of vehicles
+     * Creates a list to store one page of vehicles, ordered by ID.
+     * @param after opaque cursor from the "next" link of the previous page
+     * @param limit maximum number of vehicles to return
+     * @param expand remote information to include, such as "price,location", or "none"
+     * @param request the request, whose If-None-Match and If-Modified-Since
+     *   headers are checked against the current version of the page
+     * @return page of vehicles, with a link to the next page if there is one,
+     *   or Not Modified if the client already has it
      */
     @ApiResponses( value = {
-        @ApiResponse(code = 200, message = "Car list request OK.")
+        @ApiResponse(code = 200, message = "Car list request OK."),
+        @ApiResponse(code = 304, message = "Car list not modified."),
+        @ApiResponse(code = 400, message = "Invalid cursor or expansion.")
     })
     @GetMapping
-    ResponseEntity<?> listCars() {
-        List<Resource<Car>> resources = carService.list().stream().map(assembler::toResource)
-                .collect(Collectors.toList());
-        return ResponseEntity.accepted().body(resources);
+    ResponseEntity<?> listCars(@RequestParam(required = false) String after,
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(required = false) String expand,
+            HttpServletRequest request) {
+        int size = limit == null ? defaultLimit : Math.max(1, Math.min(limit, maxLimit));
+        Predicate<CarVersion> current = current(request);
+        Versioned<Slice<Car>> cars = carService.list(after == null ? null : CarCursor.decode(after), size,
+                expansions(expand), current);
+        if (cars.isNotModified() || current.test(cars.getVersion())) {
+            return notModified(cars.getVersion());
+        }
+        return versioned(ResponseEntity.accepted(), cars.getVersion())
+                .body(assembler.toResources(cars.getValue(), after, size, expand));
+    }
+
+    /**
+     * Searches vehicles by their attributes, such as
+     * {@code /cars/search?condition=USED&minModelYear=2015&sort=mileage,desc}.
+     * @param search the attributes to match, each optional
+     * @param pageable page number, page size and sort order, by
+     *   manufacturer, condition, body, fuelType, modelYear, mileage or id
+     * @param expand remote information to include, such as "price,location", or "none"
+     * @return page of matching vehicles, with links to the other pages
+     */
+    @ApiResponses( value = {
+        @ApiResponse(code = 200, message = "Car search request OK."),
+        @ApiResponse(code = 400, message = "Invalid criteria, sort or expansion.")
+    })
+    @GetMapping("/search")
+    ResponseEntity<PagedResources<Resource<Car>>> searchCars(CarSearch search, Pageable pageable,
+            @RequestParam(required = false) String expand) {
+        Page<Car> cars = carService.search(CarSpecifications.matching(search), sorted(pageable),
+                expansions(expand));
+        return ResponseEntity.ok(assembler.toResources(cars));
+    }
+
+    /**
+     * Finds the vehicles near a point, nearest first, such as
+     * {@code /cars/near?lat=40.73&lon=-73.93&radiusKm=5} for those within
+     * 5 km, or {@code /cars/near?lat=40.73&lon=-73.93&k=10} for the 10
+     * nearest. Each vehicle comes with its {@code distanceKm}. At most
+     * {@code vehicles.near.max-k} vehicles are returned, and asking for
+     * more is rejected.
+     * @param lat latitude of the point
+     * @param lon longitude of the point
+     * @param radiusKm greatest distance of the vehicles, in kilometers
+     * @param k greatest number of vehicles to return
+     * @param expand remote information to include, such as "price,location", or "none"
+     * @return the vehicles found, nearest first, or Bad Request if the point,
+     *   radius or count is invalid
+     */
+    @ApiResponses( value = {
+        @ApiResponse(code = 200, message = "Car proximity request OK."),
+        @ApiResponse(code = 400, message = "Invalid point, radius, count or expansion.")
+    })
+    @GetMapping("/near")
+    ResponseEntity<Resources<Resource<Car>>> nearCars(@RequestParam double lat, @RequestParam double lon,
+            @RequestParam(required = false) Double radiusKm,
+            @RequestParam(required = false) Integer k,
+            @RequestParam(required = false) String expand) {
+        if (lat < -90 || lat > 90 || lon < -180 || lon > 180) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid point");
+        }
+        if ((radiusKm == null && k == null) || (radiusKm != null && !(radiusKm > 0)) || (k != null && k < 1)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Expected a positive radiusKm or k");
+        }
+        if (k != null && k > maxK) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Expected k of at most " + maxK);
+        }
+        List<Car> cars = carService.near(lat, lon, radiusKm, k == null ? maxK : k, expansions(expand));
+        return ResponseEntity.ok(assembler.toResources(cars,
+                linkTo(methodOn(CarController.class).nearCars(lat, lon, radiusKm, k, expand)).withSelfRel()));
+    }
+
+    /**
+     * Streams every vehicle as newline-delimited JSON, one line per
+     * vehicle, writing each one as soon as it has been enriched. Only this
+     * response may take up to {@code vehicles.export.timeout}; other async
+     * requests keep the default timeout.
+     * @param request the request, whose async timeout is extended
+     * @return stream of all vehicles in ID order
+     */
+    @ApiResponses( value = {
+        @ApiResponse(code = 200, message = "Car stream request OK.")
+    })
+    @GetMapping(value = "/stream", produces = APPLICATION_NDJSON_VALUE)
+    ResponseEntity<StreamingResponseBody> streamCars(HttpServletRequest request) {
+        WebAsyncUtils.getAsyncManager(request).registerCallableInterceptor(StreamTimeout.class,
+                new StreamTimeout(streamTimeout));
+        StreamingResponseBody body = out -> {
+            try {
+                this.carService.export(car -> {
+                    try {
+                        out.write(carWriter.writeValueAsBytes(car));
+                        out.write('\n');
+                        out.flush();
+                    } catch (IOException ex) {
+                        throw new UncheckedIOException(ex);
+                    }
+                });
+            } catch (UncheckedIOException ex) {
+                throw ex.getCause();
+            }
+        };
+        return ResponseEntity.ok().contentType(MediaType.parseMediaType(APPLICATION_NDJSON_VALUE)).body(body);
     }
 
     /**
      * Gets information of a specific car by ID.
      * @param id the id number of the given vehicle
-     * @return all information for the requested vehicle
+     * @param expand remote information to include, such as "price,location", or "none"
+     * @param request the request, whose If-None-Match and If-Modified-Since
+     *   headers are checked against the current version of the vehicle
+     * @return all requested information for the vehicle, or Not Modified
+     *   if the client already has it; the response may be kept by the
+     *   {@link RenderedCarCache} and answer the same request again
      */
     @ApiResponses( value = {
         @ApiResponse(code = 400, message = "Car not found."),
-        @ApiResponse(code = 200, message = "Car get request OK.")
+        @ApiResponse(code = 200, message = "Car get request OK."),
+        @ApiResponse(code = 304, message = "Car not modified.")
     })
     @GetMapping("/{id}")
-    ResponseEntity<?> findCar(@PathVariable Long id) {
-        Car car = this.carService.findById(id);
-        Resource<Car> resource = this.assembler.toResource(car);
-        return ResponseEntity.ok().body(resource);
+    ResponseEntity<?> findCar(@PathVariable Long id, @RequestParam(required = false) String expand,
+            HttpServletRequest request) {
+        Predicate<CarVersion> current = current(request);
+        Set<Expansion> expansions = expansions(expand);
+        Versioned<Car> car = this.carService.findById(id, expansions, current);
+        if (car.isNotModified() || current.test(car.getVersion())) {
+            return notModified(car.getVersion());
+        }
+        this.renderCache.retain(request, car.getValue(), expansions, car.getVersion());
+        Resource<Car> resource = this.assembler.toResource(car.getValue());
+        return versioned(ResponseEntity.ok(), car.getVersion()).body(resource);
     }
 
     /**
@@ -86,6 +272,43 @@ class CarController {
         return ResponseEntity.created(new URI(resource.getId().expand().getHref())).body(resource);
     }
 
+    /**
+     * Imports many new vehicles at once, such as the fleet of a new dealer.
+     * The body is either a JSON array of vehicles or one vehicle per line.
+     * Each vehicle is validated and created on its own, without looking up
+     * its price or address, so some may be created while others are not.
+     * @param request the request, whose body is read as it is imported
+     * @return the result of each vehicle, in the order they were sent,
+     *   including the ones created before the body could not be read
+     */
+    @ApiResponses( value = {
+        @ApiResponse(code = 200, message = "Car import done; see the result of each car.")
+    })
+    @PostMapping(value = "/bulk", consumes = {MediaType.APPLICATION_JSON_VALUE, APPLICATION_NDJSON_VALUE})
+    ResponseEntity<ImportSummary> importCars(HttpServletRequest request) {
+        CarImporter.Import cars = importer.begin();
+        try (MappingIterator<Car> items = carReader.readValues(request.getInputStream())) {
+            while (items.hasNextValue()) {
+                Car car;
+                try {
+                    car = items.nextValue();
+                } catch (JsonMappingException e) {
+                    cars.reject(e.getOriginalMessage());
+                    continue;
+                } catch (RuntimeException e) {
+                    cars.reject("Could not read the car: " + e.getMessage());
+                    continue;
+                }
+                cars.add(car);
+            }
+        } catch (JsonProcessingException e) {
+            cars.abort("Malformed JSON: " + e.getOriginalMessage());
+        } catch (IOException | RuntimeException e) {
+            cars.abort("Could not read the request: " + e.getMessage());
+        }
+        return ResponseEntity.ok(cars.finish());
+    }
+
     /**
      * Updates the information of a vehicle in the system.
      * @param id The ID number for which to update vehicle information.
@@ -114,4 +337,61 @@ class CarController {
         this.carService.delete(id);
         return ResponseEntity.noContent().build();
     }
+
+    /**
+     * Checks versions against the conditional headers of a request, without
+     * touching the response.
+     */
+    private static Predicate<CarVersion> current(HttpServletRequest request) {
+        return version -> new ServletWebRequest(request).checkNotModified(version.getETag(), version.getLastModified());
+    }
+
+    private static ResponseEntity<?> notModified(CarVersion version) {
+        return versioned(ResponseEntity.status(HttpStatus.NOT_MODIFIED), version).build();
+    }
+
+    private static ResponseEntity.BodyBuilder versioned(ResponseEntity.BodyBuilder response, CarVersion version) {
+        response.eTag(version.getETag());
+        if (version.getLastModified() >= 0) {
+            response.lastModified(version.getLastModified());
+        }
+        return response;
+    }
+
+    private static Pageable sorted(Pageable pageable) {
+        try {
+            return PageRequest.of(pageable.getPageNumber(), pageable.getPageSize(),
+                    CarSpecifications.sort(pageable.getSort()));
+        } catch (IllegalArgumentException ex) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid sort", ex);
+        }
+    }
+
+    private static Set<Expansion> expansions(String expand) {
+        try {
+            return Expansion.parse(expand);
+        } catch (IllegalArgumentException ex) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid expansion", ex);
+        }
+    }
+
+    /**
+     * Sets the timeout of one async response, once the async processing of
+     * its body is about to start.
+     */
+    private static class StreamTimeout implements CallableProcessingInterceptor {
+
+        private final Duration timeout;
+
+        StreamTimeout(Duration timeout) {
+            this.timeout = timeout;
+        }
+
+        @Override
+        public <T> void beforeConcurrentHandling(NativeWebRequest request, Callable<T> task) {
+            if (request instanceof AsyncWebRequest) {
+                ((AsyncWebRequest) request).setTimeout(timeout.toMillis());
+            }
+        }
+    }
 }
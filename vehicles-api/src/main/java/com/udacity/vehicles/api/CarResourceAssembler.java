@@ -1,23 +1,192 @@
 package com.udacity.vehicles.api;
 
 import com.udacity.vehicles.domain.car.Car;
+import java.util.List;
+import java.util.stream.Collectors;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Slice;
+import org.springframework.hateoas.Link;
+import org.springframework.hateoas.PagedResources;
 import org.springframework.hateoas.Resource;
 import org.springframework.hateoas.ResourceAssembler;
+import org.springframework.hateoas.Resources;
+import org.springframework.hateoas.TemplateVariables;
+import org.springframework.hateoas.UriTemplate;
 import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+import org.springframework.web.util.UriComponentsBuilder;
 
 import static org.springframework.hateoas.mvc.ControllerLinkBuilder.*;
 
 /**
  * Maps the CarController to the Car class using HATEOAS
+ *
+ * With {@code vehicles.links.precomputed} set, the links of a car are not
+ * built through a controller proxy for each car: the templates are built
+ * once per request and each car's ID is appended to them, which renders
+ * the same links. Lists, pages and search results all share them. With {@code vehicles.links.item-cars-link} unset, the
+ * cars of a page leave out their link to the list, which the page
+ * itself already has.
  */
 @Component
 public class CarResourceAssembler implements ResourceAssembler<Car, Resource<Car>> {
 
+    private static final String CARS_REL = "cars";
+
+    private final boolean precomputed;
+    private final boolean itemCarsLink;
+
+    public CarResourceAssembler(@Value("${vehicles.links.precomputed:true}") boolean precomputed,
+            @Value("${vehicles.links.item-cars-link:true}") boolean itemCarsLink) {
+        this.precomputed = precomputed;
+        this.itemCarsLink = itemCarsLink;
+    }
+
     @Override
     public Resource<Car> toResource(Car car) {
-        return new Resource<>(car,
-                linkTo(methodOn(CarController.class).findCar(car.getId())).withSelfRel(),
-                linkTo(methodOn(CarController.class).listCars()).withRel("cars"));
+        return links().toResource(car, true);
+    }
+
+    /**
+     * Maps a page of cars, adding a link to the next page when there is one.
+     * @param cars the cars in the page
+     * @param after cursor the page was requested with, if any
+     * @param limit maximum number of cars per page
+     * @param expand expansions the page was requested with, if any
+     * @return the cars in the page with self and next links
+     */
+    public Resources<Resource<Car>> toResources(Slice<Car> cars, String after, int limit, String expand) {
+        CarLinks links = links();
+        List<Resource<Car>> resources = cars.getContent().stream()
+                .map(car -> links.toResource(car, itemCarsLink))
+                .collect(Collectors.toList());
+
+        Resources<Resource<Car>> page = new Resources<>(resources,
+                linkTo(methodOn(CarController.class).listCars(after, limit, expand, null)).withSelfRel());
+
+        if (cars.hasNext() && cars.hasContent()) {
+            Car last = cars.getContent().get(cars.getNumberOfElements() - 1);
+            page.add(linkTo(methodOn(CarController.class)
+                    .listCars(CarCursor.encode(last.getId()), limit, expand, null))
+                    .withRel(Link.REL_NEXT));
+        }
+
+        return page;
+    }
+
+    /**
+     * Maps a numbered page of cars, with links to the same request for
+     * the first, previous, next and last pages.
+     * @param cars the cars in the page
+     * @return the cars in the page with the page metadata and links
+     */
+    public PagedResources<Resource<Car>> toResources(Page<Car> cars) {
+        CarLinks links = links();
+        List<Resource<Car>> resources = cars.getContent().stream()
+                .map(car -> links.toResource(car, itemCarsLink))
+                .collect(Collectors.toList());
+        PagedResources<Resource<Car>> page = new PagedResources<>(resources, new PagedResources.PageMetadata(
+                cars.getSize(), cars.getNumber(), cars.getTotalElements(), cars.getTotalPages()));
+
+        UriComponentsBuilder request = ServletUriComponentsBuilder.fromCurrentRequest();
+        boolean navigable = cars.hasPrevious() || cars.hasNext();
+        if (navigable) {
+            page.add(pageLink(request, 0, Link.REL_FIRST));
+        }
+        if (cars.hasPrevious()) {
+            page.add(pageLink(request, cars.getNumber() - 1, Link.REL_PREVIOUS));
+        }
+        page.add(pageLink(request, cars.getNumber(), Link.REL_SELF));
+        if (cars.hasNext()) {
+            page.add(pageLink(request, cars.getNumber() + 1, Link.REL_NEXT));
+        }
+        if (navigable) {
+            page.add(pageLink(request, Math.max(0, cars.getTotalPages() - 1), Link.REL_LAST));
+        }
+        return page;
+    }
+
+    /**
+     * Maps a list of cars that is not paged.
+     * @param cars the cars in the list
+     * @param self link to the list
+     * @return the cars with a self link
+     */
+    public Resources<Resource<Car>> toResources(List<Car> cars, Link self) {
+        CarLinks links = links();
+        return new Resources<>(cars.stream()
+                .map(car -> links.toResource(car, itemCarsLink))
+                .collect(Collectors.toList()), self);
+    }
+
+    private static Link pageLink(UriComponentsBuilder request, int number, String rel) {
+        return new Link(request.cloneBuilder().replaceQueryParam("page", number).build().toUriString(), rel);
+    }
+
+    private CarLinks links() {
+        return precomputed ? new TemplateLinks() : new BuilderLinks();
+    }
+
+    /**
+     * Builds the links of the cars of one request.
+     */
+    private interface CarLinks {
+
+        Link self(Long id);
+
+        Link cars();
+
+        default Resource<Car> toResource(Car car, boolean withCars) {
+            Resource<Car> resource = new Resource<>(car, self(car.getId()));
+            if (withCars) {
+                resource.add(cars());
+            }
+            return resource;
+        }
+    }
+
+    /**
+     * Builds every link through a proxy of the controller.
+     */
+    private static class BuilderLinks implements CarLinks {
+
+        @Override
+        public Link self(Long id) {
+            return linkTo(methodOn(CarController.class).findCar(id, null, null)).withSelfRel();
+        }
+
+        @Override
+        public Link cars() {
+            return linkTo(methodOn(CarController.class).listCars(null, null, null, null)).withRel(CARS_REL);
+        }
+    }
+
+    /**
+     * Builds the links through the controller proxy once, and derives the
+     * link of each car from them.
+     */
+    private static class TemplateLinks implements CarLinks {
+
+        private final String base;
+        private final TemplateVariables selfVariables;
+        private final Link cars;
+
+        TemplateLinks() {
+            Link self = linkTo(methodOn(CarController.class).findCar(0L, null, null)).withSelfRel();
+            this.base = linkTo(CarController.class).toString() + "/";
+            this.selfVariables = new TemplateVariables(self.getVariables());
+            this.cars = linkTo(methodOn(CarController.class).listCars(null, null, null, null)).withRel(CARS_REL);
+        }
+
+        @Override
+        public Link self(Long id) {
+            return new Link(new UriTemplate(base + id, selfVariables), Link.REL_SELF);
+        }
 
+        @Override
+        public Link cars() {
+            return cars;
+        }
     }
 }
@@ -0,0 +1,148 @@
+package com.udacity.vehicles.api;
+
+import java.net.URI;
+import java.util.List;
+import java.util.Set;
+
+import javax.validation.Valid;
+
+import com.udacity.vehicles.domain.car.Car;
+import com.udacity.vehicles.domain.car.Expansion;
+import com.udacity.vehicles.service.ReactiveCarService;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.util.UriComponentsBuilder;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Implements the Vehicles API on the reactive stack, for the "reactive"
+ * profile. Requests and responses match {@link CarController}, except
+ * that vehicles are plain JSON: the link to the next page of vehicles is
+ * sent in the {@code Link} header rather than in a HAL document.
+ */
+@RestController
+@RequestMapping("/cars")
+@Profile("reactive")
+class ReactiveCarController {
+
+    private final ReactiveCarService carService;
+    private final int defaultLimit;
+    private final int maxLimit;
+
+    ReactiveCarController(ReactiveCarService carService,
+            @Value("${vehicles.page.default-limit:50}") int defaultLimit,
+            @Value("${vehicles.page.max-limit:500}") int maxLimit) {
+        this.carService = carService;
+        this.defaultLimit = defaultLimit;
+        this.maxLimit = maxLimit;
+    }
+
+    /**
+     * Creates a list to store one page of vehicles, ordered by ID.
+     * @param after opaque cursor from the "next" link of the previous page
+     * @param limit maximum number of vehicles to return
+     * @param expand remote information to include, such as "price,location", or "none"
+     * @return page of vehicles, with a link to the next page if there is one
+     */
+    @GetMapping
+    Mono<ResponseEntity<List<Car>>> listCars(@RequestParam(required = false) String after,
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(required = false) String expand) {
+        int size = limit == null ? defaultLimit : Math.max(1, Math.min(limit, maxLimit));
+        return carService.list(after == null ? null : CarCursor.decode(after), size, expansions(expand))
+                .map(cars -> {
+                    ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+                    if (cars.hasNext()) {
+                        Car last = cars.getContent().get(cars.getNumberOfElements() - 1);
+                        UriComponentsBuilder next = UriComponentsBuilder.fromPath("/cars")
+                                .queryParam("after", CarCursor.encode(last.getId()))
+                                .queryParam("limit", size);
+                        if (expand != null) {
+                            next.queryParam("expand", expand);
+                        }
+                        response.header(HttpHeaders.LINK, "<" + next.toUriString() + ">; rel=\"next\"");
+                    }
+                    return response.body(cars.getContent());
+                });
+    }
+
+    /**
+     * Streams every vehicle as newline-delimited JSON, one line per
+     * vehicle, writing each one as soon as it has been enriched.
+     * @return stream of all vehicles in ID order
+     */
+    @GetMapping(value = "/stream", produces = {
+            CarController.APPLICATION_NDJSON_VALUE, MediaType.APPLICATION_STREAM_JSON_VALUE})
+    Flux<Car> streamCars() {
+        return carService.export();
+    }
+
+    /**
+     * Gets information of a specific car by ID.
+     * @param id the id number of the given vehicle
+     * @param expand remote information to include, such as "price,location", or "none"
+     * @return all requested information for the vehicle
+     */
+    @GetMapping("/{id}")
+    Mono<Car> findCar(@PathVariable Long id, @RequestParam(required = false) String expand) {
+        return carService.findById(id, expansions(expand));
+    }
+
+    /**
+     * Posts information to create a new vehicle in the system.
+     * @param car A new vehicle to add to the system.
+     * @return response that the new vehicle was added to the system
+     */
+    @PostMapping
+    Mono<ResponseEntity<Car>> createCar(@Valid @RequestBody Car car) {
+        return carService.save(car)
+                .map(saved -> ResponseEntity.created(URI.create("/cars/" + saved.getId())).body(saved));
+    }
+
+    /**
+     * Updates the information of a vehicle in the system.
+     * @param id The ID number for which to update vehicle information.
+     * @param car The updated information about the related vehicle.
+     * @return response that the vehicle was updated in the system
+     */
+    @PutMapping("/{id}")
+    Mono<Car> updateCar(@PathVariable Long id, @Valid @RequestBody Car car) {
+        car.setId(id);
+        return carService.save(car);
+    }
+
+    /**
+     * Removes a vehicle from the system.
+     * @param id The ID number of the vehicle to remove.
+     * @return response that the related vehicle is no longer in the system
+     */
+    @DeleteMapping("/{id}")
+    Mono<ResponseEntity<Void>> deleteCar(@PathVariable Long id) {
+        return carService.delete(id).thenReturn(ResponseEntity.noContent().build());
+    }
+
+    private static Set<Expansion> expansions(String expand) {
+        try {
+            return Expansion.parse(expand);
+        } catch (IllegalArgumentException ex) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid expansion", ex);
+        }
+    }
+}
@@ -0,0 +1,416 @@
+package com.udacity.vehicles.api;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPOutputStream;
+
+import javax.servlet.http.HttpServletRequest;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.udacity.vehicles.client.Cached;
+import com.udacity.vehicles.client.maps.Address;
+import com.udacity.vehicles.client.maps.MapsClient;
+import com.udacity.vehicles.client.prices.PriceClient;
+import com.udacity.vehicles.domain.car.Car;
+import com.udacity.vehicles.domain.car.Expansion;
+import com.udacity.vehicles.service.CarChangedEvent;
+import com.udacity.vehicles.service.CarVersion;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+
+/**
+ * Keeps the rendered responses to requests for a car by ID, so that the
+ * same request can be answered again without reading the car, looking up
+ * its price and address, or serializing it.
+ *
+ * A car has one rendering per combination of expansions, Accept header
+ * and base URL it was requested with, each kept with its version and,
+ * with {@code vehicles.render-cache.gzip} set, a gzipped copy. All the
+ * renderings of a car are dropped on the {@link CarChangedEvent} of the
+ * car. Each rendering expires when the price or address it holds is due
+ * to be refreshed by the clients, and at the latest after
+ * {@code vehicles.render-cache.max-ttl}; renderings with remote
+ * information the clients no longer had cached are not kept at all.
+ * Cars are weighed by the size of their renderings, and the least used
+ * are evicted to stay within {@code vehicles.render-cache.max-bytes}.
+ */
+@Component
+@Profile("!reactive")
+public class RenderedCarCache {
+
+    private static final String RETAINED = RenderedCarCache.class.getName() + ".retained";
+    private static final int ENTRY_OVERHEAD = 128;
+
+    private final PriceClient pricing;
+    private final MapsClient maps;
+    private final boolean enabled;
+    private final long maxBytes;
+    private final Duration maxTtl;
+    private final boolean gzip;
+    private final Duration priceTtl;
+    private final Duration addressTtl;
+    private final boolean persistAddress;
+    private final Cache<Long, Map<String, Rendering>> cache;
+    private final AtomicLong clock = new AtomicLong();
+    private final Map<Long, Long> invalidatedAt = new ConcurrentHashMap<>();
+    private volatile long flushedAt;
+    private final Counter hits;
+    private final Counter misses;
+
+    public RenderedCarCache(PriceClient pricing, MapsClient maps, MeterRegistry registry,
+            @Value("${vehicles.render-cache.enabled:true}") boolean enabled,
+            @Value("${vehicles.render-cache.max-bytes:33554432}") long maxBytes,
+            @Value("${vehicles.render-cache.max-ttl:PT10M}") Duration maxTtl,
+            @Value("${vehicles.render-cache.gzip:true}") boolean gzip,
+            @Value("${pricing.cache.ttl:PT5M}") Duration priceTtl,
+            @Value("${maps.cache.ttl:PT24H}") Duration addressTtl,
+            @Value("${vehicles.location.persist-address:true}") boolean persistAddress) {
+        this.pricing = pricing;
+        this.maps = maps;
+        this.enabled = enabled;
+        this.maxBytes = maxBytes;
+        this.maxTtl = maxTtl;
+        this.gzip = gzip;
+        this.priceTtl = priceTtl;
+        this.addressTtl = addressTtl;
+        this.persistAddress = persistAddress;
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(enabled ? maxBytes : 0)
+                .weigher(RenderedCarCache::weigh)
+                .expireAfter(new RenderingExpiry())
+                .recordStats()
+                .build();
+        this.hits = Counter.builder("render.cache.requests")
+                .tag("result", "hit")
+                .description("Requests for a car answered with a kept rendering")
+                .register(registry);
+        this.misses = Counter.builder("render.cache.requests")
+                .tag("result", "miss")
+                .description("Requests for a car that had to be rendered")
+                .register(registry);
+        Gauge.builder("render.cache.weight", this, RenderedCarCache::weightBytes)
+                .baseUnit("bytes")
+                .description("Size of the kept renderings")
+                .register(registry);
+    }
+
+    boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Works out which rendering of a car a request asks for.
+     * @param request a request for a car by ID
+     * @return the variant of the rendering, or null if the expansions are invalid
+     */
+    static String variant(HttpServletRequest request) {
+        Set<Expansion> expand;
+        try {
+            expand = Expansion.parse(request.getParameter("expand"));
+        } catch (IllegalArgumentException ex) {
+            return null;
+        }
+        String accept = request.getHeader(HttpHeaders.ACCEPT);
+        return expand + "|" + (accept == null ? "" : accept) + "|"
+                + ServletUriComponentsBuilder.fromContextPath(request).toUriString();
+    }
+
+    /**
+     * Gets the rendering a request for a car asks for, if one is kept.
+     * @param id the ID of the car
+     * @param variant the variant of the rendering
+     * @return the rendering, or null if none is kept or it expired
+     */
+    Rendering get(Long id, String variant) {
+        Map<String, Rendering> renderings = cache.getIfPresent(id);
+        Rendering rendering = renderings == null ? null : renderings.get(variant);
+        if (rendering == null || !rendering.isFreshAt(Instant.now())) {
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+        return rendering;
+    }
+
+    /**
+     * Gets the current generation, to be handed back to {@link #put} so
+     * that a rendering started before its car was invalidated is not kept
+     * after it. Invalidating one car does not affect the others.
+     * @return the number of invalidations so far
+     */
+    long generation() {
+        return clock.get();
+    }
+
+    /**
+     * Lets the response to a request for a car be kept once it is rendered,
+     * if the clients still have the price and address it holds cached.
+     * @param request the request for the car
+     * @param car the car as returned, including its remote information
+     * @param expand the remote information requested
+     * @param version the version of the car as returned
+     */
+    void retain(HttpServletRequest request, Car car, Set<Expansion> expand, CarVersion version) {
+        if (!enabled) {
+            return;
+        }
+        Instant now = Instant.now();
+        Instant expiresAt = now.plus(maxTtl);
+        if (expand.contains(Expansion.PRICE)) {
+            Cached<String> price = pricing.peekPrice(car.getId());
+            if (price == null) {
+                return;
+            }
+            expiresAt = earliest(expiresAt, price.getFetchedAt().plus(priceTtl));
+        }
+        if (expand.contains(Expansion.LOCATION) && !(persistAddress && car.getLocation().isResolved())) {
+            Cached<Address> address = maps.peekAddress(car.getLocation());
+            if (address == null) {
+                return;
+            }
+            expiresAt = earliest(expiresAt, address.getFetchedAt().plus(addressTtl));
+        }
+        if (expiresAt.isAfter(now)) {
+            request.setAttribute(RETAINED, new Retained(version, expiresAt));
+        }
+    }
+
+    /**
+     * Keeps the rendered response to a request for a car, if it was
+     * retained and the car was not invalidated since rendering started.
+     * @param request the request for the car
+     * @param id the ID of the car
+     * @param variant the variant of the rendering
+     * @param contentType the content type of the response
+     * @param body the body of the response
+     * @param generation the generation when rendering started
+     */
+    void put(HttpServletRequest request, Long id, String variant, String contentType, byte[] body,
+            long generation) {
+        Object retained = request.getAttribute(RETAINED);
+        if (!(retained instanceof Retained)) {
+            return;
+        }
+        Retained marked = (Retained) retained;
+        Rendering rendering = new Rendering(contentType, body, gzip ? gzip(body) : null,
+                marked.version, marked.expiresAt);
+        Instant now = Instant.now();
+        cache.asMap().compute(id, (key, renderings) -> {
+            if (flushedAt > generation || invalidatedAt.getOrDefault(key, 0L) > generation) {
+                return renderings;
+            }
+            Map<String, Rendering> updated = new HashMap<>();
+            if (renderings != null) {
+                renderings.forEach((other, kept) -> {
+                    if (kept.isFreshAt(now)) {
+                        updated.put(other, kept);
+                    }
+                });
+            }
+            updated.put(variant, rendering);
+            return Collections.unmodifiableMap(updated);
+        });
+    }
+
+    @EventListener
+    public void onCarChanged(CarChangedEvent event) {
+        invalidate(event.getCarId());
+    }
+
+    /**
+     * Drops the renderings of a car.
+     * @param id the ID of the car
+     */
+    public void invalidate(Long id) {
+        invalidatedAt.put(id, clock.incrementAndGet());
+        cache.invalidate(id);
+    }
+
+    /**
+     * Drops the renderings of every car.
+     */
+    public void invalidateAll() {
+        flushedAt = clock.incrementAndGet();
+        invalidatedAt.clear();
+        cache.invalidateAll();
+    }
+
+    /**
+     * Describes the cache as a whole.
+     * @return the settings and usage of the cache
+     */
+    public Map<String, Object> describe() {
+        Map<String, Object> description = new LinkedHashMap<>();
+        description.put("enabled", enabled);
+        description.put("gzip", gzip);
+        description.put("cars", cache.estimatedSize());
+        description.put("renderings", cache.asMap().values().stream().mapToInt(Map::size).sum());
+        description.put("weightBytes", weightBytes());
+        description.put("maxBytes", maxBytes);
+        description.put("hits", (long) hits.count());
+        description.put("misses", (long) misses.count());
+        description.put("evictions", cache.stats().evictionCount());
+        return description;
+    }
+
+    /**
+     * Describes the renderings kept for a car.
+     * @param id the ID of the car
+     * @return each rendering by variant, empty if none is kept
+     */
+    public Map<String, Object> describe(Long id) {
+        Map<String, Object> description = new LinkedHashMap<>();
+        Map<String, Rendering> renderings = cache.getIfPresent(id);
+        if (renderings != null) {
+            renderings.forEach((variant, rendering) -> {
+                Map<String, Object> kept = new LinkedHashMap<>();
+                kept.put("contentType", rendering.contentType);
+                kept.put("bytes", rendering.body.length);
+                kept.put("gzippedBytes", rendering.gzipped == null ? null : rendering.gzipped.length);
+                kept.put("eTag", rendering.version.getETag());
+                kept.put("expiresAt", rendering.expiresAt.toString());
+                description.put(variant, kept);
+            });
+        }
+        return description;
+    }
+
+    private long weightBytes() {
+        return cache.policy().eviction()
+                .map(eviction -> eviction.weightedSize().orElse(0L))
+                .orElse(0L);
+    }
+
+    private static int weigh(Long id, Map<String, Rendering> renderings) {
+        long weight = 0;
+        for (Map.Entry<String, Rendering> entry : renderings.entrySet()) {
+            weight += ENTRY_OVERHEAD + 2L * entry.getKey().length() + entry.getValue().size();
+        }
+        return (int) Math.min(Integer.MAX_VALUE, weight);
+    }
+
+    private static Instant earliest(Instant a, Instant b) {
+        return a.isBefore(b) ? a : b;
+    }
+
+    private static byte[] gzip(byte[] body) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(body.length / 2 + 32);
+        try (GZIPOutputStream zip = new GZIPOutputStream(out)) {
+            zip.write(body);
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+        byte[] gzipped = out.toByteArray();
+        return gzipped.length < body.length ? gzipped : null;
+    }
+
+    /**
+     * Marks a response to be kept once it is rendered.
+     */
+    private static final class Retained {
+
+        private final CarVersion version;
+        private final Instant expiresAt;
+
+        Retained(CarVersion version, Instant expiresAt) {
+            this.version = version;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    /**
+     * Holds the rendered response to a request for a car.
+     */
+    static final class Rendering {
+
+        private final String contentType;
+        private final byte[] body;
+        private final byte[] gzipped;
+        private final CarVersion version;
+        private final Instant expiresAt;
+
+        Rendering(String contentType, byte[] body, byte[] gzipped, CarVersion version, Instant expiresAt) {
+            this.contentType = contentType;
+            this.body = body;
+            this.gzipped = gzipped;
+            this.version = version;
+            this.expiresAt = expiresAt;
+        }
+
+        String getContentType() {
+            return contentType;
+        }
+
+        byte[] getBody() {
+            return body;
+        }
+
+        /**
+         * Gets the gzipped body.
+         * @return the gzipped body, or null if it was not gzipped
+         */
+        byte[] getGzipped() {
+            return gzipped;
+        }
+
+        CarVersion getVersion() {
+            return version;
+        }
+
+        boolean isFreshAt(Instant now) {
+            return expiresAt.isAfter(now);
+        }
+
+        private long size() {
+            return body.length + (gzipped == null ? 0 : gzipped.length);
+        }
+    }
+
+    /**
+     * Keeps a car for as long as any of its renderings is fresh.
+     */
+    private static class RenderingExpiry implements Expiry<Long, Map<String, Rendering>> {
+
+        @Override
+        public long expireAfterCreate(Long id, Map<String, Rendering> renderings, long currentTime) {
+            Instant latest = renderings.values().stream()
+                    .map(rendering -> rendering.expiresAt)
+                    .max(Instant::compareTo)
+                    .orElse(Instant.EPOCH);
+            return Math.max(0, Duration.between(Instant.now(), latest).toNanos());
+        }
+
+        @Override
+        public long expireAfterUpdate(Long id, Map<String, Rendering> renderings, long currentTime,
+                long currentDuration) {
+            return expireAfterCreate(id, renderings, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(Long id, Map<String, Rendering> renderings, long currentTime,
+                long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package com.udacity.vehicles.api;
+
+import java.util.Map;
+
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+/**
+ * Exposes the {@link RenderedCarCache} as the {@code carcache} actuator
+ * endpoint, to inspect the cache as a whole or the renderings of one
+ * car, and to flush either. It is left out of the web exposure, so it is
+ * only reachable over JMX.
+ */
+@Component
+@Profile("!reactive")
+@Endpoint(id = "carcache")
+public class RenderedCarCacheEndpoint {
+
+    private final RenderedCarCache cache;
+
+    RenderedCarCacheEndpoint(RenderedCarCache cache) {
+        this.cache = cache;
+    }
+
+    @ReadOperation
+    public Map<String, Object> cache() {
+        return cache.describe();
+    }
+
+    @ReadOperation
+    public Map<String, Object> car(@Selector Long id) {
+        return cache.describe(id);
+    }
+
+    @DeleteOperation
+    public void flush() {
+        cache.invalidateAll();
+    }
+
+    @DeleteOperation
+    public void flushCar(@Selector Long id) {
+        cache.invalidate(id);
+    }
+}
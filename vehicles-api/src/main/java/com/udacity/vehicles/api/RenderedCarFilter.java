@@ -0,0 +1,147 @@
+package com.udacity.vehicles.api;
+
+import java.io.IOException;
+import java.util.Enumeration;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import com.udacity.vehicles.service.CarVersion;
+
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+/**
+ * Answers requests for a car by ID from the {@link RenderedCarCache},
+ * ahead of the controller, and keeps the responses the controller
+ * rendered for the car. Kept responses honour If-None-Match and
+ * If-Modified-Since like the controller does, and are sent gzipped to
+ * clients that accept it, with a non-zero quality, when a gzipped copy
+ * was kept.
+ */
+@Component
+@Profile("!reactive")
+class RenderedCarFilter extends OncePerRequestFilter {
+
+    private static final Pattern CAR_PATH = Pattern.compile("/cars/(\\d{1,18})");
+    private static final String GZIP = "gzip";
+
+    private final RenderedCarCache cache;
+
+    RenderedCarFilter(RenderedCarCache cache) {
+        this.cache = cache;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !cache.isEnabled() || !HttpMethod.GET.matches(request.getMethod()) || carId(request) == null;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        Long id = carId(request);
+        String variant = RenderedCarCache.variant(request);
+        if (variant == null) {
+            chain.doFilter(request, response);
+            return;
+        }
+
+        RenderedCarCache.Rendering rendering = cache.get(id, variant);
+        if (rendering != null) {
+            send(rendering, request, response);
+            return;
+        }
+
+        long generation = cache.generation();
+        ContentCachingResponseWrapper wrapper = new ContentCachingResponseWrapper(response);
+        try {
+            chain.doFilter(request, wrapper);
+            if (wrapper.getStatus() == HttpStatus.OK.value()) {
+                cache.put(request, id, variant, wrapper.getContentType(), wrapper.getContentAsByteArray(),
+                        generation);
+            }
+        } finally {
+            wrapper.copyBodyToResponse();
+        }
+    }
+
+    private static void send(RenderedCarCache.Rendering rendering, HttpServletRequest request,
+            HttpServletResponse response) throws IOException {
+        if (rendering.getGzipped() != null) {
+            response.addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        }
+        CarVersion version = rendering.getVersion();
+        if (new ServletWebRequest(request, response).checkNotModified(version.getETag(), version.getLastModified())) {
+            return;
+        }
+
+        byte[] body = rendering.getBody();
+        if (rendering.getGzipped() != null && acceptsGzip(request)) {
+            response.setHeader(HttpHeaders.CONTENT_ENCODING, GZIP);
+            body = rendering.getGzipped();
+        }
+        response.setContentType(rendering.getContentType());
+        response.setContentLength(body.length);
+        response.getOutputStream().write(body);
+    }
+
+    /**
+     * Tells whether a request accepts gzip, named or through "*", with a
+     * quality above zero. A coding named explicitly takes precedence over
+     * "*", so "gzip;q=0, *" refuses gzip.
+     */
+    static boolean acceptsGzip(HttpServletRequest request) {
+        Double gzip = null;
+        Double any = null;
+        for (Enumeration<String> headers = request.getHeaders(HttpHeaders.ACCEPT_ENCODING);
+                headers != null && headers.hasMoreElements(); ) {
+            for (String coding : headers.nextElement().split(",")) {
+                String[] parts = coding.split(";");
+                String name = parts[0].trim();
+                if (name.equalsIgnoreCase(GZIP) || name.equalsIgnoreCase("x-gzip")) {
+                    gzip = Math.max(gzip == null ? 0 : gzip, quality(parts));
+                } else if (name.equals("*")) {
+                    any = Math.max(any == null ? 0 : any, quality(parts));
+                }
+            }
+        }
+        if (gzip != null) {
+            return gzip > 0;
+        }
+        return any != null && any > 0;
+    }
+
+    /**
+     * Reads the quality of a content coding, 1 when none is given and 0
+     * when it cannot be read.
+     */
+    private static double quality(String[] parts) {
+        for (int i = 1; i < parts.length; i++) {
+            String parameter = parts[i].trim();
+            if (parameter.length() > 2 && parameter.regionMatches(true, 0, "q=", 0, 2)) {
+                try {
+                    return Double.parseDouble(parameter.substring(2).trim());
+                } catch (NumberFormatException ex) {
+                    return 0;
+                }
+            }
+        }
+        return 1;
+    }
+
+    private static Long carId(HttpServletRequest request) {
+        Matcher matcher = CAR_PATH.matcher(request.getRequestURI().substring(request.getContextPath().length()));
+        return matcher.matches() ? Long.valueOf(matcher.group(1)) : null;
+    }
+}
@@ -0,0 +1,52 @@
+package com.udacity.vehicles.client;
+
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+
+import com.github.benmanes.caffeine.cache.Cache;
+
+/**
+ * Holds a value read from a client cache, along with when it was fetched
+ * from the downstream service.
+ * @param <V> the type of the value
+ */
+public final class Cached<V> {
+
+    private final V value;
+    private final Instant fetchedAt;
+
+    public Cached(V value, Instant fetchedAt) {
+        this.value = value;
+        this.fetchedAt = fetchedAt;
+    }
+
+    /**
+     * Reads a value from a cache without loading it when it is missing.
+     * The fetch time is derived from the age of the entry, if the cache
+     * expires entries after they are written, or else taken as now.
+     * @param cache the cache to read
+     * @param key the key of the value
+     * @param <K> the type of the keys
+     * @param <V> the type of the values
+     * @return the cached value, or null if the cache has none
+     */
+    public static <K, V> Cached<V> peek(Cache<K, V> cache, K key) {
+        V value = cache.asMap().get(key);
+        if (value == null) {
+            return null;
+        }
+        Instant now = Instant.now();
+        long ageMillis = cache.policy().expireAfterWrite()
+                .map(expiration -> expiration.ageOf(key, TimeUnit.MILLISECONDS).orElse(0L))
+                .orElse(0L);
+        return new Cached<>(value, now.minusMillis(ageMillis));
+    }
+
+    public V getValue() {
+        return value;
+    }
+
+    public Instant getFetchedAt() {
+        return fetchedAt;
+    }
+}
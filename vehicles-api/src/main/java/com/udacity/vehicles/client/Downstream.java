@@ -0,0 +1,100 @@
+package com.udacity.vehicles.client;
+
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.bulkhead.BulkheadConfig;
+import io.github.resilience4j.bulkhead.BulkheadRegistry;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerConfig;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.github.resilience4j.reactor.bulkhead.operator.BulkheadOperator;
+import io.github.resilience4j.reactor.circuitbreaker.operator.CircuitBreakerOperator;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import reactor.core.publisher.Mono;
+
+/**
+ * Guards the calls made to a downstream service.
+ *
+ * Each call waits at most the read timeout for its response. Calls beyond
+ * the concurrency limit are rejected right away, and once too many calls
+ * fail the circuit opens and calls are rejected without reaching the
+ * network until the service has had time to recover. Rejections are
+ * thrown as exceptions, which the clients turn into their usual fallback.
+ */
+public class Downstream {
+
+    private final String name;
+    private final DownstreamProperties properties;
+    private final CircuitBreaker circuitBreaker;
+    private final Bulkhead bulkhead;
+    private final Duration readTimeout;
+
+    public Downstream(String name, DownstreamProperties properties,
+            CircuitBreakerRegistry circuitBreakers, BulkheadRegistry bulkheads) {
+        this.name = name;
+        this.properties = properties;
+        this.circuitBreaker = circuitBreakers.circuitBreaker(name, CircuitBreakerConfig.custom()
+                .failureRateThreshold(properties.getFailureRateThreshold())
+                .slidingWindowSize(properties.getSlidingWindowSize())
+                .minimumNumberOfCalls(properties.getMinimumNumberOfCalls())
+                .waitDurationInOpenState(properties.getWaitInOpenState())
+                .build());
+        this.bulkhead = bulkheads.bulkhead(name, BulkheadConfig.custom()
+                .maxConcurrentCalls(properties.getMaxConcurrentCalls())
+                .maxWaitDuration(Duration.ZERO)
+                .build());
+        this.readTimeout = properties.getReadTimeout();
+    }
+
+    /**
+     * Subscribes to a request and waits for its result.
+     * @param request the request to the downstream service
+     * @param <T> the type of the result
+     * @return the result of the request, or null if it completed empty
+     * @throws RuntimeException if the request fails, times out, or is
+     *   rejected by the bulkhead or an open circuit
+     */
+    public <T> T block(Mono<T> request) {
+        return guard(request).block();
+    }
+
+    /**
+     * Applies the timeout, bulkhead and circuit breaker to a request,
+     * each time it is subscribed to.
+     * @param request the request to the downstream service
+     * @param <T> the type of the result
+     * @return the guarded request, which errors if the request fails,
+     *   times out, or is rejected by the bulkhead or an open circuit
+     */
+    public <T> Mono<T> guard(Mono<T> request) {
+        return request
+                .timeout(readTimeout)
+                .compose(CircuitBreakerOperator.of(circuitBreaker))
+                .compose(BulkheadOperator.of(bulkhead));
+    }
+
+    /**
+     * Creates a batcher grouping individual lookups to this service into
+     * bulk lookups, with the batch settings of this service.
+     * @param bulk performs a bulk lookup
+     * @param registry where to publish the batch metrics
+     * @param <K> the type of the keys looked up
+     * @param <V> the type of the results
+     * @return batcher of lookups to this service
+     */
+    public <K, V> MicroBatcher<K, V> batcher(Function<List<K>, Mono<Map<K, V>>> bulk, MeterRegistry registry) {
+        return new MicroBatcher<>(name, properties.getBatchWindow(), properties.getBatchMaxItems(),
+                properties.getBatchQueueCapacity(), bulk, registry);
+    }
+
+    public CircuitBreaker getCircuitBreaker() {
+        return circuitBreaker;
+    }
+
+    public Bulkhead getBulkhead() {
+        return bulkhead;
+    }
+}
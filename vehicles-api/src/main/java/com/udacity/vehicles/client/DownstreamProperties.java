@@ -0,0 +1,166 @@
+package com.udacity.vehicles.client;
+
+import java.time.Duration;
+
+/**
+ * Declares the timeouts, concurrency limit, circuit breaker, load
+ * balancing and batching settings used to call a downstream service.
+ */
+public class DownstreamProperties {
+
+    /**
+     * Time allowed to open a connection.
+     */
+    private Duration connectTimeout = Duration.ofSeconds(1);
+
+    /**
+     * Time allowed for a whole response to arrive.
+     */
+    private Duration readTimeout = Duration.ofSeconds(3);
+
+    /**
+     * Calls allowed in flight at once; further calls fail immediately.
+     */
+    private int maxConcurrentCalls = 25;
+
+    /**
+     * Percentage of failed calls, over the sliding window, that opens the circuit.
+     */
+    private float failureRateThreshold = 50;
+
+    /**
+     * Number of most recent calls the failure rate is computed over.
+     */
+    private int slidingWindowSize = 20;
+
+    /**
+     * Calls needed in the window before the failure rate is considered.
+     */
+    private int minimumNumberOfCalls = 10;
+
+    /**
+     * Time an open circuit fails fast before letting trial calls through.
+     */
+    private Duration waitInOpenState = Duration.ofSeconds(10);
+
+    /**
+     * Consecutive failed calls after which an instance stops receiving calls.
+     */
+    private int ejectionThreshold = 3;
+
+    /**
+     * Time an ejected instance is left out before receiving calls again.
+     */
+    private Duration ejectionCooldown = Duration.ofSeconds(30);
+
+    /**
+     * Time individual lookups are collected before being sent as one bulk lookup.
+     */
+    private Duration batchWindow = Duration.ofMillis(2);
+
+    /**
+     * Lookups after which a batch is sent without waiting for the window to end.
+     */
+    private int batchMaxItems = 100;
+
+    /**
+     * Lookups that may wait to be batched; further lookups fail immediately.
+     */
+    private int batchQueueCapacity = 1000;
+
+    public Duration getConnectTimeout() {
+        return connectTimeout;
+    }
+
+    public void setConnectTimeout(Duration connectTimeout) {
+        this.connectTimeout = connectTimeout;
+    }
+
+    public Duration getReadTimeout() {
+        return readTimeout;
+    }
+
+    public void setReadTimeout(Duration readTimeout) {
+        this.readTimeout = readTimeout;
+    }
+
+    public int getMaxConcurrentCalls() {
+        return maxConcurrentCalls;
+    }
+
+    public void setMaxConcurrentCalls(int maxConcurrentCalls) {
+        this.maxConcurrentCalls = maxConcurrentCalls;
+    }
+
+    public float getFailureRateThreshold() {
+        return failureRateThreshold;
+    }
+
+    public void setFailureRateThreshold(float failureRateThreshold) {
+        this.failureRateThreshold = failureRateThreshold;
+    }
+
+    public int getSlidingWindowSize() {
+        return slidingWindowSize;
+    }
+
+    public void setSlidingWindowSize(int slidingWindowSize) {
+        this.slidingWindowSize = slidingWindowSize;
+    }
+
+    public int getMinimumNumberOfCalls() {
+        return minimumNumberOfCalls;
+    }
+
+    public void setMinimumNumberOfCalls(int minimumNumberOfCalls) {
+        this.minimumNumberOfCalls = minimumNumberOfCalls;
+    }
+
+    public Duration getWaitInOpenState() {
+        return waitInOpenState;
+    }
+
+    public void setWaitInOpenState(Duration waitInOpenState) {
+        this.waitInOpenState = waitInOpenState;
+    }
+
+    public int getEjectionThreshold() {
+        return ejectionThreshold;
+    }
+
+    public void setEjectionThreshold(int ejectionThreshold) {
+        this.ejectionThreshold = ejectionThreshold;
+    }
+
+    public Duration getEjectionCooldown() {
+        return ejectionCooldown;
+    }
+
+    public void setEjectionCooldown(Duration ejectionCooldown) {
+        this.ejectionCooldown = ejectionCooldown;
+    }
+
+    public Duration getBatchWindow() {
+        return batchWindow;
+    }
+
+    public void setBatchWindow(Duration batchWindow) {
+        this.batchWindow = batchWindow;
+    }
+
+    public int getBatchMaxItems() {
+        return batchMaxItems;
+    }
+
+    public void setBatchMaxItems(int batchMaxItems) {
+        this.batchMaxItems = batchMaxItems;
+    }
+
+    public int getBatchQueueCapacity() {
+        return batchQueueCapacity;
+    }
+
+    public void setBatchQueueCapacity(int batchQueueCapacity) {
+        this.batchQueueCapacity = batchQueueCapacity;
+    }
+}
@@ -0,0 +1,262 @@
+package com.udacity.vehicles.client;
+
+import java.net.URI;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+import com.netflix.appinfo.InstanceInfo;
+import com.netflix.discovery.EurekaClient;
+import com.netflix.discovery.shared.Application;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.HttpStatus;
+import org.springframework.util.StringUtils;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.ExchangeFilterFunction;
+import org.springframework.web.reactive.function.client.ExchangeFunction;
+import org.springframework.web.util.UriComponentsBuilder;
+
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+
+/**
+ * Spreads the calls of a web client across the instances of a service.
+ *
+ * The instances are read on every call, so instances registered or
+ * removed in discovery are picked up as soon as the registry refreshes.
+ * Each call picks two instances at random and goes to the one with fewer
+ * calls in flight. A call is in flight until its response body is read,
+ * or until the read timeout if the body is never read; a response without
+ * a body completes the call when it arrives. An instance failing several
+ * calls in a row, with a connection error or a 5xx response, is left out
+ * for a cooldown and then receives calls again. When no instance is known
+ * the fixed endpoint is used.
+ *
+ * Instances may be served under a context path, such as
+ * {@code http://host:8762/pricing/}, which is put in front of the path of
+ * each request sent to them.
+ */
+public class LoadBalancer implements ExchangeFilterFunction {
+
+    private static final Logger log = LoggerFactory.getLogger(LoadBalancer.class);
+
+    private final String service;
+    private final Supplier<List<URI>> instances;
+    private final URI fallback;
+    private final int ejectionThreshold;
+    private final Duration ejectionCooldown;
+    private final Duration unreadBodyTimeout;
+    private final Clock clock;
+    private final Map<URI, Node> nodes = new ConcurrentHashMap<>();
+
+    public LoadBalancer(String service, Supplier<List<URI>> instances, String fallback,
+            DownstreamProperties properties, Clock clock) {
+        this.service = service;
+        this.instances = instances;
+        this.fallback = URI.create(fallback);
+        this.ejectionThreshold = Math.max(1, properties.getEjectionThreshold());
+        this.ejectionCooldown = properties.getEjectionCooldown();
+        this.unreadBodyTimeout = properties.getReadTimeout();
+        this.clock = clock;
+    }
+
+    /**
+     * Creates a load balancer over the instances registered in Eureka that
+     * are up, or over the fixed endpoint when discovery is disabled.
+     * @param service name of the service in the registry
+     * @param eurekaClient the registry client, if discovery is enabled
+     * @param fallback endpoint to call when no instance is registered
+     * @param properties ejection settings of the service
+     * @return load balancer to use as a web client filter
+     */
+    public static LoadBalancer eureka(String service, ObjectProvider<EurekaClient> eurekaClient,
+            String fallback, DownstreamProperties properties) {
+        return new LoadBalancer(service, () -> {
+            EurekaClient client = eurekaClient.getIfAvailable();
+            Application application = client == null ? null : client.getApplication(service);
+            if (application == null) {
+                return Collections.emptyList();
+            }
+            return application.getInstances().stream()
+                    .filter(instance -> instance.getStatus() == InstanceInfo.InstanceStatus.UP)
+                    .map(instance -> URI.create(instance.getHomePageUrl()))
+                    .collect(Collectors.toList());
+        }, fallback, properties, Clock.systemUTC());
+    }
+
+    /**
+     * Gets the base URL web clients use for a service, which this filter
+     * replaces with the address of the instance chosen for each call.
+     * @param service name of the service in the registry
+     * @return base URL naming the service
+     */
+    public static String baseUrl(String service) {
+        return "http://" + service.toLowerCase() + "/";
+    }
+
+    @Override
+    public Mono<ClientResponse> filter(ClientRequest request, ExchangeFunction next) {
+        return Mono.defer(() -> {
+            Node node = choose();
+            AtomicBoolean done = new AtomicBoolean();
+            node.outstanding.incrementAndGet();
+
+            ClientRequest routed = ClientRequest.from(request)
+                    .url(node.resolve(request.url()))
+                    .build();
+            return next.exchange(routed)
+                    .map(response -> release(response, node, done))
+                    .doOnSuccess(response -> {
+                        if (response == null) {
+                            node.complete(done, true);
+                        }
+                    })
+                    .doOnError(e -> node.complete(done, false))
+                    .doOnCancel(() -> node.complete(done, false));
+        });
+    }
+
+    /**
+     * Keeps a call in flight until its response body has been read, which
+     * is when the instance is done with it, rather than when the headers
+     * arrive. A body that fails or is cancelled counts as a failed call.
+     * A response without a body completes the call right away, and a body
+     * nobody reads completes it after the read timeout, so a dropped
+     * response cannot hold the instance's count forever.
+     */
+    private ClientResponse release(ClientResponse response, Node node, AtomicBoolean done) {
+        boolean success = !response.statusCode().is5xxServerError();
+        if (isBodyless(response)) {
+            node.complete(done, success);
+            return response;
+        }
+        Disposable reclaim = Mono.delay(unreadBodyTimeout)
+                .subscribe(tick -> node.complete(done, success));
+        Flux<DataBuffer> body = response.bodyToFlux(DataBuffer.class)
+                .doFinally(signal -> {
+                    reclaim.dispose();
+                    node.complete(done, success && signal == SignalType.ON_COMPLETE);
+                });
+        return ClientResponse.from(response).body(body).build();
+    }
+
+    private static boolean isBodyless(ClientResponse response) {
+        HttpStatus status = response.statusCode();
+        return status == HttpStatus.NO_CONTENT || status == HttpStatus.NOT_MODIFIED
+                || response.headers().contentLength().orElse(-1) == 0;
+    }
+
+    private Node choose() {
+        List<URI> available = instances.get();
+        if (available.isEmpty()) {
+            return nodes.computeIfAbsent(fallback, Node::new);
+        }
+        nodes.keySet().retainAll(available);
+
+        long now = clock.millis();
+        List<Node> candidates = new ArrayList<>(available.size());
+        for (URI uri : available) {
+            Node node = nodes.computeIfAbsent(uri, Node::new);
+            if (node.ejectedUntil <= now) {
+                candidates.add(node);
+            }
+        }
+        if (candidates.isEmpty()) {
+            // Every instance failed recently; trying one beats failing them all.
+            candidates = available.stream()
+                    .map(uri -> nodes.computeIfAbsent(uri, Node::new))
+                    .collect(Collectors.toList());
+        }
+
+        if (candidates.size() == 1) {
+            return candidates.get(0);
+        }
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int first = random.nextInt(candidates.size());
+        int second = random.nextInt(candidates.size() - 1);
+        if (second >= first) {
+            second++;
+        }
+        Node a = candidates.get(first);
+        Node b = candidates.get(second);
+        return a.outstanding.get() <= b.outstanding.get() ? a : b;
+    }
+
+    /**
+     * Gets the number of calls in flight to an instance.
+     * @param instance base URL of the instance
+     * @return calls sent to the instance and not completed yet
+     */
+    int outstanding(URI instance) {
+        Node node = nodes.get(instance);
+        return node == null ? 0 : node.outstanding.get();
+    }
+
+    /**
+     * Tells whether an instance is currently left out.
+     * @param instance base URL of the instance
+     * @return true if the instance failed too often and is cooling down
+     */
+    boolean isEjected(URI instance) {
+        Node node = nodes.get(instance);
+        return node != null && node.ejectedUntil > clock.millis();
+    }
+
+    private class Node {
+
+        private final URI uri;
+        private final AtomicInteger outstanding = new AtomicInteger();
+        private final AtomicInteger failures = new AtomicInteger();
+        private volatile long ejectedUntil;
+
+        Node(URI uri) {
+            this.uri = uri;
+        }
+
+        URI resolve(URI url) {
+            String contextPath = StringUtils.trimTrailingCharacter(Objects.toString(uri.getRawPath(), ""), '/');
+            return UriComponentsBuilder.fromUri(url)
+                    .scheme(uri.getScheme())
+                    .host(uri.getHost())
+                    .port(uri.getPort())
+                    .replacePath(contextPath + Objects.toString(url.getRawPath(), ""))
+                    .build(true)
+                    .toUri();
+        }
+
+        /**
+         * Records the outcome of a call, once, however many signals the
+         * exchange ends with.
+         */
+        void complete(AtomicBoolean done, boolean success) {
+            if (!done.compareAndSet(false, true)) {
+                return;
+            }
+            outstanding.decrementAndGet();
+            if (success) {
+                failures.set(0);
+            } else if (failures.incrementAndGet() >= ejectionThreshold) {
+                failures.set(0);
+                ejectedUntil = clock.millis() + ejectionCooldown.toMillis();
+                log.warn("Ejecting {} instance {} for {}", service, uri, ejectionCooldown);
+            }
+        }
+    }
+}
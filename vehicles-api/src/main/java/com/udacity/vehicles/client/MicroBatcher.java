@@ -0,0 +1,181 @@
+package com.udacity.vehicles.client;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Groups individual lookups arriving close together into bulk lookups.
+ *
+ * Lookups are queued, and a background thread sends them as one bulk
+ * lookup once the queue has been collected for the batch window, or
+ * once it holds the maximum number of items, whichever comes first.
+ * Each caller then receives the result for its own key. The queue is
+ * bounded: when it is full, lookups fail right away instead of queueing
+ * without limit, so callers fall back while the downstream service
+ * catches up.
+ * @param <K> the type of the keys looked up
+ * @param <V> the type of the results
+ */
+public class MicroBatcher<K, V> implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(MicroBatcher.class);
+
+    private final String name;
+    private final BlockingQueue<Request<K, V>> queue;
+    private final long windowNanos;
+    private final int maxItems;
+    private final Function<List<K>, Mono<Map<K, V>>> bulk;
+    private final Counter rejected;
+    private final DistributionSummary batchSize;
+    private final Thread flusher;
+    private volatile boolean running = true;
+
+    public MicroBatcher(String name, Duration window, int maxItems, int queueCapacity,
+            Function<List<K>, Mono<Map<K, V>>> bulk, MeterRegistry registry) {
+        this.name = name;
+        this.queue = new ArrayBlockingQueue<>(Math.max(1, queueCapacity));
+        this.windowNanos = window.toNanos();
+        this.maxItems = Math.max(1, maxItems);
+        this.bulk = bulk;
+        this.rejected = Counter.builder("batcher.rejected")
+                .tag("downstream", name)
+                .description("Lookups rejected because the batch queue was full")
+                .register(registry);
+        this.batchSize = DistributionSummary.builder("batcher.batch.size")
+                .tag("downstream", name)
+                .description("Distinct keys sent per bulk lookup")
+                .register(registry);
+        this.flusher = new Thread(this::run, name + "-batcher");
+        this.flusher.setDaemon(true);
+        this.flusher.start();
+    }
+
+    /**
+     * Queues the lookup of one key, to be sent with the next batch.
+     * @param key the key to look up
+     * @return the value of the key, empty if the bulk lookup has none, or
+     *   an error if the queue is full or the bulk lookup failed
+     */
+    public Mono<V> submit(K key) {
+        return Mono.defer(() -> {
+            Request<K, V> request = new Request<>(key);
+            if (!running || !queue.offer(request)) {
+                rejected.increment();
+                return Mono.error(new RejectedExecutionException("Batch queue of " + name + " is full"));
+            }
+            return Mono.fromFuture(request.result);
+        });
+    }
+
+    /**
+     * Queues the lookup of several keys, which may be sent in one or
+     * more batches along with the lookups of other callers. Keys rejected
+     * because the queue is full are left out of the result, so that only
+     * they fall back.
+     * @param keys the keys to look up
+     * @return the values found, keyed by key, or an error if a bulk lookup failed
+     */
+    public Mono<Map<K, V>> submitAll(Collection<K> keys) {
+        return Flux.fromIterable(keys)
+                .flatMap(key -> submit(key)
+                        .onErrorResume(RejectedExecutionException.class, e -> Mono.empty())
+                        .map(value -> Map.entry(key, value)))
+                .collectMap(Map.Entry::getKey, Map.Entry::getValue);
+    }
+
+    /**
+     * Stops collecting lookups, failing those still queued.
+     */
+    @Override
+    public void close() {
+        running = false;
+        flusher.interrupt();
+        List<Request<K, V>> pending = new ArrayList<>();
+        queue.drainTo(pending);
+        pending.forEach(request -> request.result.completeExceptionally(
+                new RejectedExecutionException("Batcher of " + name + " is closed")));
+    }
+
+    private void run() {
+        List<Request<K, V>> batch = new ArrayList<>(maxItems);
+        while (running) {
+            try {
+                Request<K, V> first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+
+                long deadline = System.nanoTime() + windowNanos;
+                while (batch.size() < maxItems) {
+                    if (queue.drainTo(batch, maxItems - batch.size()) > 0) {
+                        continue;
+                    }
+                    long remaining = deadline - System.nanoTime();
+                    Request<K, V> next = remaining > 0 ? queue.poll(remaining, TimeUnit.NANOSECONDS) : null;
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+
+                dispatch(new ArrayList<>(batch));
+                batch.clear();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                running = false;
+            }
+        }
+    }
+
+    private void dispatch(List<Request<K, V>> batch) {
+        Map<K, List<Request<K, V>>> byKey = new LinkedHashMap<>();
+        batch.forEach(request -> byKey.computeIfAbsent(request.key, key -> new ArrayList<>()).add(request));
+        batchSize.record(byKey.size());
+
+        Mono<Map<K, V>> lookup;
+        try {
+            lookup = bulk.apply(new ArrayList<>(byKey.keySet()));
+        } catch (RuntimeException e) {
+            lookup = Mono.error(e);
+        }
+        lookup.defaultIfEmpty(Collections.emptyMap())
+                .subscribe(values -> byKey.forEach((key, requests) ->
+                                requests.forEach(request -> request.result.complete(values.get(key)))),
+                        e -> {
+                            log.debug("Bulk lookup of {} keys from {} failed", byKey.size(), name, e);
+                            batch.forEach(request -> request.result.completeExceptionally(e));
+                        });
+    }
+
+    private static class Request<K, V> {
+
+        private final K key;
+        private final CompletableFuture<V> result = new CompletableFuture<>();
+
+        Request(K key) {
+            this.key = key;
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package com.udacity.vehicles.client;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Shares one downstream lookup between concurrent requests for the same key.
+ *
+ * The first request for a key performs the lookup; requests for that key
+ * arriving while it is in flight wait for it and receive its result, or
+ * its error, instead of calling the downstream service again. Once the
+ * lookup completes the key is forgotten, so results are never reused
+ * past that point; caching them is left to the caller. The number of
+ * requests served by another request's lookup is counted in the
+ * {@code requests.coalesced} metric.
+ * @param <K> the type of the keys looked up
+ * @param <V> the type of the results
+ */
+public class SingleFlight<K, V> {
+
+    private final ConcurrentMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+    private final Counter coalesced;
+
+    public SingleFlight(String lookup, MeterRegistry registry) {
+        this.coalesced = Counter.builder("requests.coalesced")
+                .tag("lookup", lookup)
+                .description("Lookups served by a concurrent identical lookup")
+                .register(registry);
+    }
+
+    /**
+     * Looks up one key, joining a lookup of the same key already in flight.
+     * @param key the key to look up
+     * @param lookup performs the lookup, when none is in flight
+     * @return the result of the lookup
+     * @throws RuntimeException the error of the lookup, whichever request performed it
+     */
+    public V execute(K key, Supplier<V> lookup) {
+        CompletableFuture<V> call = new CompletableFuture<>();
+        CompletableFuture<V> existing = inFlight.putIfAbsent(key, call);
+        if (existing != null) {
+            coalesced.increment();
+            return join(existing);
+        }
+
+        try {
+            V value = lookup.get();
+            call.complete(value);
+            return value;
+        } catch (RuntimeException e) {
+            call.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, call);
+        }
+    }
+
+    /**
+     * Looks up several keys without blocking, performing one bulk lookup
+     * for the keys not already in flight and joining the lookups of the
+     * others.
+     * @param keys the keys to look up
+     * @param lookup performs the bulk lookup of the keys not in flight;
+     *   keys missing from its result have no value
+     * @return the values found, keyed by key, once every lookup completed;
+     *   errors if any of the lookups failed
+     */
+    public Mono<Map<K, V>> executeAllAsync(Collection<K> keys, Function<List<K>, Mono<Map<K, V>>> lookup) {
+        return Mono.defer(() -> {
+            Map<K, CompletableFuture<V>> calls = new HashMap<>();
+            Map<K, CompletableFuture<V>> owned = new LinkedHashMap<>();
+            for (K key : keys) {
+                CompletableFuture<V> call = new CompletableFuture<>();
+                CompletableFuture<V> existing = inFlight.putIfAbsent(key, call);
+                if (existing == null) {
+                    owned.put(key, call);
+                    calls.put(key, call);
+                } else if (calls.putIfAbsent(key, existing) == null) {
+                    coalesced.increment();
+                }
+            }
+
+            Mono<Void> performed = owned.isEmpty()
+                    ? Mono.empty()
+                    : lookup.apply(new ArrayList<>(owned.keySet()))
+                            .defaultIfEmpty(new HashMap<>())
+                            .doOnNext(values -> owned.forEach((key, call) -> call.complete(values.get(key))))
+                            .doOnError(e -> owned.values().forEach(call -> call.completeExceptionally(e)))
+                            .doOnCancel(() -> owned.values().forEach(call -> call.cancel(false)))
+                            .doFinally(signal -> owned.forEach(inFlight::remove))
+                            .then();
+
+            return performed.thenMany(Flux.fromIterable(calls.entrySet()))
+                    .flatMap(entry -> Mono.fromFuture(entry.getValue())
+                            .map(value -> Map.entry(entry.getKey(), value)))
+                    .collectMap(Map.Entry::getKey, Map.Entry::getValue);
+        });
+    }
+
+    private static <V> V join(CompletableFuture<V> call) {
+        try {
+            return call.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+    }
+}
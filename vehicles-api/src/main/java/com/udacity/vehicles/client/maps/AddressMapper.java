@@ -0,0 +1,38 @@
+package com.udacity.vehicles.client.maps;
+
+import com.udacity.vehicles.domain.Location;
+
+/**
+ * Maps between locations and the objects exchanged with the Maps client.
+ *
+ * The mapping is written out by hand instead of being resolved by
+ * reflection, as it runs for every car located.
+ */
+public final class AddressMapper {
+
+    private AddressMapper() {
+    }
+
+    /**
+     * Copies an address onto a location, keeping its coordinates.
+     * @param address the address returned by the Maps client
+     * @param location the location to update
+     * @return the updated location
+     */
+    public static Location toLocation(Address address, Location location) {
+        location.setAddress(address.getAddress());
+        location.setCity(address.getCity());
+        location.setState(address.getState());
+        location.setZip(address.getZip());
+        return location;
+    }
+
+    /**
+     * Gets the coordinates of a location, to send to the Maps client.
+     * @param location the location to look up
+     * @return its latitude and longitude
+     */
+    public static Coordinates toCoordinates(Location location) {
+        return new Coordinates(location.getLat(), location.getLon());
+    }
+}
@@ -1,28 +1,89 @@
 package com.udacity.vehicles.client.maps;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.udacity.vehicles.client.Cached;
+import com.udacity.vehicles.client.Downstream;
+import com.udacity.vehicles.client.MicroBatcher;
+import com.udacity.vehicles.client.SingleFlight;
+import com.udacity.vehicles.domain.Geohash;
 import com.udacity.vehicles.domain.Location;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Objects;
-import org.modelmapper.ModelMapper;
+import java.util.stream.Collectors;
+import javax.annotation.PreDestroy;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
 import org.springframework.stereotype.Component;
 import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
 /**
  * Implements a class to interface with the Maps Client for location data.
+ *
+ * Addresses are cached by the geohash cell of their coordinates, with
+ * {@code maps.cache.precision} characters, so cars parked at the same spot,
+ * lot or depot share one lookup. The cache is capped by an estimate of the
+ * memory its addresses use. Concurrent requests for a cell that is not
+ * cached share a single call to the Maps service, and single lookups of
+ * different cells arriving within {@code maps.client.batch-window} are
+ * sent together in one batch request. Lookups of several addresses are
+ * already batched, so they call the batch endpoint directly.
  */
 @Component
 public class MapsClient {
 
     private static final Logger log = LoggerFactory.getLogger(MapsClient.class);
 
+    private static final String CACHE_NAME = "addresses";
+
     private final WebClient client;
-    private final ModelMapper mapper;
+    private final Downstream downstream;
+    private final int precision;
+    private final Cache<String, Address> cache;
+    private final SingleFlight<String, Address> flight;
+    private final MicroBatcher<Coordinates, Address> batcher;
 
     public MapsClient(WebClient maps,
-            ModelMapper mapper) {
+            @Value("${maps.cache.precision:8}") int precision,
+            @Value("${maps.cache.max-bytes:16777216}") long maxBytes,
+            @Value("${maps.cache.ttl:PT24H}") Duration ttl,
+            MeterRegistry registry,
+            Downstream mapsDownstream) {
         this.client = maps;
-        this.mapper = mapper;
+        this.downstream = mapsDownstream;
+        this.precision = precision;
+        this.cache = CaffeineCacheMetrics.monitor(registry, Caffeine.newBuilder()
+                .maximumWeight(maxBytes)
+                .<String, Address>weigher(MapsClient::estimateBytes)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build(), CACHE_NAME);
+        this.flight = new SingleFlight<>(CACHE_NAME, registry);
+        this.batcher = mapsDownstream.batcher(this::requestAddresses, registry);
+
+        Gauge.builder("cache.hit.ratio", cache, c -> c.stats().hitRate())
+                .tag("cache", CACHE_NAME)
+                .description("Ratio of cache reads that found an address")
+                .register(registry);
+        Gauge.builder("cache.weight", cache, c -> c.policy().eviction()
+                        .map(eviction -> (double) eviction.weightedSize().orElse(0L))
+                        .orElse(0d))
+                .tag("cache", CACHE_NAME)
+                .baseUnit("bytes")
+                .description("Estimated memory used by the cached addresses")
+                .register(registry);
     }
 
     /**
@@ -33,22 +94,176 @@ public class MapsClient {
      */
     public Location getAddress(Location location) {
         try {
-            Address address = client
-                    .get()
-                    .uri(uriBuilder -> uriBuilder
-                            .path("/maps/")
-                            .queryParam("lat", location.getLat())
-                            .queryParam("lon", location.getLon())
-                            .build()
-                    )
-                    .retrieve().bodyToMono(Address.class).block();
-
-            mapper.map(Objects.requireNonNull(address), location);
+            String cell = cell(location);
+            Address address = cache.getIfPresent(cell);
+            if (address == null) {
+                Coordinates coordinates = AddressMapper.toCoordinates(location);
+                address = Objects.requireNonNull(flight.execute(cell, () -> batcher.submit(coordinates).block()));
+                cache.put(cell, address);
+            }
 
-            return location;
+            return AddressMapper.toLocation(address, location);
         } catch (Exception e) {
             log.warn("Map service is down");
             return location;
         }
     }
+
+    /**
+     * Gets the addresses of several locations. Locations whose cell is not
+     * cached are resolved by the Maps client in a single request, sending
+     * coordinates and receiving addresses as newline-delimited JSON.
+     * @param locations Objects containing "lat" and "lon" of each location
+     * @return The same locations, in order, updated with street, city,
+     *   state and zip, or left as they were if the Maps service is down
+     */
+    public List<Location> getAddresses(List<Location> locations) {
+        return getAddressesAsync(locations).block();
+    }
+
+    /**
+     * Gets the addresses of several locations without blocking, resolving
+     * the ones not cached like {@link #getAddresses(List)} does.
+     * @param locations Objects containing "lat" and "lon" of each location
+     * @return The same locations, in order, updated with street, city,
+     *   state and zip, or left as they were if the Maps service is down
+     */
+    public Mono<List<Location>> getAddressesAsync(List<Location> locations) {
+        List<String> cells = locations.stream()
+                .map(this::cell)
+                .collect(Collectors.toList());
+
+        Map<String, Address> addresses = new HashMap<>(cache.getAllPresent(cells));
+
+        Map<String, Location> missing = new LinkedHashMap<>();
+        for (int i = 0; i < locations.size(); i++) {
+            if (!addresses.containsKey(cells.get(i))) {
+                missing.putIfAbsent(cells.get(i), locations.get(i));
+            }
+        }
+
+        Mono<Void> fetched = missing.isEmpty()
+                ? Mono.empty()
+                : flight.executeAllAsync(missing.keySet(), owned -> requestCells(owned, missing))
+                        .doOnNext(found -> {
+                            cache.putAll(found);
+                            addresses.putAll(found);
+                        })
+                        .then()
+                        .onErrorResume(e -> {
+                            log.warn("Map service is down");
+                            return Mono.empty();
+                        });
+
+        return fetched.then(Mono.fromSupplier(() -> {
+            for (int i = 0; i < locations.size(); i++) {
+                Address address = addresses.get(cells.get(i));
+                if (address != null) {
+                    AddressMapper.toLocation(address, locations.get(i));
+                }
+            }
+            return locations;
+        }));
+    }
+
+    /**
+     * Gets the cached address of a location, without requesting it from
+     * the Maps client.
+     * @param location An object containing "lat" and "lon" of location
+     * @return The address of the location and when it was fetched, or
+     *   null if it is not cached
+     */
+    public Cached<Address> peekAddress(Location location) {
+        return Cached.peek(cache, cell(location));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        batcher.close();
+    }
+
+    private Mono<Map<String, Address>> requestCells(List<String> cells, Map<String, Location> locations) {
+        Map<Coordinates, String> requested = new LinkedHashMap<>();
+        for (String cell : cells) {
+            Location location = locations.get(cell);
+            requested.put(AddressMapper.toCoordinates(location), cell);
+        }
+        return requestAddresses(new ArrayList<>(requested.keySet()))
+                .map(found -> {
+                    Map<String, Address> addresses = new HashMap<>();
+                    found.forEach((coordinates, address) -> addresses.put(requested.get(coordinates), address));
+                    return addresses;
+                });
+    }
+
+    /**
+     * Requests the addresses of several coordinates in one batch. The Maps
+     * service answers in request order, so addresses are matched to the
+     * coordinates by position; coordinates left without an answer by a
+     * short response are looked up one at a time.
+     */
+    private Mono<Map<Coordinates, Address>> requestAddresses(List<Coordinates> coordinates) {
+        return downstream.guard(fetchAddresses(coordinates).collectList()
+                .flatMap(addresses -> {
+                    Map<Coordinates, Address> found = new HashMap<>();
+                    int answered = Math.min(addresses.size(), coordinates.size());
+                    for (int i = 0; i < answered; i++) {
+                        found.put(coordinates.get(i), addresses.get(i));
+                    }
+                    if (answered == coordinates.size()) {
+                        return Mono.just(found);
+                    }
+                    log.warn("Maps batch returned {} of {} addresses, looking up the rest one at a time",
+                            answered, coordinates.size());
+                    return Flux.fromIterable(coordinates.subList(answered, coordinates.size()))
+                            .concatMap(missing -> fetchAddress(missing)
+                                    .doOnNext(address -> found.put(missing, address)))
+                            .then(Mono.just(found));
+                }));
+    }
+
+    private Mono<Address> fetchAddress(Coordinates coordinates) {
+        return client
+                .get()
+                .uri(uriBuilder -> uriBuilder
+                        .path("/maps/")
+                        .queryParam("lat", coordinates.getLat())
+                        .queryParam("lon", coordinates.getLon())
+                        .build()
+                )
+                .retrieve().bodyToMono(Address.class);
+    }
+
+    private Flux<Address> fetchAddresses(List<Coordinates> coordinates) {
+        return client
+                .post()
+                .uri(uriBuilder -> uriBuilder
+                        .path("/maps/batch")
+                        .build()
+                )
+                .contentType(MediaType.APPLICATION_STREAM_JSON)
+                .accept(MediaType.APPLICATION_STREAM_JSON)
+                .body(Flux.fromIterable(coordinates), Coordinates.class)
+                .retrieve().bodyToFlux(Address.class);
+    }
+
+    private String cell(Location location) {
+        return Geohash.encode(location.getLat(), location.getLon(), precision);
+    }
+
+    /**
+     * Roughly estimates the heap used by a cache entry: object headers and
+     * references, plus two bytes per character of each string.
+     */
+    private static int estimateBytes(String cell, Address address) {
+        return 128 + 2 * (cell.length()
+                + length(address.getAddress())
+                + length(address.getCity())
+                + length(address.getState())
+                + length(address.getZip()));
+    }
+
+    private static int length(String value) {
+        return value == null ? 0 : value.length();
+    }
 }
@@ -1,28 +1,85 @@
 package com.udacity.vehicles.client.prices;
 
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.stream.Collectors;
+
+import javax.annotation.PreDestroy;
+
+import com.github.benmanes.caffeine.cache.CacheLoader;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import com.udacity.vehicles.client.Cached;
+import com.udacity.vehicles.client.Downstream;
+import com.udacity.vehicles.client.MicroBatcher;
+import com.udacity.vehicles.client.SingleFlight;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 import org.springframework.web.reactive.function.client.WebClient;
 
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
 /**
  * Implements a class to interface with the Pricing Client for price data.
+ *
+ * Prices are kept in a bounded cache. Entries older than
+ * {@code pricing.cache.ttl} are refreshed in the background on their next
+ * read while the current value is still served, and are only dropped after
+ * {@code pricing.cache.stale-ttl}, so a known price keeps being returned
+ * while the pricing service is down. Concurrent requests for a price
+ * that is not cached share a single call to the pricing service, and
+ * single lookups of different vehicles arriving within
+ * {@code pricing.client.batch-window} are sent together in one batch
+ * request. Lookups of several prices are already batched, so they call
+ * the batch endpoint directly.
  */
 @Component
 public class PriceClient {
 
     private static final Logger log = LoggerFactory.getLogger(PriceClient.class);
 
+    static final String PRICE_UNAVAILABLE = "(consult price)";
+
     private final WebClient client;
+    private final Downstream downstream;
+    private final int batchSize;
+    private final LoadingCache<Long, String> cache;
+    private final SingleFlight<Long, String> flight;
+    private final MicroBatcher<Long, String> batcher;
 
-    public PriceClient(WebClient pricing) {
+    public PriceClient(WebClient pricing,
+            @Value("${pricing.batch-size:100}") int batchSize,
+            @Value("${pricing.cache.max-size:10000}") long cacheSize,
+            @Value("${pricing.cache.ttl:PT5M}") Duration ttl,
+            @Value("${pricing.cache.stale-ttl:PT1H}") Duration staleTtl,
+            MeterRegistry registry,
+            Downstream pricingDownstream) {
         this.client = pricing;
+        this.downstream = pricingDownstream;
+        this.batchSize = Math.max(1, batchSize);
+        this.cache = CaffeineCacheMetrics.monitor(registry, Caffeine.newBuilder()
+                .maximumSize(cacheSize)
+                .refreshAfterWrite(ttl)
+                .expireAfterWrite(staleTtl.compareTo(ttl) > 0 ? staleTtl : ttl.plus(ttl))
+                .recordStats()
+                .build(new PriceLoader()), "prices");
+        this.flight = new SingleFlight<>("prices", registry);
+        this.batcher = pricingDownstream.batcher(this::requestPrices, registry);
     }
 
-    // In a real-world application we'll want to add some resilience
-    // to this method with retries/CB/failover capabilities
-    // We may also want to cache the results so we don't need to
-    // do a request every time
     /**
      * Gets a vehicle price from the pricing client, given vehicle ID.
      * @param vehicleId ID number of the vehicle for which to get the price
@@ -32,20 +89,141 @@ public class PriceClient {
      */
     public String getPrice(Long vehicleId) {
         try {
-            Price price = client
-                    .get()
-                    .uri(uriBuilder -> uriBuilder
-                            .path("services/price/")
-                            .queryParam("vehicleId", vehicleId)
-                            .build()
-                    )
-                    .retrieve().bodyToMono(Price.class).block();
-
-            return String.format("%s %s", price.getCurrency(), price.getPrice());
-
+            String price = cache.getIfPresent(vehicleId);
+            if (price == null) {
+                price = flight.execute(vehicleId, () -> batcher.submit(vehicleId).block());
+                if (price == null || price.isEmpty()) {
+                    log.debug("No price for vehicle {}", vehicleId);
+                    return PRICE_UNAVAILABLE;
+                }
+                cache.put(vehicleId, price);
+            }
+            return price;
         } catch (Exception e) {
             log.error("Unexpected error retrieving price for vehicle {}", vehicleId, e);
         }
-        return "(consult price)";
+        return PRICE_UNAVAILABLE;
+    }
+
+    /**
+     * Gets the prices of several vehicles, requesting the ones not cached
+     * through the batch endpoint of the pricing client. IDs are split into
+     * chunks of at most {@code pricing.batch-size}, which are requested
+     * concurrently.
+     * @param vehicleIds ID numbers of the vehicles for which to get prices
+     * @return Currency and price keyed by vehicle ID; vehicles without a
+     *   price, or whose request failed, map to a note to consult the price
+     */
+    public Map<Long, String> getPrices(Collection<Long> vehicleIds) {
+        return getPricesAsync(vehicleIds).block();
+    }
+
+    /**
+     * Gets the prices of several vehicles without blocking. Prices not
+     * cached are requested like {@link #getPrices(Collection)} does, and
+     * cached once they arrive.
+     * @param vehicleIds ID numbers of the vehicles for which to get prices
+     * @return Currency and price keyed by vehicle ID; vehicles without a
+     *   price, or whose request failed, map to a note to consult the price
+     */
+    public Mono<Map<Long, String>> getPricesAsync(Collection<Long> vehicleIds) {
+        List<Long> ids = vehicleIds.stream()
+                .filter(Objects::nonNull)
+                .distinct()
+                .collect(Collectors.toList());
+
+        Map<Long, String> prices = new HashMap<>(cache.getAllPresent(ids));
+        List<Long> missing = ids.stream()
+                .filter(id -> !prices.containsKey(id))
+                .collect(Collectors.toList());
+
+        Mono<Map<Long, String>> fetched = missing.isEmpty()
+                ? Mono.just(Collections.emptyMap())
+                : flight.executeAllAsync(missing, this::requestPrices)
+                        .doOnNext(cache::putAll)
+                        .onErrorResume(e -> {
+                            log.error("Unexpected error retrieving prices for {} vehicles", missing.size(), e);
+                            return Mono.just(Collections.emptyMap());
+                        });
+
+        return fetched.map(loaded -> {
+            prices.putAll(loaded);
+            ids.forEach(id -> prices.putIfAbsent(id, PRICE_UNAVAILABLE));
+            return prices;
+        });
+    }
+
+    /**
+     * Gets the cached price of a vehicle, without requesting it from the
+     * pricing client.
+     * @param vehicleId ID number of the vehicle
+     * @return Currency and price of the vehicle and when it was fetched,
+     *   or null if it is not cached
+     */
+    public Cached<String> peekPrice(Long vehicleId) {
+        return Cached.peek(cache, vehicleId);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        batcher.close();
+    }
+
+    private Price fetchPrice(Long vehicleId) {
+        return downstream.block(client
+                .get()
+                .uri(uriBuilder -> uriBuilder
+                        .path("services/price/")
+                        .queryParam("vehicleId", vehicleId)
+                        .build()
+                )
+                .retrieve().bodyToMono(Price.class));
+    }
+
+    /**
+     * Requests prices chunk by chunk, each chunk being one guarded call,
+     * so a chunk that fails or is rejected only leaves its own vehicles
+     * without a price.
+     */
+    private Mono<Map<Long, String>> requestPrices(List<Long> vehicleIds) {
+        return Flux.fromIterable(chunk(vehicleIds))
+                .flatMap(chunk -> downstream.guard(fetchBatch(chunk))
+                        .onErrorResume(e -> {
+                            log.error("Unexpected error retrieving prices for {} vehicles", chunk.size(), e);
+                            return Mono.empty();
+                        }))
+                .flatMapIterable(PriceBatch::getPrices)
+                .collectMap(Price::getVehicleId, PriceMapper::toPrice);
+    }
+
+    private Mono<PriceBatch> fetchBatch(List<Long> vehicleIds) {
+        return client
+                .post()
+                .uri(uriBuilder -> uriBuilder
+                        .path("services/price/batch")
+                        .build()
+                )
+                .syncBody(vehicleIds)
+                .retrieve().bodyToMono(PriceBatch.class);
+    }
+
+    private List<List<Long>> chunk(List<Long> ids) {
+        List<List<Long>> chunks = new ArrayList<>();
+        for (int from = 0; from < ids.size(); from += batchSize) {
+            chunks.add(ids.subList(from, Math.min(from + batchSize, ids.size())));
+        }
+        return chunks;
+    }
+
+    /**
+     * Refreshes cached prices in the background. Failures propagate so
+     * that the previous price stays.
+     */
+    private class PriceLoader implements CacheLoader<Long, String> {
+
+        @Override
+        public String load(Long vehicleId) {
+            return PriceMapper.toPrice(Objects.requireNonNull(fetchPrice(vehicleId)));
+        }
     }
 }
@@ -0,0 +1,22 @@
+package com.udacity.vehicles.client.prices;
+
+/**
+ * Maps the prices returned by the pricing client onto the price of a car.
+ *
+ * The mapping is written out by hand, without going through
+ * {@link String#format}, as it runs for every car priced.
+ */
+public final class PriceMapper {
+
+    private PriceMapper() {
+    }
+
+    /**
+     * Formats a price as currency followed by amount, such as "USD 15000.00".
+     * @param price the price returned by the pricing client
+     * @return the price of the car
+     */
+    public static String toPrice(Price price) {
+        return price.getCurrency() + " " + price.getPrice();
+    }
+}
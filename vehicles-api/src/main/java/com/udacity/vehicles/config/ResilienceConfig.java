@@ -0,0 +1,107 @@
+package com.udacity.vehicles.config;
+
+import com.udacity.vehicles.client.Downstream;
+import com.udacity.vehicles.client.DownstreamProperties;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import io.github.resilience4j.bulkhead.BulkheadRegistry;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.github.resilience4j.micrometer.tagged.TaggedBulkheadMetrics;
+import io.github.resilience4j.micrometer.tagged.TaggedCircuitBreakerMetrics;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+/**
+ * Configures timeouts, bulkheads and circuit breakers for the maps and
+ * pricing clients, and publishes their state as metrics and health.
+ */
+@Configuration
+public class ResilienceConfig {
+
+    @Bean
+    @ConfigurationProperties("maps.client")
+    public DownstreamProperties mapsClientProperties() {
+        return new DownstreamProperties();
+    }
+
+    @Bean
+    @ConfigurationProperties("pricing.client")
+    public DownstreamProperties pricingClientProperties() {
+        return new DownstreamProperties();
+    }
+
+    @Bean
+    public CircuitBreakerRegistry circuitBreakerRegistry() {
+        return CircuitBreakerRegistry.ofDefaults();
+    }
+
+    @Bean
+    public BulkheadRegistry bulkheadRegistry() {
+        return BulkheadRegistry.ofDefaults();
+    }
+
+    @Bean
+    public Downstream mapsDownstream(@Qualifier("mapsClientProperties") DownstreamProperties properties,
+            CircuitBreakerRegistry circuitBreakers, BulkheadRegistry bulkheads) {
+        return new Downstream("maps", properties, circuitBreakers, bulkheads);
+    }
+
+    @Bean
+    public Downstream pricingDownstream(@Qualifier("pricingClientProperties") DownstreamProperties properties,
+            CircuitBreakerRegistry circuitBreakers, BulkheadRegistry bulkheads) {
+        return new Downstream("pricing", properties, circuitBreakers, bulkheads);
+    }
+
+    /**
+     * Publishes the state, call counts and available concurrent calls of
+     * every downstream as the resilience4j.* metrics.
+     */
+    @Bean
+    public MeterBinder downstreamMetrics(Downstream mapsDownstream, Downstream pricingDownstream,
+            CircuitBreakerRegistry circuitBreakers, BulkheadRegistry bulkheads) {
+        return registry -> {
+            TaggedCircuitBreakerMetrics.ofCircuitBreakerRegistry(circuitBreakers).bindTo(registry);
+            TaggedBulkheadMetrics.ofBulkheadRegistry(bulkheads).bindTo(registry);
+        };
+    }
+
+    @Bean
+    public HealthIndicator mapsCircuitBreakerHealthIndicator(Downstream mapsDownstream) {
+        return () -> health(mapsDownstream.getCircuitBreaker());
+    }
+
+    @Bean
+    public HealthIndicator pricingCircuitBreakerHealthIndicator(Downstream pricingDownstream) {
+        return () -> health(pricingDownstream.getCircuitBreaker());
+    }
+
+    /**
+     * Reports an open circuit as unknown rather than down: requests are
+     * still served, with fallback values for the failing downstream.
+     */
+    private static Health health(CircuitBreaker circuitBreaker) {
+        CircuitBreaker.Metrics metrics = circuitBreaker.getMetrics();
+        Health.Builder health;
+        switch (circuitBreaker.getState()) {
+            case CLOSED:
+            case HALF_OPEN:
+                health = Health.up();
+                break;
+            default:
+                health = Health.unknown();
+        }
+        return health
+                .withDetail("state", circuitBreaker.getState())
+                .withDetail("failureRate", metrics.getFailureRate())
+                .withDetail("bufferedCalls", metrics.getNumberOfBufferedCalls())
+                .withDetail("failedCalls", metrics.getNumberOfFailedCalls())
+                .withDetail("notPermittedCalls", metrics.getNumberOfNotPermittedCalls())
+                .build();
+    }
+}
@@ -0,0 +1,98 @@
+package com.udacity.vehicles.config;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+
+import org.apache.coyote.AbstractProtocol;
+import org.apache.coyote.ProtocolHandler;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.embedded.tomcat.TomcatServletWebServerFactory;
+import org.springframework.boot.web.server.WebServerFactoryCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.task.support.TaskExecutorAdapter;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * Handles servlet requests on virtual threads when
+ * {@code vehicles.threads.virtual} is set, so the blocking calls to the
+ * maps and pricing services no longer tie up a platform thread each.
+ * Requires Java 21 or later; on older JVMs the platform thread pools are
+ * kept and a warning is logged.
+ *
+ * Tomcat's thread limit no longer bounds how many requests are handled at
+ * once, so the connections it accepts are limited to
+ * {@code vehicles.threads.virtual-max-connections} instead, by default as
+ * many as it has platform threads. Further clients wait in the accept
+ * backlog rather than in memory.
+ */
+@Configuration
+@Profile("!reactive")
+@ConditionalOnProperty(name = "vehicles.threads.virtual", havingValue = "true")
+public class VirtualThreadConfig implements DisposableBean {
+
+    private static final Logger log = LoggerFactory.getLogger(VirtualThreadConfig.class);
+
+    private final List<ExecutorService> executors = new CopyOnWriteArrayList<>();
+    private final int maxConnections;
+
+    public VirtualThreadConfig(
+            @Value("${vehicles.threads.virtual-max-connections:${server.tomcat.max-threads:200}}")
+                    int maxConnections) {
+        this.maxConnections = maxConnections;
+    }
+
+    @Bean
+    public WebServerFactoryCustomizer<TomcatServletWebServerFactory> virtualThreadTomcatCustomizer() {
+        return factory -> {
+            if (!VirtualThreads.isAvailable()) {
+                log.warn("vehicles.threads.virtual is set but Java {} has no virtual threads; "
+                        + "keeping the platform thread pool", System.getProperty("java.version"));
+                return;
+            }
+            factory.addConnectorCustomizers(connector -> {
+                ProtocolHandler handler = connector.getProtocolHandler();
+                if (handler instanceof AbstractProtocol) {
+                    AbstractProtocol<?> protocol = (AbstractProtocol<?>) handler;
+                    protocol.setExecutor(executor("http-virtual-"));
+                    protocol.setMaxConnections(maxConnections);
+                }
+            });
+        };
+    }
+
+    @Bean
+    public WebMvcConfigurer virtualThreadAsyncConfigurer() {
+        return new WebMvcConfigurer() {
+            @Override
+            public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+                if (VirtualThreads.isAvailable()) {
+                    configurer.setTaskExecutor(new TaskExecutorAdapter(executor("mvc-async-")));
+                }
+            }
+        };
+    }
+
+    /**
+     * Shuts down the executors handed to Tomcat and Spring MVC, which
+     * neither of them closes, once the context is closed.
+     */
+    @Override
+    public void destroy() {
+        executors.forEach(ExecutorService::shutdown);
+        executors.clear();
+    }
+
+    private ExecutorService executor(String prefix) {
+        ExecutorService executor = VirtualThreads.newThreadPerTaskExecutor(prefix);
+        executors.add(executor);
+        return executor;
+    }
+}
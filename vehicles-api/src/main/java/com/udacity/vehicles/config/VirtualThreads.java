@@ -0,0 +1,81 @@
+package com.udacity.vehicles.config;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Creates virtual threads when running on Java 21 or later.
+ *
+ * The application is compiled for Java 11, as the Spring version it is
+ * built on cannot scan newer class files, so the virtual thread API is
+ * looked up reflectively at runtime.
+ */
+public final class VirtualThreads {
+
+    private static final Method OF_VIRTUAL = method(Thread.class, "ofVirtual");
+    private static final Method NAME = method(type("java.lang.Thread$Builder$OfVirtual"),
+            "name", String.class, long.class);
+    private static final Method FACTORY = method(type("java.lang.Thread$Builder"), "factory");
+    private static final Method NEW_THREAD_PER_TASK_EXECUTOR =
+            method(Executors.class, "newThreadPerTaskExecutor", ThreadFactory.class);
+
+    private VirtualThreads() {
+    }
+
+    /**
+     * Tells whether the running JVM supports virtual threads.
+     * @return true on Java 21 or later
+     */
+    public static boolean isAvailable() {
+        return OF_VIRTUAL != null && NAME != null && FACTORY != null
+                && NEW_THREAD_PER_TASK_EXECUTOR != null;
+    }
+
+    /**
+     * Creates a factory of virtual threads named with the given prefix
+     * followed by a counter.
+     * @param prefix name of the threads, before their number
+     * @return factory of virtual threads
+     * @throws IllegalStateException if virtual threads are not available
+     */
+    public static ThreadFactory factory(String prefix) {
+        try {
+            Object builder = NAME.invoke(OF_VIRTUAL.invoke(null), prefix, 1L);
+            return (ThreadFactory) FACTORY.invoke(builder);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            throw new IllegalStateException("Virtual threads are not available", e);
+        }
+    }
+
+    /**
+     * Creates an executor that runs each task on a new virtual thread.
+     * @param prefix name of the threads, before their number
+     * @return executor starting a virtual thread per task
+     * @throws IllegalStateException if virtual threads are not available
+     */
+    public static ExecutorService newThreadPerTaskExecutor(String prefix) {
+        try {
+            return (ExecutorService) NEW_THREAD_PER_TASK_EXECUTOR.invoke(null, factory(prefix));
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            throw new IllegalStateException("Virtual threads are not available", e);
+        }
+    }
+
+    private static Class<?> type(String name) {
+        try {
+            return Class.forName(name);
+        } catch (ClassNotFoundException e) {
+            return null;
+        }
+    }
+
+    private static Method method(Class<?> type, String name, Class<?>... parameterTypes) {
+        try {
+            return type == null ? null : type.getMethod(name, parameterTypes);
+        } catch (NoSuchMethodException e) {
+            return null;
+        }
+    }
+}
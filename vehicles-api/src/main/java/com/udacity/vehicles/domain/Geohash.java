@@ -0,0 +1,134 @@
+package com.udacity.vehicles.domain;
+
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Encodes latitude and longitude as geohashes: base 32 strings naming
+ * a rectangular cell, where each additional character narrows the cell
+ * and locations sharing a prefix lie in the same cell.
+ */
+public final class Geohash {
+
+    /**
+     * The longest geohash encoded, naming cells a few centimeters wide.
+     */
+    public static final int MAX_PRECISION = 12;
+
+    private static final char[] BASE32 = "0123456789bcdefghjkmnpqrstuvwxyz".toCharArray();
+
+    private Geohash() {
+    }
+
+    /**
+     * Gets the geohash of the cell containing a location.
+     * @param lat latitude of the location, in degrees
+     * @param lon longitude of the location, in degrees
+     * @param precision number of characters of the geohash, from 1
+     *   (about 5000 km wide) to 12 (a few centimeters wide)
+     * @return the geohash of the cell
+     */
+    public static String encode(double lat, double lon, int precision) {
+        double minLat = -90, maxLat = 90;
+        double minLon = -180, maxLon = 180;
+        StringBuilder hash = new StringBuilder(precision);
+
+        boolean evenBit = true;
+        int bits = 0;
+        int index = 0;
+        while (hash.length() < precision) {
+            if (evenBit) {
+                double mid = (minLon + maxLon) / 2;
+                if (lon >= mid) {
+                    index = (index << 1) | 1;
+                    minLon = mid;
+                } else {
+                    index = index << 1;
+                    maxLon = mid;
+                }
+            } else {
+                double mid = (minLat + maxLat) / 2;
+                if (lat >= mid) {
+                    index = (index << 1) | 1;
+                    minLat = mid;
+                } else {
+                    index = index << 1;
+                    maxLat = mid;
+                }
+            }
+            evenBit = !evenBit;
+
+            if (++bits == 5) {
+                hash.append(BASE32[index]);
+                bits = 0;
+                index = 0;
+            }
+        }
+
+        return hash.toString();
+    }
+
+    /**
+     * Gets the cells covering a rectangle, as few and as small as possible:
+     * the geohashes are as long as they can be for the rectangle to be
+     * covered by at most the given number of cells. Longitudes may run
+     * past 180 degrees on either side, to cover the antimeridian.
+     * @param minLat southern edge, in degrees
+     * @param minLon western edge, in degrees
+     * @param maxLat northern edge, in degrees
+     * @param maxLon eastern edge, in degrees
+     * @param maxCells number of cells to cover the rectangle with, at most,
+     *   unless even cells of one character are too small
+     * @return the geohash of each cell intersecting the rectangle
+     */
+    public static Set<String> cover(double minLat, double minLon, double maxLat, double maxLon, int maxCells) {
+        minLat = Math.max(-90, minLat);
+        maxLat = Math.min(90, maxLat);
+        if (maxLon - minLon >= 360) {
+            minLon = -180;
+            maxLon = 180;
+        }
+
+        int precision = MAX_PRECISION;
+        while (precision > 1 && cells(maxLat - minLat, maxLon - minLon, precision) > maxCells) {
+            precision--;
+        }
+
+        double height = cellHeight(precision);
+        double width = cellWidth(precision);
+        Set<String> cells = new TreeSet<>();
+        for (double lat = minLat; ; lat += height) {
+            double rowLat = Math.min(lat, maxLat);
+            for (double lon = minLon; ; lon += width) {
+                double columnLon = Math.min(lon, maxLon);
+                cells.add(encode(rowLat, normalize(columnLon), precision));
+                if (columnLon >= maxLon) {
+                    break;
+                }
+            }
+            if (rowLat >= maxLat) {
+                break;
+            }
+        }
+        return cells;
+    }
+
+    /**
+     * Gets how many cells of a precision a rectangle may intersect, at most.
+     */
+    private static double cells(double height, double width, int precision) {
+        return (Math.floor(height / cellHeight(precision)) + 2) * (Math.floor(width / cellWidth(precision)) + 2);
+    }
+
+    private static double cellHeight(int precision) {
+        return 180 / Math.pow(2, 5 * precision / 2);
+    }
+
+    private static double cellWidth(int precision) {
+        return 360 / Math.pow(2, (5 * precision + 1) / 2);
+    }
+
+    private static double normalize(double lon) {
+        return lon >= -180 && lon < 180 ? lon : ((lon + 180) % 360 + 360) % 360 - 180;
+    }
+}
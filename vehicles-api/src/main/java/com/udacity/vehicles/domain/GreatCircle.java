@@ -0,0 +1,56 @@
+package com.udacity.vehicles.domain;
+
+/**
+ * Measures distances over the surface of the Earth, taken as a sphere.
+ */
+public final class GreatCircle {
+
+    /**
+     * Mean radius of the Earth, in kilometers.
+     */
+    public static final double EARTH_RADIUS_KM = 6371.0088;
+
+    /**
+     * Half the circumference of the Earth: no two locations are further apart.
+     */
+    public static final double MAX_DISTANCE_KM = Math.PI * EARTH_RADIUS_KM;
+
+    private GreatCircle() {
+    }
+
+    /**
+     * Gets the distance between two locations, using the haversine formula.
+     * @param lat1 latitude of the first location, in degrees
+     * @param lon1 longitude of the first location, in degrees
+     * @param lat2 latitude of the second location, in degrees
+     * @param lon2 longitude of the second location, in degrees
+     * @return the distance, in kilometers
+     */
+    public static double distanceKm(double lat1, double lon1, double lat2, double lon2) {
+        double dLat = Math.toRadians(lat2 - lat1);
+        double dLon = Math.toRadians(lon2 - lon1);
+        double a = Math.pow(Math.sin(dLat / 2), 2)
+                + Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2)) * Math.pow(Math.sin(dLon / 2), 2);
+        return 2 * EARTH_RADIUS_KM * Math.asin(Math.min(1, Math.sqrt(a)));
+    }
+
+    /**
+     * Gets the rectangle enclosing the circle around a location.
+     * @param lat latitude of the center, in degrees
+     * @param lon longitude of the center, in degrees
+     * @param radiusKm radius of the circle, in kilometers
+     * @return the southern, western, northern and eastern edges, in
+     *   degrees; longitudes span 360 degrees when the circle reaches a pole
+     */
+    public static double[] boundingBox(double lat, double lon, double radiusKm) {
+        double angle = radiusKm / EARTH_RADIUS_KM;
+        double dLat = Math.toDegrees(angle);
+        double minLat = lat - dLat;
+        double maxLat = lat + dLat;
+        if (minLat <= -90 || maxLat >= 90 || angle >= Math.PI / 2) {
+            return new double[] {minLat, -180, maxLat, 180};
+        }
+        double dLon = Math.toDegrees(Math.asin(Math.min(1, Math.sin(angle) / Math.cos(Math.toRadians(lat)))));
+        return new double[] {minLat, lon - dLon, maxLat, lon + dLon};
+    }
+}
@@ -1,14 +1,19 @@
 package com.udacity.vehicles.domain;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import javax.persistence.Column;
 import javax.persistence.Embeddable;
-import javax.persistence.Transient;
 import javax.validation.constraints.NotNull;
 
 /**
  * Stores information about a given location.
  * Latitude and longitude must be provided, while other
- * location information must be gathered each time from
- * the maps API.
+ * location information is gathered from the maps API.
+ * The address may be stored along with the coordinates
+ * it was resolved for, so it is only gathered again
+ * once the coordinates change. The geohash of the
+ * coordinates is stored too, so that locations can be
+ * looked up by area.
  */
 @Embeddable
 public class Location {
@@ -19,18 +24,24 @@ public class Location {
     @NotNull
     private Double lon;
 
-    @Transient
     private String address;
 
-    @Transient
     private String city;
 
-    @Transient
     private String state;
 
-    @Transient
     private String zip;
 
+    @JsonIgnore
+    private Double resolvedLat;
+
+    @JsonIgnore
+    private Double resolvedLon;
+
+    @JsonIgnore
+    @Column(length = Geohash.MAX_PRECISION)
+    private String geohash;
+
     public Location() {
     }
 
@@ -78,4 +89,69 @@ public class Location {
     public void setZip(String zip) {
         this.zip = zip;
     }
+
+    /**
+     * Gets the geohash of the coordinates, as of the last time it was updated.
+     * @return the geohash, of {@link Geohash#MAX_PRECISION} characters
+     */
+    @JsonIgnore
+    public String getGeohash() {
+        return geohash;
+    }
+
+    /**
+     * Updates the geohash to match the current coordinates.
+     */
+    public void updateGeohash() {
+        this.geohash = lat == null || lon == null ? null : Geohash.encode(lat, lon, Geohash.MAX_PRECISION);
+    }
+
+    /**
+     * Forgets the address, and the coordinates it was resolved for.
+     */
+    public void clearAddress() {
+        this.address = null;
+        this.city = null;
+        this.state = null;
+        this.zip = null;
+        this.resolvedLat = null;
+        this.resolvedLon = null;
+    }
+
+    /**
+     * Gets the latitude the address was resolved for.
+     * @return the latitude, or null if the address was not resolved
+     */
+    @JsonIgnore
+    public Double getResolvedLat() {
+        return resolvedLat;
+    }
+
+    /**
+     * Gets the longitude the address was resolved for.
+     * @return the longitude, or null if the address was not resolved
+     */
+    @JsonIgnore
+    public Double getResolvedLon() {
+        return resolvedLon;
+    }
+
+    /**
+     * Records that the current address was resolved for the current coordinates.
+     */
+    public void markResolved() {
+        this.resolvedLat = lat;
+        this.resolvedLon = lon;
+    }
+
+    /**
+     * Tells whether the address was resolved for the current coordinates.
+     * @return true if there is an address and the coordinates have not
+     *   changed since it was resolved
+     */
+    @JsonIgnore
+    public boolean isResolved() {
+        return address != null && lat != null && lon != null
+                && lat.equals(resolvedLat) && lon.equals(resolvedLon);
+    }
 }
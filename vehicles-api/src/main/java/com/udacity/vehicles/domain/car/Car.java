@@ -1,8 +1,12 @@
 package com.udacity.vehicles.domain.car;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
 import com.udacity.vehicles.domain.Condition;
 import com.udacity.vehicles.domain.Location;
 import java.time.LocalDateTime;
+import java.util.Set;
 import javax.persistence.Embedded;
 import javax.persistence.Entity;
 import javax.persistence.EntityListeners;
@@ -10,22 +14,45 @@ import javax.persistence.EnumType;
 import javax.persistence.Enumerated;
 import javax.persistence.GeneratedValue;
 import javax.persistence.Id;
+import javax.persistence.Index;
+import javax.persistence.PrePersist;
+import javax.persistence.PreUpdate;
+import javax.persistence.Table;
 import javax.persistence.Transient;
+import javax.persistence.Version;
 import javax.validation.Valid;
 import javax.validation.constraints.NotNull;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
 import org.springframework.data.annotation.CreatedDate;
 import org.springframework.data.annotation.LastModifiedDate;
 import org.springframework.data.jpa.domain.support.AuditingEntityListener;
+import org.springframework.hateoas.core.Relation;
 
 /**
  * Declares the Car class, related variables and methods.
+ * The columns cars are searched by are indexed, see {@link CarSpecifications}.
+ * IDs are reserved from a sequence in blocks, see {@link CarIdGenerator}.
  */
 @Entity
+@Table(indexes = {
+        @Index(name = "idx_car_manufacturer", columnList = "manufacturerCode"),
+        @Index(name = "idx_car_condition", columnList = "condition"),
+        @Index(name = "idx_car_body", columnList = "body"),
+        @Index(name = "idx_car_fuel_type", columnList = "fuelType"),
+        @Index(name = "idx_car_model_year", columnList = "modelYear"),
+        @Index(name = "idx_car_mileage", columnList = "mileage"),
+        @Index(name = "idx_car_geohash", columnList = "geohash")
+})
 @EntityListeners(AuditingEntityListener.class)
+@Relation(value = "car", collectionRelation = "cars")
 public class Car {
 
     @Id
-    @GeneratedValue
+    @GeneratedValue(generator = "car_sequence")
+    @GenericGenerator(name = "car_sequence", strategy = "com.udacity.vehicles.domain.car.CarIdGenerator",
+            parameters = @Parameter(name = SequenceStyleGenerator.SEQUENCE_PARAM, value = "car_sequence"))
     private Long id;
 
     @CreatedDate
@@ -34,6 +61,10 @@ public class Car {
     @LastModifiedDate
     private LocalDateTime modifiedAt;
 
+    @Version
+    @JsonIgnore
+    private Long version;
+
     @NotNull
     @Enumerated(EnumType.STRING)
     private Condition condition;
@@ -49,6 +80,16 @@ public class Car {
     @Transient
     private String price;
 
+    @Transient
+    @JsonInclude(JsonInclude.Include.NON_EMPTY)
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    private Set<Expansion> omitted;
+
+    @Transient
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    private Double distanceKm;
+
     public Long getId() {
         return id;
     }
@@ -73,6 +114,18 @@ public class Car {
         this.modifiedAt = modifiedAt;
     }
 
+    /**
+     * Gets the version of the stored car, incremented each time it is updated.
+     * @return the version, or null if the car was never stored
+     */
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
     public Condition getCondition() {
         return condition;
     }
@@ -104,4 +157,41 @@ public class Car {
     public void setPrice(String price) {
         this.price = price;
     }
+
+    /**
+     * Gets the remote information that was not requested, and so
+     * was not filled in for this car.
+     * @return the omitted expansions, if any
+     */
+    public Set<Expansion> getOmitted() {
+        return omitted;
+    }
+
+    public void setOmitted(Set<Expansion> omitted) {
+        this.omitted = omitted;
+    }
+
+    /**
+     * Gets the distance of the car from the point it was searched around.
+     * @return the distance in kilometers, or null if the car was not
+     *   searched by distance
+     */
+    public Double getDistanceKm() {
+        return distanceKm;
+    }
+
+    public void setDistanceKm(Double distanceKm) {
+        this.distanceKm = distanceKm;
+    }
+
+    /**
+     * Keeps the stored geohash of the location in step with its coordinates.
+     */
+    @PrePersist
+    @PreUpdate
+    void updateGeohash() {
+        if (location != null) {
+            location.updateGeohash();
+        }
+    }
 }
@@ -0,0 +1,44 @@
+package com.udacity.vehicles.domain.car;
+
+import java.util.Properties;
+import org.hibernate.MappingException;
+import org.hibernate.engine.config.spi.ConfigurationService;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
+import org.hibernate.id.enhanced.StandardOptimizerDescriptor;
+import org.hibernate.service.ServiceRegistry;
+import org.hibernate.type.Type;
+
+/**
+ * Generates car IDs from a database sequence, a block at a time.
+ *
+ * Each call to the sequence reserves the next {@code vehicles.car.id.increment_size}
+ * IDs, which the pooled optimizer then hands out from memory, so inserts
+ * neither wait on the sequence nor break their JDBC batches. Every node
+ * reserves its blocks from the same sequence, so IDs stay unique across
+ * nodes. The sequence must be created with the same increment: with an
+ * existing schema, change both together.
+ */
+public class CarIdGenerator extends SequenceStyleGenerator {
+
+    /**
+     * Hibernate setting holding the number of IDs reserved per sequence call,
+     * set through {@code spring.jpa.properties.vehicles.car.id.increment_size}.
+     */
+    public static final String INCREMENT_SIZE_SETTING = "vehicles.car.id.increment_size";
+
+    public static final int DEFAULT_INCREMENT_SIZE = 50;
+
+    @Override
+    public void configure(Type type, Properties params, ServiceRegistry serviceRegistry) throws MappingException {
+        int incrementSize = serviceRegistry.getService(ConfigurationService.class).getSetting(
+                INCREMENT_SIZE_SETTING, value -> Integer.valueOf(value.toString().trim()), DEFAULT_INCREMENT_SIZE);
+        if (incrementSize < 1) {
+            throw new MappingException(INCREMENT_SIZE_SETTING + " must be at least 1, was " + incrementSize);
+        }
+        params.setProperty(INCREMENT_PARAM, Integer.toString(incrementSize));
+        if (incrementSize > 1) {
+            params.setProperty(OPT_PARAM, StandardOptimizerDescriptor.POOLED.getExternalName());
+        }
+        super.configure(type, params, serviceRegistry);
+    }
+}
@@ -0,0 +1,29 @@
+package com.udacity.vehicles.domain.car;
+
+/**
+ * Holds the ID and coordinates of a car, read without the rest of the car.
+ */
+public final class CarPoint {
+
+    private final Long id;
+    private final double lat;
+    private final double lon;
+
+    public CarPoint(Long id, Double lat, Double lon) {
+        this.id = id;
+        this.lat = lat;
+        this.lon = lon;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public double getLat() {
+        return lat;
+    }
+
+    public double getLon() {
+        return lon;
+    }
+}
@@ -1,9 +1,54 @@
 package com.udacity.vehicles.domain.car;
 
+import java.util.List;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 @Repository
-public interface CarRepository extends JpaRepository<Car, Long> {
+public interface CarRepository extends JpaRepository<Car, Long>, JpaSpecificationExecutor<Car>,
+        CarRepositoryCustom {
 
+    /**
+     * Gets the cars following a given ID, in ID order. Paging is meant to
+     * be done by keyset: request the first page of {@code pageable} and pass
+     * the last ID seen as {@code id}, so the database seeks on the primary
+     * key instead of scanning past an OFFSET.
+     * @param id the last ID already seen
+     * @param pageable first page of the desired size
+     * @return the next cars, and whether more follow
+     */
+    Slice<Car> findByIdGreaterThanOrderByIdAsc(Long id, Pageable pageable);
+
+    /**
+     * Gets the ID and coordinates of every car.
+     * @return the location of each car
+     */
+    @Query("select new com.udacity.vehicles.domain.car.CarPoint(c.id, c.location.lat, c.location.lon)"
+            + " from Car c where c.location.lat is not null and c.location.lon is not null")
+    List<CarPoint> findAllPoints();
+
+    /**
+     * Gets the ID and coordinates of the cars whose geohash falls in a
+     * range, which the database reads from the index on the geohash.
+     * @param from the first geohash of the range
+     * @param to the geohash following the range
+     * @return the location of each car in the range
+     */
+    @Query("select new com.udacity.vehicles.domain.car.CarPoint(c.id, c.location.lat, c.location.lon)"
+            + " from Car c where c.location.geohash >= :from and c.location.geohash < :to")
+    List<CarPoint> findPointsByGeohashRange(@Param("from") String from, @Param("to") String to);
+
+    /**
+     * Gets the ID and coordinates of the cars in a geohash cell.
+     * @param cell the geohash of the cell
+     * @return the location of each car in the cell
+     */
+    default List<CarPoint> findPointsInCell(String cell) {
+        return findPointsByGeohashRange(cell, cell + "~");
+    }
 }
@@ -0,0 +1,42 @@
+package com.udacity.vehicles.domain.car;
+
+import java.util.List;
+import java.util.function.Consumer;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Declares repository operations on cars that are not derived by Spring Data.
+ */
+public interface CarRepositoryCustom {
+
+    /**
+     * Reads every car in ID order through a forward-only cursor, handing
+     * them out in windows. Cars of a window are detached once the consumer
+     * returns, so memory use does not grow with the number of cars.
+     * Must be called within a transaction.
+     * @param fetchSize number of rows the JDBC driver fetches per round trip
+     * @param windowSize number of cars handed to the consumer at once
+     * @param consumer receives each window of cars
+     */
+    void forEachWindow(int fetchSize, int windowSize, Consumer<List<Car>> consumer);
+
+    /**
+     * Inserts new cars in one transaction, letting Hibernate send the
+     * inserts in JDBC batches. Manufacturers are referenced by code
+     * without being read. The cars are detached once inserted.
+     * @param cars the cars to insert, without IDs; they are given one
+     */
+    @Transactional
+    void insertAll(List<Car> cars);
+
+    /**
+     * Stores the addresses resolved for cars that were read, as one batch
+     * of JDBC updates on the connection of the current transaction, or of
+     * a transaction of its own. The cars themselves are not flushed: their
+     * version and modification time do not change. An address is only
+     * stored while its car is still at the coordinates it was resolved for.
+     * @param cars the cars whose address was resolved
+     */
+    @Transactional
+    void storeAddresses(List<Car> cars);
+}
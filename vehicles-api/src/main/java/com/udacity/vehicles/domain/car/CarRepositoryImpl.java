@@ -0,0 +1,87 @@
+package com.udacity.vehicles.domain.car;
+
+import com.udacity.vehicles.domain.Location;
+import com.udacity.vehicles.domain.manufacturer.Manufacturer;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import org.hibernate.jpa.QueryHints;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * Implements the custom car repository operations using JPA directly.
+ */
+class CarRepositoryImpl implements CarRepositoryCustom {
+
+    private static final String STORE_ADDRESS = "update car set address = ?, city = ?, state = ?, zip = ?,"
+            + " resolved_lat = ?, resolved_lon = ? where id = ? and lat = ? and lon = ?";
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private final JdbcTemplate jdbc;
+
+    CarRepositoryImpl(JdbcTemplate jdbc) {
+        this.jdbc = jdbc;
+    }
+
+    @Override
+    public void forEachWindow(int fetchSize, int windowSize, Consumer<List<Car>> consumer) {
+        try (Stream<Car> cars = entityManager
+                .createQuery("select c from Car c order by c.id", Car.class)
+                .setHint(QueryHints.HINT_FETCH_SIZE, fetchSize)
+                .setHint(QueryHints.HINT_READONLY, true)
+                .getResultStream()) {
+            List<Car> window = new ArrayList<>(windowSize);
+            Iterator<Car> iterator = cars.iterator();
+            while (iterator.hasNext()) {
+                window.add(iterator.next());
+                if (window.size() == windowSize) {
+                    flush(window, consumer);
+                    window = new ArrayList<>(windowSize);
+                }
+            }
+            if (!window.isEmpty()) {
+                flush(window, consumer);
+            }
+        }
+    }
+
+    @Override
+    public void insertAll(List<Car> cars) {
+        for (Car car : cars) {
+            Manufacturer manufacturer = car.getDetails() == null ? null : car.getDetails().getManufacturer();
+            if (manufacturer != null && !entityManager.contains(manufacturer)) {
+                car.getDetails().setManufacturer(
+                        entityManager.getReference(Manufacturer.class, manufacturer.getCode()));
+            }
+            entityManager.persist(car);
+        }
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    @Override
+    public void storeAddresses(List<Car> cars) {
+        jdbc.batchUpdate(STORE_ADDRESS, cars.stream()
+                .map(car -> {
+                    Location location = car.getLocation();
+                    return new Object[] {
+                            location.getAddress(), location.getCity(), location.getState(), location.getZip(),
+                            location.getResolvedLat(), location.getResolvedLon(),
+                            car.getId(), location.getResolvedLat(), location.getResolvedLon()
+                    };
+                })
+                .collect(Collectors.toList()));
+    }
+
+    private void flush(List<Car> window, Consumer<List<Car>> consumer) {
+        consumer.accept(window);
+        entityManager.clear();
+    }
+}
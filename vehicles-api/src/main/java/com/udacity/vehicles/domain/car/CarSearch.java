@@ -0,0 +1,87 @@
+package com.udacity.vehicles.domain.car;
+
+import com.udacity.vehicles.domain.Condition;
+
+/**
+ * Declares the attributes cars can be searched by. Attributes left unset
+ * match any car; ranges may be open on either end.
+ */
+public class CarSearch {
+
+    private Integer manufacturer;
+    private Condition condition;
+    private String body;
+    private String fuelType;
+    private Integer minModelYear;
+    private Integer maxModelYear;
+    private Integer minMileage;
+    private Integer maxMileage;
+
+    /**
+     * Gets the code of the manufacturer to match, such as 101.
+     * @return the manufacturer code, or null for any manufacturer
+     */
+    public Integer getManufacturer() {
+        return manufacturer;
+    }
+
+    public void setManufacturer(Integer manufacturer) {
+        this.manufacturer = manufacturer;
+    }
+
+    public Condition getCondition() {
+        return condition;
+    }
+
+    public void setCondition(Condition condition) {
+        this.condition = condition;
+    }
+
+    public String getBody() {
+        return body;
+    }
+
+    public void setBody(String body) {
+        this.body = body;
+    }
+
+    public String getFuelType() {
+        return fuelType;
+    }
+
+    public void setFuelType(String fuelType) {
+        this.fuelType = fuelType;
+    }
+
+    public Integer getMinModelYear() {
+        return minModelYear;
+    }
+
+    public void setMinModelYear(Integer minModelYear) {
+        this.minModelYear = minModelYear;
+    }
+
+    public Integer getMaxModelYear() {
+        return maxModelYear;
+    }
+
+    public void setMaxModelYear(Integer maxModelYear) {
+        this.maxModelYear = maxModelYear;
+    }
+
+    public Integer getMinMileage() {
+        return minMileage;
+    }
+
+    public void setMinMileage(Integer minMileage) {
+        this.minMileage = minMileage;
+    }
+
+    public Integer getMaxMileage() {
+        return maxMileage;
+    }
+
+    public void setMaxMileage(Integer maxMileage) {
+        this.maxMileage = maxMileage;
+    }
+}
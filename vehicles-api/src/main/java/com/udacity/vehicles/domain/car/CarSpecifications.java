@@ -0,0 +1,108 @@
+package com.udacity.vehicles.domain.car;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import javax.persistence.criteria.Path;
+
+import com.udacity.vehicles.domain.Condition;
+
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+/**
+ * Builds the criteria to search cars with. Each criterion compares one
+ * indexed column of {@link Car}, so that searches seek on the indexes
+ * instead of scanning every car.
+ */
+public final class CarSpecifications {
+
+    /**
+     * The attributes cars can be sorted by, and the property of each.
+     */
+    private static final Map<String, String> SORTABLE = Map.of(
+            "id", "id",
+            "condition", "condition",
+            "manufacturer", "details.manufacturer.code",
+            "body", "details.body",
+            "fuelType", "details.fuelType",
+            "modelYear", "details.modelYear",
+            "mileage", "details.mileage");
+
+    private CarSpecifications() {
+    }
+
+    /**
+     * Matches the cars with every attribute set in a search.
+     * @param search the attributes to match
+     * @return the criteria of the search
+     */
+    public static Specification<Car> matching(CarSearch search) {
+        return Specification.where(manufacturer(search.getManufacturer()))
+                .and(condition(search.getCondition()))
+                .and(detail("body", search.getBody()))
+                .and(detail("fuelType", search.getFuelType()))
+                .and(range("modelYear", search.getMinModelYear(), search.getMaxModelYear()))
+                .and(range("mileage", search.getMinMileage(), search.getMaxMileage()));
+    }
+
+    /**
+     * Maps a requested order onto the properties of cars, ending it with
+     * the ID so that pages are stable.
+     * @param requested the order, by sortable attribute or by property
+     * @return the order by property
+     * @throws IllegalArgumentException if an attribute cannot be sorted by
+     */
+    public static Sort sort(Sort requested) {
+        List<Sort.Order> orders = new ArrayList<>();
+        for (Sort.Order order : requested) {
+            String property = SORTABLE.getOrDefault(order.getProperty(), order.getProperty());
+            if (!SORTABLE.containsValue(property)) {
+                throw new IllegalArgumentException("Cannot sort cars by " + order.getProperty());
+            }
+            orders.add(order.withProperty(property));
+        }
+        if (orders.stream().noneMatch(order -> order.getProperty().equals("id"))) {
+            orders.add(Sort.Order.asc("id"));
+        }
+        return Sort.by(orders);
+    }
+
+    private static Specification<Car> manufacturer(Integer code) {
+        if (code == null) {
+            return null;
+        }
+        return (root, query, builder) -> builder.equal(root.get("details").get("manufacturer").get("code"), code);
+    }
+
+    private static Specification<Car> condition(Condition condition) {
+        if (condition == null) {
+            return null;
+        }
+        return (root, query, builder) -> builder.equal(root.get("condition"), condition);
+    }
+
+    private static Specification<Car> detail(String attribute, String value) {
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+        return (root, query, builder) -> builder.equal(root.get("details").get(attribute), value);
+    }
+
+    private static Specification<Car> range(String attribute, Integer min, Integer max) {
+        if (min == null && max == null) {
+            return null;
+        }
+        return (root, query, builder) -> {
+            Path<Integer> path = root.get("details").get(attribute);
+            if (min == null) {
+                return builder.lessThanOrEqualTo(path, max);
+            }
+            if (max == null) {
+                return builder.greaterThanOrEqualTo(path, min);
+            }
+            return builder.between(path, min, max);
+        };
+    }
+}
@@ -2,6 +2,7 @@ package com.udacity.vehicles.domain.car;
 
 import com.udacity.vehicles.domain.manufacturer.Manufacturer;
 import javax.persistence.Embeddable;
+import javax.persistence.JoinColumn;
 import javax.persistence.ManyToOne;
 import javax.validation.constraints.NotBlank;
 import javax.validation.constraints.NotNull;
@@ -21,6 +22,7 @@ public class Details {
 
     @NotNull
     @ManyToOne
+    @JoinColumn(name = "manufacturerCode")
     private Manufacturer manufacturer;
 
     private Integer numberOfDoors;
@@ -0,0 +1,49 @@
+package com.udacity.vehicles.domain.car;
+
+import com.fasterxml.jackson.annotation.JsonValue;
+import java.util.EnumSet;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Available values for the remote information a car can be expanded with.
+ */
+public enum Expansion {
+
+    PRICE,
+    LOCATION;
+
+    @JsonValue
+    public String getName() {
+        return name().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Gets every expansion.
+     * @return a new, modifiable set with all expansions
+     */
+    public static Set<Expansion> all() {
+        return EnumSet.allOf(Expansion.class);
+    }
+
+    /**
+     * Parses a comma-separated list of expansions, such as "price,location".
+     * @param expand the expansions, "none" for no expansion, or null for all of them
+     * @return the requested expansions
+     * @throws IllegalArgumentException if an expansion is unknown
+     */
+    public static Set<Expansion> parse(String expand) {
+        if (expand == null || expand.isBlank()) {
+            return all();
+        }
+
+        Set<Expansion> expansions = EnumSet.noneOf(Expansion.class);
+        for (String name : expand.split(",")) {
+            String trimmed = name.trim();
+            if (!trimmed.equalsIgnoreCase("none")) {
+                expansions.add(valueOf(trimmed.toUpperCase(Locale.ROOT)));
+            }
+        }
+        return expansions;
+    }
+}
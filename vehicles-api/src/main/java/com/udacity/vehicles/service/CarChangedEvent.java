@@ -0,0 +1,34 @@
+package com.udacity.vehicles.service;
+
+import com.udacity.vehicles.domain.Location;
+
+/**
+ * Published once a car has been created, updated or deleted, so that
+ * anything derived from the stored car can be dropped or updated.
+ */
+public final class CarChangedEvent {
+
+    private final Long carId;
+    private final Location location;
+
+    public CarChangedEvent(Long carId, Location location) {
+        this.carId = carId;
+        this.location = location;
+    }
+
+    /**
+     * Gets the ID of the car that changed.
+     * @return the ID of the car
+     */
+    public Long getCarId() {
+        return carId;
+    }
+
+    /**
+     * Gets the location of the car as stored.
+     * @return the location, or null if the car was deleted
+     */
+    public Location getLocation() {
+        return location;
+    }
+}
@@ -0,0 +1,112 @@
+package com.udacity.vehicles.service;
+
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.annotation.PreDestroy;
+
+import com.udacity.vehicles.config.VirtualThreads;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Runs the remote lookups used to enrich cars (location, price)
+ * concurrently on a bounded pool, waiting at most a fixed deadline
+ * for the whole batch.
+ *
+ * Each lookup performs its remote call on a pool thread and returns
+ * the action that applies the result to its car. Those actions are
+ * run on the calling thread, in submission order, so cars are never
+ * mutated after the deadline has passed.
+ *
+ * With {@code vehicles.threads.virtual} set, on Java 21 or later, each
+ * lookup runs on its own virtual thread instead of the bounded pool.
+ */
+@Component
+public class CarEnricher {
+
+    private static final Logger log = LoggerFactory.getLogger(CarEnricher.class);
+
+    private final ExecutorService executor;
+    private final long timeoutMillis;
+
+    public CarEnricher(@Value("${vehicles.enrichment.concurrency:16}") int concurrency,
+            @Value("${vehicles.enrichment.timeout-ms:5000}") long timeoutMillis,
+            @Value("${vehicles.threads.virtual:false}") boolean virtual) {
+        if (virtual && VirtualThreads.isAvailable()) {
+            this.executor = VirtualThreads.newThreadPerTaskExecutor("car-enricher-");
+        } else {
+            if (virtual) {
+                log.warn("Virtual threads are not available; enriching cars on {} platform threads", concurrency);
+            }
+            this.executor = Executors.newFixedThreadPool(Math.max(1, concurrency), new EnricherThreadFactory());
+        }
+        this.timeoutMillis = timeoutMillis;
+    }
+
+    /**
+     * Runs the given lookups concurrently and applies their results.
+     * Lookups that fail or do not finish before the deadline are skipped,
+     * leaving their car as it was.
+     * @param lookups remote calls returning the update to apply to a car
+     */
+    public void enrich(List<Callable<Runnable>> lookups) {
+        if (lookups.isEmpty()) {
+            return;
+        }
+
+        List<Future<Runnable>> results;
+        try {
+            results = executor.invokeAll(lookups, timeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.warn("Interrupted while enriching {} lookups", lookups.size());
+            return;
+        }
+
+        int skipped = 0;
+        for (Future<Runnable> result : results) {
+            try {
+                result.get().run();
+            } catch (CancellationException | ExecutionException e) {
+                skipped++;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+
+        if (skipped > 0) {
+            log.warn("{} of {} enrichment lookups missed the {} ms deadline or failed",
+                    skipped, results.size(), timeoutMillis);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private static class EnricherThreadFactory implements ThreadFactory {
+
+        private final AtomicInteger count = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "car-enricher-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
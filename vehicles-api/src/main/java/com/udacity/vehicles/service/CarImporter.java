@@ -0,0 +1,225 @@
+package com.udacity.vehicles.service;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import javax.validation.ConstraintViolation;
+import javax.validation.Validator;
+
+import com.udacity.vehicles.domain.car.Car;
+import com.udacity.vehicles.domain.car.CarRepository;
+import com.udacity.vehicles.domain.manufacturer.Manufacturer;
+import com.udacity.vehicles.domain.manufacturer.ManufacturerRepository;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+
+/**
+ * Imports many new cars at once, for instance the fleet of a new dealer.
+ *
+ * Cars are validated one by one as they are read, and the valid ones are
+ * inserted in chunks of {@code vehicles.import.batch-size}, each in its
+ * own transaction and sent as JDBC batches. Unlike {@link CarService#save},
+ * no address or price is looked up, and any address sent is dropped: it
+ * is resolved on the first read instead. A chunk that fails to insert fails
+ * its cars only, and the import goes on. Imported cars are counted in the
+ * {@code cars.imported} metric, tagged by result, and imports are timed
+ * in {@code cars.import}.
+ */
+@Component
+public class CarImporter {
+
+    private static final Logger log = LoggerFactory.getLogger(CarImporter.class);
+
+    private final CarRepository repository;
+    private final ManufacturerRepository manufacturers;
+    private final Validator validator;
+    private final ApplicationEventPublisher events;
+    private final int batchSize;
+    private final Timer imports;
+    private final Counter created;
+    private final Counter invalid;
+    private final Counter failed;
+
+    public CarImporter(CarRepository repository, ManufacturerRepository manufacturers, Validator validator,
+            ApplicationEventPublisher events, MeterRegistry registry,
+            @Value("${vehicles.import.batch-size:50}") int batchSize) {
+        this.repository = repository;
+        this.manufacturers = manufacturers;
+        this.validator = validator;
+        this.events = events;
+        this.batchSize = Math.max(1, batchSize);
+        this.imports = Timer.builder("cars.import")
+                .description("Time taken by imports of cars")
+                .register(registry);
+        this.created = imported(registry, ImportSummary.Status.CREATED);
+        this.invalid = imported(registry, ImportSummary.Status.INVALID);
+        this.failed = imported(registry, ImportSummary.Status.FAILED);
+    }
+
+    /**
+     * Starts an import. The import is not thread-safe: its cars are to be
+     * added by one thread, which finishes it.
+     * @return the import to add cars to
+     */
+    public Import begin() {
+        return new Import(manufacturers.findAll().stream()
+                .map(Manufacturer::getCode)
+                .collect(Collectors.toSet()));
+    }
+
+    private static Counter imported(MeterRegistry registry, ImportSummary.Status status) {
+        return Counter.builder("cars.imported")
+                .tag("result", status.getName())
+                .description("Cars received by imports")
+                .register(registry);
+    }
+
+    /**
+     * Collects the cars of one import, inserting them chunk by chunk.
+     */
+    public final class Import {
+
+        private final long start = System.nanoTime();
+        private final Set<Integer> manufacturerCodes;
+        private final List<Car> chunk = new ArrayList<>(batchSize);
+        private final List<Integer> chunkIndexes = new ArrayList<>(batchSize);
+        private final List<ImportSummary.Item> results = new ArrayList<>();
+        private int received;
+        private int createdCount;
+        private String aborted;
+
+        private Import(Set<Integer> manufacturerCodes) {
+            this.manufacturerCodes = manufacturerCodes;
+        }
+
+        /**
+         * Adds the next car of the input, inserting the current chunk if
+         * the car fills it. Invalid cars, including null items, are not
+         * inserted. A car that cannot be checked fails on its own.
+         * @param car the car, any ID or version it has being ignored
+         */
+        public void add(Car car) {
+            int index = received++;
+            if (car == null) {
+                result(index, ImportSummary.Status.INVALID, null, List.of("Item is not a car"));
+                return;
+            }
+            List<String> errors;
+            try {
+                errors = validate(car);
+            } catch (RuntimeException ex) {
+                log.warn("Could not validate imported car {}", index, ex);
+                result(index, ImportSummary.Status.FAILED, null,
+                        List.of("Could not check the car: " + ex.getMessage()));
+                return;
+            }
+            if (!errors.isEmpty()) {
+                result(index, ImportSummary.Status.INVALID, null, errors);
+                return;
+            }
+            car.setId(null);
+            car.setVersion(null);
+            if (car.getLocation() != null) {
+                car.getLocation().clearAddress();
+            }
+            chunk.add(car);
+            chunkIndexes.add(index);
+            if (chunk.size() >= batchSize) {
+                flush();
+            }
+        }
+
+        /**
+         * Adds an item of the input that could not be read as a car.
+         * @param error why the item could not be read
+         */
+        public void reject(String error) {
+            result(received++, ImportSummary.Status.INVALID, null, List.of(error));
+        }
+
+        /**
+         * Records that the rest of the input could not be read.
+         * @param reason why the input could not be read
+         */
+        public void abort(String reason) {
+            this.aborted = reason;
+        }
+
+        /**
+         * Inserts the last chunk and sums up the import.
+         * @return the result of each car received
+         */
+        public ImportSummary finish() {
+            flush();
+            long elapsed = System.nanoTime() - start;
+            imports.record(elapsed, TimeUnit.NANOSECONDS);
+            results.sort(Comparator.comparingInt(ImportSummary.Item::getIndex));
+            ImportSummary summary = new ImportSummary(received, createdCount,
+                    TimeUnit.NANOSECONDS.toMillis(elapsed), aborted, results);
+            log.info("Imported {} of {} cars at {} rows/s", summary.getCreated(), summary.getReceived(),
+                    summary.getRowsPerSecond());
+            return summary;
+        }
+
+        private List<String> validate(Car car) {
+            List<String> errors = new ArrayList<>();
+            for (ConstraintViolation<Car> violation : validator.validate(car)) {
+                errors.add(violation.getPropertyPath() + ": " + violation.getMessage());
+            }
+            Manufacturer manufacturer = car.getDetails() == null ? null : car.getDetails().getManufacturer();
+            if (manufacturer != null && !manufacturerCodes.contains(manufacturer.getCode())) {
+                errors.add("details.manufacturer: unknown manufacturer " + manufacturer.getCode());
+            }
+            errors.sort(null);
+            return errors;
+        }
+
+        private void flush() {
+            if (chunk.isEmpty()) {
+                return;
+            }
+            try {
+                repository.insertAll(chunk);
+                for (int i = 0; i < chunk.size(); i++) {
+                    Car car = chunk.get(i);
+                    result(chunkIndexes.get(i), ImportSummary.Status.CREATED, car.getId(), null);
+                    events.publishEvent(new CarChangedEvent(car.getId(), car.getLocation()));
+                }
+                createdCount += chunk.size();
+            } catch (RuntimeException ex) {
+                log.warn("Could not insert {} imported cars", chunk.size(), ex);
+                List<String> errors = List.of("Could not insert the cars: " + ex.getMessage());
+                chunkIndexes.forEach(index -> result(index, ImportSummary.Status.FAILED, null, errors));
+            } finally {
+                chunk.clear();
+                chunkIndexes.clear();
+            }
+        }
+
+        private void result(int index, ImportSummary.Status status, Long id, List<String> errors) {
+            results.add(new ImportSummary.Item(index, status, id, errors));
+            switch (status) {
+                case CREATED:
+                    created.increment();
+                    break;
+                case INVALID:
+                    invalid.increment();
+                    break;
+                default:
+                    failed.increment();
+            }
+        }
+    }
+}
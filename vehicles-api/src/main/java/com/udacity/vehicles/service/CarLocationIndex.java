@@ -0,0 +1,244 @@
+package com.udacity.vehicles.service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import javax.annotation.PreDestroy;
+
+import com.udacity.vehicles.domain.Geohash;
+import com.udacity.vehicles.domain.GreatCircle;
+import com.udacity.vehicles.domain.Location;
+import com.udacity.vehicles.domain.car.CarPoint;
+import com.udacity.vehicles.domain.car.CarRepository;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+/**
+ * Finds cars by their distance from a point, without reading every car.
+ *
+ * Cars are indexed by the geohash of their location, which is stored
+ * and indexed along with each car. A search covers the circle around
+ * the point with at most {@value #MAX_CELLS} geohash cells, reads the
+ * cars in those cells, and keeps those within the circle, nearest first.
+ * The k nearest cars are found by searching circles of growing radius
+ * until one holds k cars, with k capped at {@code vehicles.near.max-k}.
+ *
+ * The cells are read from a sorted copy of the index held in memory,
+ * kept in step through {@link CarChangedEvent}s and rebuilt from the
+ * database every {@code vehicles.geo.rebuild-interval} in case a change
+ * was missed. Until that copy is first built, or with
+ * {@code vehicles.geo.in-memory} unset, each cell is read from the
+ * database through the index on the geohash instead.
+ */
+@Component
+public class CarLocationIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(CarLocationIndex.class);
+
+    static final int MAX_CELLS = 16;
+    private static final double FIRST_RADIUS_KM = 1;
+
+    private final CarRepository repository;
+    private final boolean inMemory;
+    private final Duration rebuildInterval;
+    private final int maxK;
+    private final ScheduledExecutorService rebuilder;
+    private volatile Grid grid;
+    private List<CarChangedEvent> pending;
+
+    public CarLocationIndex(CarRepository repository,
+            @Value("${vehicles.geo.in-memory:true}") boolean inMemory,
+            @Value("${vehicles.geo.rebuild-interval:PT10M}") Duration rebuildInterval,
+            @Value("${vehicles.near.max-k:500}") int maxK) {
+        this.repository = repository;
+        this.inMemory = inMemory;
+        this.rebuildInterval = rebuildInterval;
+        this.maxK = maxK;
+        this.rebuilder = Executors.newSingleThreadScheduledExecutor(task -> {
+            Thread thread = new Thread(task, "car-location-index");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Builds the copy of the index held in memory once the application
+     * has started, and schedules its rebuilds.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (inMemory) {
+            rebuilder.scheduleWithFixedDelay(this::rebuild, 0, rebuildInterval.toMillis(), TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        rebuilder.shutdownNow();
+    }
+
+    /**
+     * Finds the cars within a distance of a point.
+     * @param lat latitude of the point, in degrees
+     * @param lon longitude of the point, in degrees
+     * @param radiusKm greatest distance of the cars, in kilometers
+     * @param limit greatest number of cars to find
+     * @return the nearest cars within the distance, nearest first
+     */
+    public List<Nearby> within(double lat, double lon, double radiusKm, int limit) {
+        double[] box = GreatCircle.boundingBox(lat, lon, radiusKm);
+        Function<String, Collection<CarPoint>> cells = cells();
+        List<Nearby> found = new ArrayList<>();
+        for (String cell : Geohash.cover(box[0], box[1], box[2], box[3], MAX_CELLS)) {
+            for (CarPoint point : cells.apply(cell)) {
+                double distance = GreatCircle.distanceKm(lat, lon, point.getLat(), point.getLon());
+                if (distance <= radiusKm) {
+                    found.add(new Nearby(point.getId(), distance));
+                }
+            }
+        }
+        return found.stream()
+                .sorted(Comparator.comparingDouble(Nearby::getDistanceKm).thenComparing(Nearby::getCarId))
+                .limit(limit)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Finds the cars nearest to a point.
+     * @param lat latitude of the point, in degrees
+     * @param lon longitude of the point, in degrees
+     * @param k greatest number of cars to find, at most {@code vehicles.near.max-k}
+     * @param maxRadiusKm greatest distance of the cars, in kilometers
+     * @return the k nearest cars within the distance, nearest first
+     */
+    public List<Nearby> nearest(double lat, double lon, int k, double maxRadiusKm) {
+        k = Math.min(k, maxK);
+        double radius = Math.min(FIRST_RADIUS_KM, maxRadiusKm);
+        while (true) {
+            List<Nearby> found = within(lat, lon, radius, k);
+            if (found.size() >= k || radius >= maxRadiusKm) {
+                return found;
+            }
+            radius = Math.min(radius * 4, maxRadiusKm);
+        }
+    }
+
+    @EventListener
+    public synchronized void onCarChanged(CarChangedEvent event) {
+        if (pending != null) {
+            pending.add(event);
+        }
+        if (grid != null) {
+            grid.apply(event);
+        }
+    }
+
+    /**
+     * Builds the copy of the index held in memory from the database.
+     * Changes arriving while the cars are read are applied to it too.
+     */
+    void rebuild() {
+        synchronized (this) {
+            pending = new ArrayList<>();
+        }
+        try {
+            Grid rebuilt = new Grid();
+            List<CarPoint> points = repository.findAllPoints();
+            points.forEach(rebuilt::put);
+            synchronized (this) {
+                pending.forEach(rebuilt::apply);
+                grid = rebuilt;
+            }
+            log.debug("Indexed the locations of {} cars", points.size());
+        } catch (RuntimeException ex) {
+            log.warn("Could not rebuild the index of car locations", ex);
+        } finally {
+            synchronized (this) {
+                pending = null;
+            }
+        }
+    }
+
+    private Function<String, Collection<CarPoint>> cells() {
+        Grid current = grid;
+        return inMemory && current != null ? current::inCell : repository::findPointsInCell;
+    }
+
+    /**
+     * Holds a car found by distance.
+     */
+    public static final class Nearby {
+
+        private final Long carId;
+        private final double distanceKm;
+
+        Nearby(Long carId, double distanceKm) {
+            this.carId = carId;
+            this.distanceKm = distanceKm;
+        }
+
+        public Long getCarId() {
+            return carId;
+        }
+
+        public double getDistanceKm() {
+            return distanceKm;
+        }
+    }
+
+    /**
+     * Holds the location of each car, sorted by geohash so that the cars
+     * of a cell are read as one range.
+     */
+    private static final class Grid {
+
+        private final ConcurrentNavigableMap<String, CarPoint> byGeohash = new ConcurrentSkipListMap<>();
+        private final ConcurrentMap<Long, String> keys = new ConcurrentHashMap<>();
+
+        synchronized void put(CarPoint point) {
+            String key = Geohash.encode(point.getLat(), point.getLon(), Geohash.MAX_PRECISION) + ":" + point.getId();
+            String previous = keys.put(point.getId(), key);
+            if (previous != null && !previous.equals(key)) {
+                byGeohash.remove(previous);
+            }
+            byGeohash.put(key, point);
+        }
+
+        synchronized void remove(Long id) {
+            String previous = keys.remove(id);
+            if (previous != null) {
+                byGeohash.remove(previous);
+            }
+        }
+
+        void apply(CarChangedEvent event) {
+            Location location = event.getLocation();
+            if (location == null || location.getLat() == null || location.getLon() == null) {
+                remove(event.getCarId());
+            } else {
+                put(new CarPoint(event.getCarId(), location.getLat(), location.getLon()));
+            }
+        }
+
+        Collection<CarPoint> inCell(String cell) {
+            return byGeohash.subMap(cell, true, cell + "~", false).values();
+        }
+    }
+}
@@ -1,23 +1,43 @@
 package com.udacity.vehicles.service;
 
 import java.text.MessageFormat;
+import java.time.Instant;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
 
+import com.udacity.vehicles.client.Cached;
 import com.udacity.vehicles.client.maps.Address;
+import com.udacity.vehicles.client.maps.AddressMapper;
 import com.udacity.vehicles.client.maps.MapsClient;
-import com.udacity.vehicles.client.prices.Price;
 import com.udacity.vehicles.client.prices.PriceClient;
+import com.udacity.vehicles.domain.GreatCircle;
 import com.udacity.vehicles.domain.Location;
 import com.udacity.vehicles.domain.car.Car;
 import com.udacity.vehicles.domain.car.CarRepository;
+import com.udacity.vehicles.domain.car.Expansion;
 
-import org.modelmapper.ModelMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.cloud.netflix.eureka.EnableEurekaClient;
-import org.springframework.http.MediaType;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
-import org.springframework.web.reactive.function.client.ClientResponse;
-import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 /**
  * Implements the car service create, read, update or delete
@@ -29,76 +49,238 @@ import org.springframework.web.reactive.function.client.WebClient;
 @Service
 public class CarService {
 
+    private static final Logger log = LoggerFactory.getLogger(CarService.class);
+
     private final CarRepository repository;
     private final MapsClient maps;
     private final PriceClient pricing;
+    private final CarEnricher enricher;
+    private final CarLocationIndex locations;
+    private final ApplicationEventPublisher events;
+    private final int exportFetchSize;
+    private final int exportWindowSize;
+    private final boolean persistAddress;
 
-    public CarService(CarRepository repository, ModelMapper mapper, WebClient maps, WebClient pricing) {
+    public CarService(CarRepository repository, MapsClient maps, PriceClient pricing, CarEnricher enricher,
+            CarLocationIndex locations, ApplicationEventPublisher events,
+            @Value("${vehicles.export.fetch-size:500}") int exportFetchSize,
+            @Value("${vehicles.export.window-size:100}") int exportWindowSize,
+            @Value("${vehicles.location.persist-address:true}") boolean persistAddress) {
         this.repository = repository;
-        this.maps = new MapsClient(maps, mapper);
-        this.pricing = new PriceClient(pricing);
+        this.maps = maps;
+        this.pricing = pricing;
+        this.enricher = enricher;
+        this.locations = locations;
+        this.events = events;
+        this.exportFetchSize = exportFetchSize;
+        this.exportWindowSize = Math.max(1, exportWindowSize);
+        this.persistAddress = persistAddress;
     }
 
     /**
      * Gathers a list of all vehicles
-     * @return a list of all vehicles in the CarRepository
+     * @return a list of all vehicles in the CarRepository, in repository order
      */
     public List<Car> list() {
         List<Car> cars = repository.findAll();
-        cars.forEach(car -> {
-                            setLocation(car);
-                            setPrice(car);
-                            }
-                    );
+        enrich(cars, Expansion.all());
+        return cars;
+    }
+
+    /**
+     * Gathers one page of vehicles, ordered by ID
+     * @param after ID of the last vehicle of the previous page, or null for the first page
+     * @param limit maximum number of vehicles in the page
+     * @param expand the remote information to include for each vehicle
+     * @return the vehicles in the page, including the requested location
+     *   and price information, and whether more vehicles follow
+     */
+    public Slice<Car> list(Long after, int limit, Set<Expansion> expand) {
+        Slice<Car> cars = repository.findByIdGreaterThanOrderByIdAsc(
+                after == null ? Long.MIN_VALUE : after, PageRequest.of(0, limit));
+        enrich(cars.getContent(), expand);
+        return cars;
+    }
+
+    /**
+     * Gathers one page of vehicles like {@link #list(Long, int, Set)}, unless
+     * the client already has its current version. That version is first
+     * worked out from the stored vehicles and the prices and addresses
+     * already cached; if the client has it, nothing is looked up remotely.
+     * @param after ID of the last vehicle of the previous page, or null for the first page
+     * @param limit maximum number of vehicles in the page
+     * @param expand the remote information to include for each vehicle
+     * @param current tells whether the client already has a given version
+     * @return the page and its version, or only the version if the client has it
+     */
+    public Versioned<Slice<Car>> list(Long after, int limit, Set<Expansion> expand, Predicate<CarVersion> current) {
+        Slice<Car> cars = repository.findByIdGreaterThanOrderByIdAsc(
+                after == null ? Long.MIN_VALUE : after, PageRequest.of(0, limit));
+        CarVersion cached = peekVersion(cars.getContent(), expand, cars.hasNext());
+        if (cached != null && current.test(cached)) {
+            return Versioned.notModified(cached);
+        }
+        enrich(cars.getContent(), expand);
+        return Versioned.of(cars, version(cars.getContent(), expand, cars.hasNext()));
+    }
+
+    /**
+     * Searches vehicles matching the given criteria. Only the vehicles of
+     * the requested page are enriched.
+     * @param criteria the criteria the vehicles must match
+     * @param pageable the page to return, and the order of the vehicles
+     * @param expand the remote information to include for each vehicle
+     * @return the matching vehicles in the page, including the requested
+     *   location and price information, and the number of matches
+     */
+    public Page<Car> search(Specification<Car> criteria, Pageable pageable, Set<Expansion> expand) {
+        Page<Car> cars = repository.findAll(criteria, pageable);
+        enrich(cars.getContent(), expand);
+        return cars;
+    }
+
+    /**
+     * Gathers the vehicles nearest to a point, nearest first, each with
+     * its distance from the point. They are found through the
+     * {@link CarLocationIndex}, and only the vehicles found are read and
+     * enriched.
+     * @param lat latitude of the point, in degrees
+     * @param lon longitude of the point, in degrees
+     * @param radiusKm greatest distance of the vehicles in kilometers, or
+     *   null for any distance
+     * @param limit greatest number of vehicles to gather
+     * @param expand the remote information to include for each vehicle
+     * @return the nearest vehicles, including the requested location and
+     *   price information
+     */
+    public List<Car> near(double lat, double lon, Double radiusKm, int limit, Set<Expansion> expand) {
+        List<CarLocationIndex.Nearby> nearby = locations.nearest(lat, lon, limit,
+                radiusKm == null ? GreatCircle.MAX_DISTANCE_KM : radiusKm);
+        Map<Long, Car> stored = repository.findAllById(nearby.stream()
+                .map(CarLocationIndex.Nearby::getCarId)
+                .collect(Collectors.toList())).stream()
+                .collect(Collectors.toMap(Car::getId, Function.identity()));
+
+        List<Car> cars = nearby.stream()
+                .map(found -> {
+                    Car car = stored.get(found.getCarId());
+                    if (car != null) {
+                        car.setDistanceKm(Math.round(found.getDistanceKm() * 1000) / 1000d);
+                    }
+                    return car;
+                })
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+        enrich(cars, expand);
         return cars;
     }
 
+    /**
+     * Hands every vehicle, including location and price, to the given sink
+     * in ID order. Vehicles are read through a database cursor and enriched
+     * in small windows, so memory use stays flat regardless of fleet size.
+     * @param sink receives each vehicle as soon as it is enriched
+     */
+    @Transactional(readOnly = true)
+    public void export(Consumer<Car> sink) {
+        repository.forEachWindow(exportFetchSize, exportWindowSize, cars -> {
+            enrich(cars, Expansion.all());
+            cars.forEach(sink);
+        });
+    }
+
     /**
      * Gets car information by ID (or throws exception if non-existent)
      * @param id the ID number of the car to gather information on
-     * @return the requested car's information, including location and price
+     * @param expand the remote information to include
+     * @return the requested car's information, including the requested
+     *   location and price information
      */
-    public Car findById(Long id) throws CarNotFoundException {
+    public Car findById(Long id, Set<Expansion> expand) throws CarNotFoundException {
         Optional<Car> responseCar = repository.findById(id);
 
         if (responseCar.isEmpty()) throw new CarNotFoundException(MessageFormat.format("Car {0} not found.", id));
 
         Car car = responseCar.get();
-        setLocation(car);
-        setPrice(car);
+        enrich(List.of(car), expand);
 
         return car;
     }
 
     /**
-     * Either creates or updates a vehicle, based on prior existence of car
+     * Gets car information by ID like {@link #findById(Long, Set)}, unless
+     * the client already has its current version. That version is first
+     * worked out from the stored car and the price and address already
+     * cached; if the client has it, nothing is looked up remotely.
+     * @param id the ID number of the car to gather information on
+     * @param expand the remote information to include
+     * @param current tells whether the client already has a given version
+     * @return the car and its version, or only the version if the client has it
+     */
+    public Versioned<Car> findById(Long id, Set<Expansion> expand, Predicate<CarVersion> current)
+            throws CarNotFoundException {
+        Car car = repository.findById(id)
+                .orElseThrow(() -> new CarNotFoundException(MessageFormat.format("Car {0} not found.", id)));
+        List<Car> cars = List.of(car);
+        CarVersion cached = peekVersion(cars, expand, false);
+        if (cached != null && current.test(cached)) {
+            return Versioned.notModified(cached);
+        }
+        enrich(cars, expand);
+        return Versioned.of(car, version(cars, expand, false));
+    }
+
+    /**
+     * Either creates or updates a vehicle, based on prior existence of car.
+     * When addresses are persisted, the address is resolved before storing
+     * the car, unless its coordinates are unchanged since the last save.
+     * Otherwise any address the car comes with is not stored.
+     * A {@link CarChangedEvent} is published once the car is stored.
      * @param car A car object, which can be either new or existing
      * @return the new/updated car is stored in the repository
      */
     public Car save(Car car) {
+        Car updatedCar = persist(car, true);
+        enrich(List.of(updatedCar), Expansion.all());
+        return updatedCar;
+    }
+
+    /**
+     * Creates or updates a vehicle like {@link #save(Car)}, without looking
+     * up its price.
+     * @param car A car object, which can be either new or existing
+     * @param resolveAddress whether to resolve an address that is to be
+     *   persisted before storing the car, rather than leaving it to be
+     *   resolved and stored once the car is read
+     * @return the new/updated car, as stored in the repository
+     */
+    Car persist(Car car, boolean resolveAddress) {
         Car updatedCar;
 
         if (car.getId() != null) {
             updatedCar = repository.findById(car.getId())
                     .map(carToBeUpdated -> {
                         carToBeUpdated.setDetails(car.getDetails());
-                        carToBeUpdated.setLocation(car.getLocation());
-                        return repository.save(carToBeUpdated);
+                        carToBeUpdated.setLocation(relocate(carToBeUpdated.getLocation(), car.getLocation()));
+                        return carToBeUpdated;
                     }).orElseThrow(CarNotFoundException::new);
         } else {
             updatedCar = car;
         }
 
-        updatedCar = repository.save(updatedCar);
-
-        setLocation(updatedCar);
-        setPrice(updatedCar);
+        if (!persistAddress) {
+            updatedCar.getLocation().clearAddress();
+        } else if (resolveAddress && !updatedCar.getLocation().isResolved()) {
+            enricher.enrich(List.of(locate(List.of(updatedCar))));
+        }
 
+        updatedCar = repository.save(updatedCar);
+        events.publishEvent(new CarChangedEvent(updatedCar.getId(), updatedCar.getLocation()));
         return updatedCar;
     }
 
     /**
-     * Deletes a given car by ID
+     * Deletes a given car by ID, publishing a {@link CarChangedEvent}
      * @param id the ID number of the car to delete
      */
     public void delete(Long id) throws CarNotFoundException {
@@ -106,47 +288,194 @@ public class CarService {
         if (responseCar.isEmpty()) throw new CarNotFoundException(MessageFormat.format("Car {0} not found.", id));
 
         repository.deleteById(id);
+        events.publishEvent(new CarChangedEvent(id, null));
+    }
+
+    /**
+     * Keeps the stored location, and the address resolved for it, when an
+     * update does not move the car.
+     * @param stored location the car currently has
+     * @param requested location the car is updated with
+     * @return the location to store
+     */
+    private Location relocate(Location stored, Location requested) {
+        if (stored != null && stored.isResolved()
+                && stored.getLat().equals(requested.getLat())
+                && stored.getLon().equals(requested.getLon())) {
+            return stored;
+        }
+        return requested;
+    }
+
+    /**
+     * Looks up the requested locations and prices for the given cars
+     * concurrently. Each of them is fetched for all cars in one batch
+     * lookup. When addresses are persisted, cars whose stored address still
+     * matches their coordinates are not geocoded again, and the addresses
+     * resolved for the others are stored. Cars are marked with the
+     * information that was not requested and so is missing.
+     * @param cars the cars to enrich in place
+     * @param expand the remote information to look up
+     */
+    private void enrich(List<Car> cars, Set<Expansion> expand) {
+        List<Car> unresolved = persistAddress
+                ? cars.stream().filter(car -> !car.getLocation().isResolved()).collect(Collectors.toList())
+                : cars;
+
+        List<Callable<Runnable>> lookups = new ArrayList<>(2);
+        if (expand.contains(Expansion.LOCATION) && !unresolved.isEmpty()) {
+            lookups.add(locate(unresolved));
+        }
+        if (expand.contains(Expansion.PRICE)) {
+            lookups.add(price(cars));
+        }
+        enricher.enrich(lookups);
+        if (persistAddress && expand.contains(Expansion.LOCATION)) {
+            storeAddresses(unresolved);
+        }
+
+        markOmitted(cars, expand);
     }
 
-    private void setLocation(Car car) {
-        Location location = this.maps.getAddress(car.getLocation());
-        car.setLocation(location);
-
-        // ClientResponse responseMap = this.maps.get()
-        //                                         .uri(uriBuilder -> uriBuilder
-        //                                             .path("/maps")
-        //                                             .queryParam("lat", "{lat}")
-        //                                             .queryParam("lon", "{lon}")
-        //                                             .build(location.getLat(), location.getLon()))
-        //                                         .accept(MediaType.APPLICATION_JSON)
-        //                                         .exchange()
-        //                                         .block();
-
-        // Address address = responseMap.bodyToMono(Address.class).block();
-        // location.setAddress(address.getAddress());
-        // location.setCity(address.getCity());
-        // location.setState(address.getState());
-        // location.setZip(address.getZip());
-
-        // car.setLocation(location);
-    }
-
-    private void setPrice(Car car) {
-        String price = this.pricing.getPrice(car.getId());
-        car.setPrice(price);
-
-        // Long id = car.getId();
-        // ClientResponse responsePrice = this.pricing.get()
-        //                                             .uri(uriBuilder -> uriBuilder
-        //                                                 .path("/services/price")
-        //                                                 .queryParam("vehicleId", "{vehicleId}")
-        //                                                 .build(id))
-        //                                             .accept(MediaType.APPLICATION_JSON)
-        //                                             .exchange()
-        //                                             .block();
-
-        // Price price = responsePrice.bodyToMono(Price.class).block();
-        // car.setPrice(price.toString());
+    /**
+     * Stores the addresses just resolved for stored cars, so they are not
+     * resolved again on their next read. Failing to store them only means
+     * they are resolved again. Addresses resolved within a read-only
+     * transaction, such as an export's, are not stored, as the updates
+     * would hold their rows locked until the whole export ends.
+     * @param cars the cars that were located, some of which may have no address
+     */
+    void storeAddresses(List<Car> cars) {
+        if (TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            return;
+        }
+        List<Car> resolved = cars.stream()
+                .filter(car -> car.getId() != null && car.getLocation().isResolved())
+                .collect(Collectors.toList());
+        if (resolved.isEmpty()) {
+            return;
+        }
+        try {
+            repository.storeAddresses(resolved);
+        } catch (RuntimeException ex) {
+            log.warn("Could not store the addresses of {} cars", resolved.size(), ex);
+        }
+    }
+
+    /**
+     * Works out the version of cars as they would be returned, from the
+     * stored cars and the prices and addresses already cached, without
+     * looking anything up.
+     * @param cars the stored cars
+     * @param expand the remote information requested
+     * @param hasNext whether more cars follow
+     * @return the version, or null if some of the requested information
+     *   is not cached
+     */
+    private CarVersion peekVersion(List<Car> cars, Set<Expansion> expand, boolean hasNext) {
+        CarVersion.Builder version = CarVersion.builder(expand).hasNext(hasNext);
+        for (Car car : cars) {
+            String price = null;
+            Instant fetchedAt = null;
+            if (expand.contains(Expansion.PRICE)) {
+                Cached<String> cached = pricing.peekPrice(car.getId());
+                if (cached == null) {
+                    return null;
+                }
+                price = cached.getValue();
+                fetchedAt = cached.getFetchedAt();
+            }
+
+            Location location = car.getLocation();
+            if (expand.contains(Expansion.LOCATION) && !(persistAddress && location.isResolved())) {
+                Cached<Address> cached = maps.peekAddress(location);
+                if (cached == null) {
+                    return null;
+                }
+                location = AddressMapper.toLocation(cached.getValue(),
+                        new Location(location.getLat(), location.getLon()));
+                fetchedAt = fetchedAt == null || cached.getFetchedAt().isAfter(fetchedAt)
+                        ? cached.getFetchedAt()
+                        : fetchedAt;
+            }
+            version.add(car, price, location, fetchedAt);
+        }
+        return version.build();
+    }
+
+    /**
+     * Works out the version of enriched cars. Their remote information is
+     * taken as fetched now, as it may just have been.
+     * @param cars the enriched cars
+     * @param expand the remote information requested
+     * @param hasNext whether more cars follow
+     * @return the version of the cars
+     */
+    private static CarVersion version(List<Car> cars, Set<Expansion> expand, boolean hasNext) {
+        Instant fetchedAt = expand.isEmpty() ? null : Instant.now();
+        CarVersion.Builder version = CarVersion.builder(expand).hasNext(hasNext);
+        cars.forEach(car -> version.add(car, car.getPrice(), car.getLocation(), fetchedAt));
+        return version.build();
+    }
+
+    private Callable<Runnable> locate(List<Car> cars) {
+        return () -> {
+            List<Location> locations = this.maps.getAddresses(coordinates(cars));
+            return () -> applyLocations(cars, locations);
+        };
+    }
+
+    private Callable<Runnable> price(List<Car> cars) {
+        return () -> {
+            Map<Long, String> prices = this.pricing.getPrices(cars.stream()
+                    .map(Car::getId)
+                    .collect(Collectors.toList()));
+            return () -> cars.forEach(car -> car.setPrice(prices.get(car.getId())));
+        };
+    }
+
+    /**
+     * Copies the coordinates of the given cars, so they can be geocoded
+     * without touching the cars themselves.
+     * @param cars the cars to locate
+     * @return a new location per car, in the same order
+     */
+    static List<Location> coordinates(List<Car> cars) {
+        return cars.stream()
+                .map(car -> new Location(car.getLocation().getLat(), car.getLocation().getLon()))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Gives each car the location geocoded from its coordinates.
+     * @param cars the cars that were located
+     * @param locations the geocoded locations, in the same order
+     */
+    static void applyLocations(List<Car> cars, List<Location> locations) {
+        for (int i = 0; i < cars.size(); i++) {
+            Location location = locations.get(i);
+            if (location.getAddress() != null) {
+                location.markResolved();
+            }
+            cars.get(i).setLocation(location);
+        }
+    }
+
+    /**
+     * Marks each car with the information that was not requested, and so
+     * is missing from it. A stored address is present even if not requested.
+     * @param cars the enriched cars
+     * @param expand the remote information that was requested
+     */
+    static void markOmitted(List<Car> cars, Set<Expansion> expand) {
+        cars.forEach(car -> {
+            Set<Expansion> omitted = Expansion.all();
+            omitted.removeAll(expand);
+            if (car.getLocation().isResolved()) {
+                omitted.remove(Expansion.LOCATION);
+            }
+            car.setOmitted(omitted);
+        });
     }
 
 }
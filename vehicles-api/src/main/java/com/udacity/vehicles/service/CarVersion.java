@@ -0,0 +1,121 @@
+package com.udacity.vehicles.service;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.util.Set;
+
+import com.udacity.vehicles.domain.Location;
+import com.udacity.vehicles.domain.car.Car;
+import com.udacity.vehicles.domain.car.Expansion;
+
+import org.springframework.util.DigestUtils;
+
+/**
+ * Identifies the version of one or more cars as returned to a client,
+ * so that a client that already has it can be told so instead of
+ * receiving them again.
+ *
+ * The entity tag is derived from the stored version of each car and from
+ * the price and address it is returned with, so it changes whenever the
+ * returned information does. It is weak, as links in the representation
+ * depend on how the request reached the service. The last modification
+ * time is the latest of the time each car was stored and the time its
+ * price and address were fetched.
+ */
+public final class CarVersion {
+
+    private final String eTag;
+    private final long lastModified;
+
+    public CarVersion(String eTag, long lastModified) {
+        this.eTag = eTag;
+        this.lastModified = lastModified;
+    }
+
+    /**
+     * Starts describing the version of cars returned with the given expansions.
+     * @param expand the remote information requested
+     * @return a builder to add each car to
+     */
+    static Builder builder(Set<Expansion> expand) {
+        return new Builder(expand);
+    }
+
+    /**
+     * Gets the weak entity tag of the cars, such as {@code W/"3f2a..."}.
+     * @return the entity tag
+     */
+    public String getETag() {
+        return eTag;
+    }
+
+    /**
+     * Gets the time the cars, or their remote information, last changed.
+     * @return milliseconds since the epoch, or -1 if unknown
+     */
+    public long getLastModified() {
+        return lastModified;
+    }
+
+    /**
+     * Accumulates the version of each car returned.
+     */
+    static final class Builder {
+
+        private final StringBuilder content = new StringBuilder();
+        private long lastModified = -1;
+
+        private Builder(Set<Expansion> expand) {
+            content.append(expand);
+        }
+
+        /**
+         * Adds a car as it is returned.
+         * @param car the stored car
+         * @param price the price the car is returned with
+         * @param location the location the car is returned with
+         * @param fetchedAt when the remote information was fetched, or null
+         *   if none was
+         * @return this builder
+         */
+        Builder add(Car car, String price, Location location, Instant fetchedAt) {
+            content.append('|').append(car.getId())
+                    .append(':').append(car.getVersion())
+                    .append(':').append(price)
+                    .append(':').append(location.getLat())
+                    .append(',').append(location.getLon())
+                    .append(',').append(location.getAddress())
+                    .append(',').append(location.getCity())
+                    .append(',').append(location.getState())
+                    .append(',').append(location.getZip());
+            if (car.getModifiedAt() != null) {
+                modified(car.getModifiedAt().atZone(ZoneId.systemDefault()).toInstant());
+            }
+            if (fetchedAt != null) {
+                modified(fetchedAt);
+            }
+            return this;
+        }
+
+        /**
+         * Records whether more cars follow the ones added, which changes
+         * the links returned with them.
+         * @param hasNext whether a next page exists
+         * @return this builder
+         */
+        Builder hasNext(boolean hasNext) {
+            content.append("|next:").append(hasNext);
+            return this;
+        }
+
+        CarVersion build() {
+            String digest = DigestUtils.md5DigestAsHex(content.toString().getBytes(StandardCharsets.UTF_8));
+            return new CarVersion("W/\"" + digest + "\"", lastModified);
+        }
+
+        private void modified(Instant instant) {
+            lastModified = Math.max(lastModified, instant.toEpochMilli());
+        }
+    }
+}
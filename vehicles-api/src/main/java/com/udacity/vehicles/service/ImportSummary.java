@@ -0,0 +1,128 @@
+package com.udacity.vehicles.service;
+
+import java.util.List;
+import java.util.Locale;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonValue;
+
+/**
+ * Sums up an import of cars: how many were received and created, how
+ * fast, and the result of each of them in the order they were received.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public final class ImportSummary {
+
+    private final int received;
+    private final int created;
+    private final int failed;
+    private final long elapsedMillis;
+    private final double rowsPerSecond;
+    private final String aborted;
+    private final List<Item> results;
+
+    ImportSummary(int received, int created, long elapsedMillis, String aborted, List<Item> results) {
+        this.received = received;
+        this.created = created;
+        this.failed = received - created;
+        this.elapsedMillis = elapsedMillis;
+        this.rowsPerSecond = elapsedMillis == 0 ? created : Math.round(created * 10000d / elapsedMillis) / 10d;
+        this.aborted = aborted;
+        this.results = results;
+    }
+
+    public int getReceived() {
+        return received;
+    }
+
+    public int getCreated() {
+        return created;
+    }
+
+    public int getFailed() {
+        return failed;
+    }
+
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+
+    /**
+     * Gets the number of cars created per second over the whole import,
+     * including reading and validating them.
+     * @return the import throughput
+     */
+    public double getRowsPerSecond() {
+        return rowsPerSecond;
+    }
+
+    /**
+     * Gets why the import stopped before the end of the input, if it did.
+     * @return the reason, or null if the whole input was read
+     */
+    public String getAborted() {
+        return aborted;
+    }
+
+    public List<Item> getResults() {
+        return results;
+    }
+
+    /**
+     * Outcome of importing one car.
+     */
+    public enum Status {
+
+        CREATED,
+        INVALID,
+        FAILED;
+
+        @JsonValue
+        public String getName() {
+            return name().toLowerCase(Locale.ROOT);
+        }
+    }
+
+    /**
+     * Holds the result of importing one car.
+     */
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public static final class Item {
+
+        private final int index;
+        private final Status status;
+        private final Long id;
+        private final List<String> errors;
+
+        Item(int index, Status status, Long id, List<String> errors) {
+            this.index = index;
+            this.status = status;
+            this.id = id;
+            this.errors = errors;
+        }
+
+        /**
+         * Gets the position of the car in the input.
+         * @return the position, from 0
+         */
+        public int getIndex() {
+            return index;
+        }
+
+        public Status getStatus() {
+            return status;
+        }
+
+        /**
+         * Gets the ID the car was created with.
+         * @return the ID, or null if the car was not created
+         */
+        public Long getId() {
+            return id;
+        }
+
+        public List<String> getErrors() {
+            return errors;
+        }
+    }
+}
@@ -0,0 +1,215 @@
+package com.udacity.vehicles.service;
+
+import java.text.MessageFormat;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import javax.annotation.PreDestroy;
+
+import com.udacity.vehicles.client.maps.MapsClient;
+import com.udacity.vehicles.client.prices.PriceClient;
+import com.udacity.vehicles.domain.Location;
+import com.udacity.vehicles.domain.car.Car;
+import com.udacity.vehicles.domain.car.CarRepository;
+import com.udacity.vehicles.domain.car.Expansion;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.stereotype.Service;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * Implements the car service for the reactive API, returning vehicles
+ * as they become available instead of holding a thread per request.
+ *
+ * Location and price are looked up with non-blocking calls. The
+ * repository is JDBC based, so its queries run on a small pool sized
+ * like the connection pool, where waiting for a connection is all they
+ * can block on. Writes go through the {@link CarService} on that pool,
+ * and the saved car is then enriched without blocking, like a read.
+ */
+@Service
+@Profile("reactive")
+public class ReactiveCarService {
+
+    private static final Logger log = LoggerFactory.getLogger(ReactiveCarService.class);
+
+    private final CarRepository repository;
+    private final CarService carService;
+    private final MapsClient maps;
+    private final PriceClient pricing;
+    private final Duration timeout;
+    private final int exportWindowSize;
+    private final boolean persistAddress;
+    private final Scheduler jdbc;
+
+    public ReactiveCarService(CarRepository repository, CarService carService,
+            MapsClient maps, PriceClient pricing,
+            @Value("${vehicles.enrichment.timeout-ms:5000}") long timeoutMillis,
+            @Value("${vehicles.export.window-size:100}") int exportWindowSize,
+            @Value("${vehicles.location.persist-address:true}") boolean persistAddress,
+            @Value("${vehicles.reactive.jdbc-threads:10}") int jdbcThreads) {
+        this.repository = repository;
+        this.carService = carService;
+        this.maps = maps;
+        this.pricing = pricing;
+        this.timeout = Duration.ofMillis(timeoutMillis);
+        this.exportWindowSize = Math.max(1, exportWindowSize);
+        this.persistAddress = persistAddress;
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, jdbcThreads), new JdbcThreadFactory());
+        this.jdbc = Schedulers.fromExecutorService(executor);
+    }
+
+    /**
+     * Gathers one page of vehicles, ordered by ID
+     * @param after ID of the last vehicle of the previous page, or null for the first page
+     * @param limit maximum number of vehicles in the page
+     * @param expand the remote information to include for each vehicle
+     * @return the vehicles in the page, including the requested location
+     *   and price information, and whether more vehicles follow
+     */
+    public Mono<Slice<Car>> list(Long after, int limit, Set<Expansion> expand) {
+        return query(() -> repository.findByIdGreaterThanOrderByIdAsc(
+                        after == null ? Long.MIN_VALUE : after, PageRequest.of(0, limit)))
+                .flatMap(cars -> enrich(cars.getContent(), expand).thenReturn(cars));
+    }
+
+    /**
+     * Gets every vehicle, including location and price, in ID order. Pages
+     * are read and enriched as the subscriber requests more vehicles.
+     * @return all vehicles in the repository
+     */
+    public Flux<Car> export() {
+        return list(null, exportWindowSize, Expansion.all())
+                .expand(cars -> cars.hasNext()
+                        ? list(cars.getContent().get(cars.getNumberOfElements() - 1).getId(),
+                                exportWindowSize, Expansion.all())
+                        : Mono.empty())
+                .flatMapIterable(Slice::getContent);
+    }
+
+    /**
+     * Gets car information by ID
+     * @param id the ID number of the car to gather information on
+     * @param expand the remote information to include
+     * @return the requested car's information, including the requested
+     *   location and price information, or an error if it does not exist
+     */
+    public Mono<Car> findById(Long id, Set<Expansion> expand) {
+        return query(() -> repository.findById(id).orElseThrow(() ->
+                        new CarNotFoundException(MessageFormat.format("Car {0} not found.", id))))
+                .flatMap(car -> enrich(Collections.singletonList(car), expand).thenReturn(car));
+    }
+
+    /**
+     * Either creates or updates a vehicle, based on prior existence of car.
+     * Only storing the car runs on the JDBC pool; its location and price
+     * are looked up afterwards, and an address that is persisted is
+     * stored once resolved, as when reading the car.
+     * @param car A car object, which can be either new or existing
+     * @return the new/updated car, including location and price
+     */
+    public Mono<Car> save(Car car) {
+        return query(() -> carService.persist(car, false))
+                .flatMap(saved -> enrich(Collections.singletonList(saved), Expansion.all()).thenReturn(saved));
+    }
+
+    /**
+     * Deletes a given car by ID
+     * @param id the ID number of the car to delete
+     * @return completes once the car is deleted, or errors if it does not exist
+     */
+    public Mono<Void> delete(Long id) {
+        return query(() -> {
+            carService.delete(id);
+            return id;
+        }).then();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        jdbc.dispose();
+    }
+
+    private <T> Mono<T> query(Callable<T> query) {
+        return Mono.fromCallable(query).subscribeOn(jdbc);
+    }
+
+    /**
+     * Looks up the requested locations and prices for the given cars
+     * concurrently, and applies them once both have arrived or the
+     * deadline has passed, so cars are never updated afterwards. When
+     * addresses are persisted, the ones resolved are then stored.
+     * @param cars the cars to enrich in place
+     * @param expand the remote information to look up
+     * @return completes once the cars are enriched
+     */
+    private Mono<Void> enrich(List<Car> cars, Set<Expansion> expand) {
+        List<Car> unresolved = persistAddress
+                ? cars.stream().filter(car -> !car.getLocation().isResolved()).collect(Collectors.toList())
+                : cars;
+
+        Mono<List<Location>> locations = expand.contains(Expansion.LOCATION) && !unresolved.isEmpty()
+                ? maps.getAddressesAsync(CarService.coordinates(unresolved))
+                        .timeout(timeout, deadline(Collections.emptyList(), "locations"))
+                : Mono.just(Collections.emptyList());
+        Mono<Map<Long, String>> prices = expand.contains(Expansion.PRICE) && !cars.isEmpty()
+                ? pricing.getPricesAsync(cars.stream().map(Car::getId).collect(Collectors.toList()))
+                        .timeout(timeout, deadline(Collections.emptyMap(), "prices"))
+                : Mono.just(Collections.emptyMap());
+
+        return Mono.zip(locations, prices)
+                .doOnNext(results -> {
+                    if (!results.getT1().isEmpty()) {
+                        CarService.applyLocations(unresolved, results.getT1());
+                    }
+                    if (!results.getT2().isEmpty()) {
+                        cars.forEach(car -> car.setPrice(results.getT2().get(car.getId())));
+                    }
+                    CarService.markOmitted(cars, expand);
+                })
+                .flatMap(results -> persistAddress && !results.getT1().isEmpty()
+                        ? query(() -> {
+                            carService.storeAddresses(unresolved);
+                            return unresolved;
+                        }).then()
+                        : Mono.<Void>empty())
+                .then();
+    }
+
+    private <T> Mono<T> deadline(T empty, String lookup) {
+        return Mono.fromSupplier(() -> {
+            log.warn("Enrichment lookup of {} missed the {} ms deadline", lookup, timeout.toMillis());
+            return empty;
+        });
+    }
+
+    private static class JdbcThreadFactory implements ThreadFactory {
+
+        private final AtomicInteger count = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "car-jdbc-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
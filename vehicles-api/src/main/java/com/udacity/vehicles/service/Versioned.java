@@ -0,0 +1,55 @@
+package com.udacity.vehicles.service;
+
+/**
+ * Holds what is returned to a client along with its version, or only the
+ * version when the client already has it.
+ * @param <T> the type of what is returned
+ */
+public final class Versioned<T> {
+
+    private final T value;
+    private final CarVersion version;
+
+    private Versioned(T value, CarVersion version) {
+        this.value = value;
+        this.version = version;
+    }
+
+    /**
+     * Holds a value to return.
+     * @param value what is returned
+     * @param version the version of the value
+     * @param <T> the type of the value
+     * @return the value with its version
+     */
+    public static <T> Versioned<T> of(T value, CarVersion version) {
+        return new Versioned<>(value, version);
+    }
+
+    /**
+     * Holds the version a client already has.
+     * @param version the current version
+     * @param <T> the type of what would be returned
+     * @return the version, without a value
+     */
+    public static <T> Versioned<T> notModified(CarVersion version) {
+        return new Versioned<>(null, version);
+    }
+
+    /**
+     * Tells whether the client already has the current version, in which
+     * case nothing needs to be returned but the version.
+     * @return true if there is no value to return
+     */
+    public boolean isNotModified() {
+        return value == null;
+    }
+
+    public T getValue() {
+        return value;
+    }
+
+    public CarVersion getVersion() {
+        return version;
+    }
+}
@@ -0,0 +1,119 @@
+package com.udacity.vehicles.api;
+
+import static org.hamcrest.Matchers.contains;
+import static org.junit.Assert.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.net.URI;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import com.jayway.jsonpath.JsonPath;
+import com.udacity.vehicles.domain.Condition;
+import com.udacity.vehicles.domain.Location;
+import com.udacity.vehicles.domain.car.Car;
+import com.udacity.vehicles.domain.car.Details;
+import com.udacity.vehicles.domain.manufacturer.Manufacturer;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.json.AutoConfigureJsonTesters;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.json.JacksonTester;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.web.reactive.function.client.WebClient;
+
+/**
+ * Implements testing of bulk imports through the CarController class,
+ * against the database.
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(properties = {"vehicles.render-cache.enabled=false", "vehicles.import.batch-size=2"})
+@AutoConfigureMockMvc
+@AutoConfigureJsonTesters
+public class CarBulkImportTest {
+
+    private static final double LAT = -33.856784;
+    private static final double LON = 151.215297;
+
+    @Autowired
+    private MockMvc mvc;
+
+    @Autowired
+    private JacksonTester<Car> json;
+
+    @MockBean(name = "maps")
+    private WebClient maps;
+
+    @MockBean(name = "pricing")
+    private WebClient pricing;
+
+    /**
+     * Tests that an import spanning several chunks reports every item in
+     * order, null items as invalid, and that the cars it created are
+     * found nearby.
+     * @throws Exception when the import or the search fails
+     */
+    @Test
+    public void importedCarsAreFoundNearby() throws Exception {
+        String car = json.write(getCar()).getJson();
+        MvcResult result = mvc.perform(
+                post(new URI("/cars/bulk"))
+                        .content("[" + car + ", null, " + car + ", " + car + "]")
+                        .contentType(MediaType.APPLICATION_JSON_UTF8)
+                        .accept(MediaType.APPLICATION_JSON_UTF8))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.received").value(4))
+                .andExpect(jsonPath("$.created").value(3))
+                .andExpect(jsonPath("$.results[*].index", contains(0, 1, 2, 3)))
+                .andExpect(jsonPath("$.results[*].status", contains("created", "invalid", "created", "created")))
+                .andReturn();
+        List<Number> created = JsonPath.read(result.getResponse().getContentAsString(),
+                "$.results[?(@.status == 'created')].id");
+
+        MvcResult near = mvc.perform(
+                get(new URI("/cars/near?lat=" + LAT + "&lon=" + LON + "&radiusKm=1&expand=none"))
+                        .accept(MediaType.APPLICATION_JSON_UTF8))
+                .andExpect(status().isOk())
+                .andReturn();
+        List<Number> found = JsonPath.read(near.getResponse().getContentAsString(), "$._embedded.cars[*].id");
+
+        assertEquals(ids(created), ids(found));
+    }
+
+    private static List<Long> ids(List<Number> ids) {
+        return ids.stream().map(Number::longValue).sorted().collect(Collectors.toList());
+    }
+
+    /**
+     * Creates an example Car object, parked away from the other tests' cars.
+     * @return an example Car object
+     */
+    private Car getCar() {
+        Car car = new Car();
+        car.setLocation(new Location(LAT, LON));
+        Details details = new Details();
+        details.setManufacturer(new Manufacturer(101, "Chevrolet"));
+        details.setModel("Impala");
+        details.setMileage(32280);
+        details.setExternalColor("white");
+        details.setBody("sedan");
+        details.setEngine("3.6L V6");
+        details.setFuelType("Gasoline");
+        details.setModelYear(2018);
+        details.setProductionYear(2018);
+        details.setNumberOfDoors(4);
+        car.setDetails(details);
+        car.setCondition(Condition.USED);
+        return car;
+    }
+}
@@ -1,48 +1,78 @@
 package com.udacity.vehicles.api;
 
+import static org.hamcrest.Matchers.containsString;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyDouble;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
 import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
+import static org.junit.Assert.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 import java.net.URI;
 import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
 
+import com.jayway.jsonpath.JsonPath;
 import com.udacity.vehicles.domain.Condition;
 import com.udacity.vehicles.domain.Location;
 import com.udacity.vehicles.domain.car.Car;
 import com.udacity.vehicles.domain.car.Details;
+import com.udacity.vehicles.domain.car.Expansion;
 import com.udacity.vehicles.domain.manufacturer.Manufacturer;
 import com.udacity.vehicles.service.CarService;
+import com.udacity.vehicles.service.CarVersion;
+import com.udacity.vehicles.service.Versioned;
 
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.skyscreamer.jsonassert.JSONAssert;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.domain.Sort;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.json.AutoConfigureJsonTesters;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.json.JacksonTester;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.test.context.junit4.SpringRunner;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.web.reactive.function.client.WebClient;
 
 /**
  * Implements testing of the CarController class.
  */
 @RunWith(SpringRunner.class)
-@SpringBootTest
+@SpringBootTest(properties = "vehicles.render-cache.enabled=false")
 @AutoConfigureMockMvc
 @AutoConfigureJsonTesters
 public class CarControllerTest {
 
+    private static final CarVersion VERSION = new CarVersion("W/\"v1\"", 1500000000000L);
+
     @Autowired
     private MockMvc mvc;
 
@@ -72,8 +102,10 @@ public class CarControllerTest {
         Car car = getCar();
         car.setId(1L);
         given(carService.save(any())).willReturn(car);
-        given(carService.findById(any())).willReturn(car);
+        given(carService.findById(any(), any(), any())).willReturn(Versioned.of(car, VERSION));
         given(carService.list()).willReturn(Collections.singletonList(car));
+        given(carService.list(any(), anyInt(), any(), any())).willReturn(
+                Versioned.of(new SliceImpl<>(Collections.singletonList(car)), VERSION));
     }
 
     /**
@@ -92,6 +124,52 @@ public class CarControllerTest {
                 .andExpect(status().isCreated());
     }
 
+    /**
+     * Tests that a bulk import creates the valid cars and reports the
+     * others, in the order they were sent.
+     * @throws Exception when the import request fails
+     */
+    @Test
+    public void importCars() throws Exception {
+        Car unknownManufacturer = getCar();
+        unknownManufacturer.getDetails().setManufacturer(new Manufacturer(999, "Unknown"));
+        String body = json.write(getCar()).getJson().replace("\n", "") + "\n"
+                + json.write(unknownManufacturer).getJson().replace("\n", "") + "\n"
+                + "{\"condition\":\"BROKEN\"}\n";
+
+        mvc.perform(
+                post(new URI("/cars/bulk"))
+                        .content(body)
+                        .contentType(CarController.APPLICATION_NDJSON_VALUE)
+                        .accept(MediaType.APPLICATION_JSON_UTF8))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.received").value(3))
+                .andExpect(jsonPath("$.created").value(1))
+                .andExpect(jsonPath("$.failed").value(2))
+                .andExpect(jsonPath("$.results[0].status").value("created"))
+                .andExpect(jsonPath("$.results[0].id").isNumber())
+                .andExpect(jsonPath("$.results[1].status").value("invalid"))
+                .andExpect(jsonPath("$.results[1].errors[0]").value(containsString("999")))
+                .andExpect(jsonPath("$.results[2].status").value("invalid"));
+    }
+
+    /**
+     * Tests that malformed JSON stops a bulk import without failing it.
+     * @throws Exception when the import request fails
+     */
+    @Test
+    public void importCarsMalformed() throws Exception {
+        mvc.perform(
+                post(new URI("/cars/bulk"))
+                        .content("[" + json.write(getCar()).getJson() + ", {\"condition\":")
+                        .contentType(MediaType.APPLICATION_JSON_UTF8)
+                        .accept(MediaType.APPLICATION_JSON_UTF8))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.received").value(1))
+                .andExpect(jsonPath("$.created").value(1))
+                .andExpect(jsonPath("$.aborted").value(containsString("Malformed JSON")));
+    }
+
     /**
      * Tests if the read operation appropriately returns a list of vehicles.
      * @throws Exception if the read operation of the vehicle list fails
@@ -105,9 +183,154 @@ public class CarControllerTest {
                 get(new URI("/cars"))
                         .contentType(MediaType.APPLICATION_JSON_UTF8)
                         .accept(MediaType.APPLICATION_JSON_UTF8))
-                    .andExpect(content().json("[" + json.write(car).getJson() + "]"));
+                    .andExpect(content().json("{\"_embedded\":{\"cars\":[" + json.write(car).getJson() + "]}}"))
+                    .andExpect(jsonPath("$._links.next").doesNotExist());
+
+        verify(carService, times(1)).list(isNull(), eq(50), eq(Expansion.all()), any());
+    }
+
+    /**
+     * Tests that a page followed by more vehicles links to the next page,
+     * and that the cursor of that link resumes after the last vehicle.
+     * @throws Exception if the read operation of the vehicle list fails
+     */
+    @Test
+    public void listCarsNextPage() throws Exception {
+        Car car = getCar();
+        car.setId(7L);
+        given(carService.list(any(), anyInt(), any(), any())).willReturn(Versioned.of(
+                new SliceImpl<>(Collections.singletonList(car), PageRequest.of(0, 1), true), VERSION));
+
+        String next = mvc.perform(
+                get(new URI("/cars?limit=1"))
+                        .accept(MediaType.APPLICATION_JSON_UTF8))
+                    .andExpect(jsonPath("$._links.next.href", containsString("limit=1")))
+                    .andReturn().getResponse().getContentAsString();
+
+        String after = JsonPath.<String>read(next, "$._links.next.href")
+                .replaceAll(".*after=([^&]+).*", "$1");
+
+        mvc.perform(get(new URI("/cars?limit=1&after=" + after)));
+
+        verify(carService, times(1)).list(eq(7L), eq(1), any(), any());
+    }
+
+    /**
+     * Tests that a malformed cursor is rejected.
+     * @throws Exception if the read operation of the vehicle list fails
+     */
+    @Test
+    public void listCarsInvalidCursor() throws Exception {
+        mvc.perform(
+                get(new URI("/cars?after=not-a-cursor"))
+                        .accept(MediaType.APPLICATION_JSON_UTF8))
+                    .andExpect(status().isBadRequest());
+    }
+
+    /**
+     * Tests that a search hands its page and order to the service, and
+     * returns the matching vehicles with the page metadata and links.
+     * @throws Exception if the search fails
+     */
+    @Test
+    public void searchCars() throws Exception {
+        Car car = getCar();
+        car.setId(1L);
+        given(carService.search(any(), any(), any())).willReturn(new PageImpl<>(List.of(car),
+                PageRequest.of(0, 1, Sort.by("details.mileage", "id")), 3));
+
+        mvc.perform(
+                get(new URI("/cars/search?condition=USED&minModelYear=2015&sort=mileage&size=1&expand=none"))
+                        .accept(MediaType.APPLICATION_JSON_UTF8))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$._embedded.cars[0].id").value(1))
+                    .andExpect(jsonPath("$.page.totalElements").value(3))
+                    .andExpect(jsonPath("$._links.next.href", containsString("page=1")))
+                    .andExpect(jsonPath("$._links.next.href", containsString("condition=USED")));
+
+        ArgumentCaptor<Pageable> pageable = ArgumentCaptor.forClass(Pageable.class);
+        verify(carService).search(any(), pageable.capture(), eq(EnumSet.noneOf(Expansion.class)));
+        assertEquals(1, pageable.getValue().getPageSize());
+        assertEquals(Sort.by("details.mileage", "id"), pageable.getValue().getSort());
+    }
+
+    /**
+     * Tests that sorting by an attribute that cannot be searched is rejected.
+     * @throws Exception if the search fails
+     */
+    @Test
+    public void searchCarsInvalidSort() throws Exception {
+        mvc.perform(
+                get(new URI("/cars/search?sort=engine"))
+                        .accept(MediaType.APPLICATION_JSON_UTF8))
+                    .andExpect(status().isBadRequest());
+    }
+
+    /**
+     * Tests that vehicles near a point are returned with their distance.
+     * @throws Exception if the proximity search fails
+     */
+    @Test
+    public void nearCars() throws Exception {
+        Car car = getCar();
+        car.setId(1L);
+        car.setDistanceKm(1.25);
+        given(carService.near(anyDouble(), anyDouble(), any(), anyInt(), any())).willReturn(List.of(car));
+
+        mvc.perform(
+                get(new URI("/cars/near?lat=40.73&lon=-73.93&k=10&expand=none"))
+                        .accept(MediaType.APPLICATION_JSON_UTF8))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$._embedded.cars[0].distanceKm").value(1.25))
+                    .andExpect(jsonPath("$._links.self.href", containsString("k=10")));
 
-        verify(carService, times(1)).list();
+        verify(carService).near(eq(40.73), eq(-73.93), isNull(), eq(10), eq(EnumSet.noneOf(Expansion.class)));
+    }
+
+    /**
+     * Tests that a proximity search needs a valid point, and a radius or a
+     * count no greater than the maximum.
+     * @throws Exception if the proximity search fails
+     */
+    @Test
+    public void nearCarsInvalid() throws Exception {
+        for (String query : List.of("lat=40.73&lon=-73.93", "lat=91&lon=0&k=1", "lat=0&lon=0&radiusKm=-1",
+                "lat=0&lon=0&k=0", "lat=0&lon=0&k=501", "lon=0&k=1")) {
+            mvc.perform(
+                    get(new URI("/cars/near?" + query))
+                            .accept(MediaType.APPLICATION_JSON_UTF8))
+                        .andExpect(status().isBadRequest());
+        }
+    }
+
+    /**
+     * Tests that the vehicle stream writes one JSON line per vehicle,
+     * with its own async timeout.
+     * @throws Exception if the stream of vehicles fails
+     */
+    @Test
+    public void streamCars() throws Exception {
+        Car car = getCar();
+        car.setId(1L);
+        doAnswer(invocation -> {
+            Consumer<Car> sink = invocation.getArgument(0);
+            sink.accept(car);
+            sink.accept(car);
+            return null;
+        }).when(carService).export(any());
+
+        MvcResult result = mvc.perform(get(new URI("/cars/stream")))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        assertEquals(3600000L, result.getRequest().getAsyncContext().getTimeout());
+
+        mvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith("application/x-ndjson"));
+
+        String[] lines = result.getResponse().getContentAsString().split("\n");
+        assertEquals(2, lines.length);
+        JSONAssert.assertEquals(json.write(car).getJson(), lines[0], false);
     }
 
     /**
@@ -124,7 +347,117 @@ public class CarControllerTest {
                         .accept(MediaType.APPLICATION_JSON_UTF8))
                     .andExpect(content().json(json.write(car).getJson()));
                     
-        verify(carService, times(1)).findById(1L);
+        verify(carService, times(1)).findById(eq(1L), eq(Expansion.all()), any());
+    }
+
+    /**
+     * Tests that only the requested information is looked up for a car.
+     * @throws Exception if the read operation for a single car fails
+     */
+    @Test
+    public void findCarWithoutExpansion() throws Exception {
+        mvc.perform(
+                get(new URI("/cars/1?expand=none"))
+                        .accept(MediaType.APPLICATION_JSON_UTF8))
+                    .andExpect(status().isOk());
+        mvc.perform(
+                get(new URI("/cars/1?expand=price"))
+                        .accept(MediaType.APPLICATION_JSON_UTF8))
+                    .andExpect(status().isOk());
+
+        verify(carService, times(1)).findById(eq(1L), eq(EnumSet.noneOf(Expansion.class)), any());
+        verify(carService, times(1)).findById(eq(1L), eq(EnumSet.of(Expansion.PRICE)), any());
+    }
+
+    /**
+     * Tests that fields left out of a car are listed in its representation.
+     * @throws Exception if the read operation for a single car fails
+     */
+    @Test
+    public void findCarShowsOmittedFields() throws Exception {
+        Car car = getCar();
+        car.setId(1L);
+        car.setOmitted(EnumSet.of(Expansion.PRICE, Expansion.LOCATION));
+        given(carService.findById(any(), any(), any())).willReturn(Versioned.of(car, VERSION));
+
+        mvc.perform(
+                get(new URI("/cars/1?expand=none"))
+                        .accept(MediaType.APPLICATION_JSON_UTF8))
+                    .andExpect(jsonPath("$.omitted[0]").value("price"))
+                    .andExpect(jsonPath("$.omitted[1]").value("location"));
+    }
+
+    /**
+     * Tests that a car is returned with its entity tag and modification time.
+     * @throws Exception if the read operation for a single car fails
+     */
+    @Test
+    public void findCarReturnsVersion() throws Exception {
+        mvc.perform(
+                get(new URI("/cars/1"))
+                        .accept(MediaType.APPLICATION_JSON_UTF8))
+                    .andExpect(status().isOk())
+                    .andExpect(header().string(HttpHeaders.ETAG, VERSION.getETag()))
+                    .andExpect(header().dateValue(HttpHeaders.LAST_MODIFIED, VERSION.getLastModified()));
+    }
+
+    /**
+     * Tests that a client that already has the current version of a car
+     * is told so, without receiving it again.
+     * @throws Exception if the read operation for a single car fails
+     */
+    @Test
+    public void findCarNotModified() throws Exception {
+        given(carService.findById(any(), any(), any())).willAnswer(invocation -> {
+            Predicate<CarVersion> current = invocation.getArgument(2);
+            return current.test(VERSION) ? Versioned.notModified(VERSION) : Versioned.of(getCar(), VERSION);
+        });
+
+        mvc.perform(
+                get(new URI("/cars/1"))
+                        .header(HttpHeaders.IF_NONE_MATCH, VERSION.getETag())
+                        .accept(MediaType.APPLICATION_JSON_UTF8))
+                    .andExpect(status().isNotModified())
+                    .andExpect(header().string(HttpHeaders.ETAG, VERSION.getETag()))
+                    .andExpect(content().string(""));
+        mvc.perform(
+                get(new URI("/cars/1"))
+                        .header(HttpHeaders.IF_NONE_MATCH, "W/\"stale\"")
+                        .accept(MediaType.APPLICATION_JSON_UTF8))
+                    .andExpect(status().isOk());
+    }
+
+    /**
+     * Tests that a client that already has the current version of a page
+     * of cars is told so, without receiving it again.
+     * @throws Exception if the read operation of the vehicle list fails
+     */
+    @Test
+    public void listCarsNotModified() throws Exception {
+        given(carService.list(any(), anyInt(), any(), any())).willAnswer(invocation -> {
+            Predicate<CarVersion> current = invocation.getArgument(3);
+            return current.test(VERSION)
+                    ? Versioned.notModified(VERSION)
+                    : Versioned.of(new SliceImpl<>(Collections.singletonList(getCar())), VERSION);
+        });
+
+        mvc.perform(
+                get(new URI("/cars"))
+                        .header(HttpHeaders.IF_MODIFIED_SINCE, "Fri, 14 Jul 2017 02:40:00 GMT")
+                        .accept(MediaType.APPLICATION_JSON_UTF8))
+                    .andExpect(status().isNotModified());
+    }
+
+    /**
+     * Tests that an unknown expansion is rejected.
+     * @throws Exception if the read operation for a single car fails
+     */
+    @Test
+    public void findCarInvalidExpansion() throws Exception {
+        mvc.perform(
+                get(new URI("/cars/1?expand=owner"))
+                        .accept(MediaType.APPLICATION_JSON_UTF8))
+                    .andExpect(status().isBadRequest());
     }
 
     /**
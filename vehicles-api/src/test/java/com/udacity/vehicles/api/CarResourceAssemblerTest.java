@@ -0,0 +1,81 @@
+package com.udacity.vehicles.api;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import com.udacity.vehicles.domain.car.Car;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.hateoas.Resource;
+import org.springframework.hateoas.Resources;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+/**
+ * Implements testing of the CarResourceAssembler class.
+ */
+public class CarResourceAssemblerTest {
+
+    @Before
+    public void setup() {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/cars");
+        request.setServerName("vehicles.example.com");
+        request.setServerPort(8080);
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+    }
+
+    @After
+    public void tearDown() {
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    /**
+     * Tests that precomputed links are the same as the ones built through
+     * the controller.
+     */
+    @Test
+    public void precomputedLinksMatchBuiltLinks() {
+        Car car = car(42L);
+
+        Resource<Car> built = new CarResourceAssembler(false, true).toResource(car);
+        Resource<Car> precomputed = new CarResourceAssembler(true, true).toResource(car);
+
+        assertEquals(built.getLinks(), precomputed.getLinks());
+        assertEquals("http://vehicles.example.com:8080/cars/42", precomputed.getId().expand().getHref());
+    }
+
+    /**
+     * Tests that the cars of a page can leave out their link to the list.
+     */
+    @Test
+    public void omitsCarsLinkOfItems() {
+        SliceImpl<Car> cars = new SliceImpl<>(Arrays.asList(car(1L), car(2L)), PageRequest.of(0, 2), true);
+
+        Resources<Resource<Car>> page = new CarResourceAssembler(true, false).toResources(cars, null, 2, null);
+
+        List<Resource<Car>> items = new ArrayList<>(page.getContent());
+        assertEquals(2, items.size());
+        for (Resource<Car> item : items) {
+            assertNotNull(item.getLink("self"));
+            assertNull(item.getLink("cars"));
+        }
+        assertNotNull(page.getLink("next"));
+        assertNotNull(new CarResourceAssembler(true, false).toResource(car(1L)).getLink("cars"));
+    }
+
+    private static Car car(Long id) {
+        Car car = new Car();
+        car.setId(id);
+        return car;
+    }
+}
@@ -0,0 +1,126 @@
+package com.udacity.vehicles.api;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+import java.util.Collections;
+
+import com.udacity.vehicles.domain.Condition;
+import com.udacity.vehicles.domain.Location;
+import com.udacity.vehicles.domain.car.Car;
+import com.udacity.vehicles.domain.car.Details;
+import com.udacity.vehicles.domain.car.Expansion;
+import com.udacity.vehicles.domain.manufacturer.Manufacturer;
+import com.udacity.vehicles.service.ReactiveCarService;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Implements testing of the ReactiveCarController class.
+ */
+public class ReactiveCarControllerTest {
+
+    private ReactiveCarService carService;
+    private WebTestClient client;
+
+    /**
+     * Creates pre-requisites for testing, such as an example car.
+     */
+    @Before
+    public void setup() {
+        Car car = getCar();
+        car.setId(1L);
+        carService = mock(ReactiveCarService.class);
+        given(carService.findById(any(), any())).willReturn(Mono.just(car));
+        given(carService.list(any(), anyInt(), any())).willReturn(Mono.just(
+                new SliceImpl<>(Collections.singletonList(car), PageRequest.of(0, 1), true)));
+        given(carService.export()).willReturn(Flux.just(car));
+        client = WebTestClient.bindToController(new ReactiveCarController(carService, 50, 500)).build();
+    }
+
+    /**
+     * Tests that a page of vehicles links to the next one.
+     */
+    @Test
+    public void listCars() {
+        client.get().uri("/cars?limit=1")
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().valueEquals(HttpHeaders.LINK,
+                        "</cars?after=" + CarCursor.encode(1L) + "&limit=1>; rel=\"next\"")
+                .expectBody()
+                .jsonPath("$[0].id").isEqualTo(1)
+                .jsonPath("$[0].details.model").isEqualTo("Impala");
+
+        verify(carService).list(null, 1, Expansion.all());
+    }
+
+    /**
+     * Tests that all vehicles are streamed, one JSON document per line.
+     */
+    @Test
+    public void streamCars() {
+        client.get().uri("/cars/stream")
+                .accept(MediaType.APPLICATION_STREAM_JSON)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBodyList(Car.class).hasSize(1);
+    }
+
+    /**
+     * Tests the read operation for a single car by ID.
+     */
+    @Test
+    public void findCar() {
+        client.get().uri("/cars/1?expand=price")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.id").isEqualTo(1);
+
+        verify(carService).findById(eq(1L), eq(Expansion.parse("price")));
+    }
+
+    /**
+     * Tests that unknown expansions are rejected.
+     */
+    @Test
+    public void findCarInvalidExpansion() {
+        client.get().uri("/cars/1?expand=owner")
+                .exchange()
+                .expectStatus().isBadRequest();
+    }
+
+    private Car getCar() {
+        Car car = new Car();
+        car.setLocation(new Location(40.730610, -73.935242));
+        Details details = new Details();
+        Manufacturer manufacturer = new Manufacturer(101, "Chevrolet");
+        details.setManufacturer(manufacturer);
+        details.setModel("Impala");
+        details.setMileage(32280);
+        details.setExternalColor("white");
+        details.setBody("sedan");
+        details.setEngine("3.6L V6");
+        details.setFuelType("Gasoline");
+        details.setModelYear(2018);
+        details.setProductionYear(2018);
+        details.setNumberOfDoors(4);
+        car.setDetails(details);
+        car.setCondition(Condition.USED);
+        return car;
+    }
+}
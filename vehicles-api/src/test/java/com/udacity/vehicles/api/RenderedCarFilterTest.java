@@ -0,0 +1,288 @@
+package com.udacity.vehicles.api;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPInputStream;
+
+import javax.servlet.FilterChain;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import com.udacity.vehicles.client.Cached;
+import com.udacity.vehicles.client.maps.MapsClient;
+import com.udacity.vehicles.client.prices.PriceClient;
+import com.udacity.vehicles.domain.Location;
+import com.udacity.vehicles.domain.car.Car;
+import com.udacity.vehicles.domain.car.Expansion;
+import com.udacity.vehicles.service.CarChangedEvent;
+import com.udacity.vehicles.service.CarVersion;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+/**
+ * Implements testing of the RenderedCarFilter class, along with the
+ * RenderedCarCache it serves from.
+ */
+public class RenderedCarFilterTest {
+
+    private static final CarVersion VERSION = new CarVersion("W/\"v1\"", 1500000000000L);
+    private static final String BODY = "{\"id\":1,\"details\":\"" + "x".repeat(2000) + "\"}";
+
+    private PriceClient pricing;
+    private RenderedCarCache cache;
+    private RenderedCarFilter filter;
+    private AtomicInteger renders;
+    private Runnable duringRender;
+
+    @Before
+    public void setup() {
+        pricing = mock(PriceClient.class);
+        cache = new RenderedCarCache(pricing, mock(MapsClient.class), new SimpleMeterRegistry(),
+                true, 1_000_000, Duration.ofMinutes(10), true, Duration.ofMinutes(5), Duration.ofHours(24), false);
+        filter = new RenderedCarFilter(cache);
+        renders = new AtomicInteger();
+        duringRender = () -> { };
+    }
+
+    /**
+     * Tests that a rendered car is answered again without reaching the controller.
+     */
+    @Test
+    public void answersFromCache() throws Exception {
+        MockHttpServletResponse first = perform(request("none"));
+        MockHttpServletResponse second = perform(request("none"));
+
+        assertEquals(1, renders.get());
+        assertEquals(BODY, second.getContentAsString());
+        assertEquals(first.getContentType(), second.getContentType());
+        assertEquals(VERSION.getETag(), second.getHeader(HttpHeaders.ETAG));
+    }
+
+    /**
+     * Tests that each expansion is kept as its own rendering.
+     */
+    @Test
+    public void keepsRenderingPerExpansion() throws Exception {
+        given(pricing.peekPrice(1L)).willReturn(new Cached<>("USD 1", Instant.now()));
+
+        perform(request("none"));
+        perform(request("price"));
+        perform(request("price"));
+
+        assertEquals(2, renders.get());
+    }
+
+    /**
+     * Tests that a kept rendering honours If-None-Match.
+     */
+    @Test
+    public void answersNotModifiedFromCache() throws Exception {
+        perform(request("none"));
+        MockHttpServletRequest conditional = request("none");
+        conditional.addHeader(HttpHeaders.IF_NONE_MATCH, VERSION.getETag());
+
+        MockHttpServletResponse response = perform(conditional);
+
+        assertEquals(304, response.getStatus());
+        assertEquals(0, response.getContentAsByteArray().length);
+        assertEquals(1, renders.get());
+    }
+
+    /**
+     * Tests that the gzipped copy is sent to clients accepting it.
+     */
+    @Test
+    public void sendsGzippedCopy() throws Exception {
+        perform(request("none"));
+        MockHttpServletRequest gzipped = request("none");
+        gzipped.addHeader(HttpHeaders.ACCEPT_ENCODING, "gzip, deflate");
+
+        MockHttpServletResponse response = perform(gzipped);
+
+        assertEquals("gzip", response.getHeader(HttpHeaders.CONTENT_ENCODING));
+        assertArrayEquals(BODY.getBytes(StandardCharsets.UTF_8), gunzip(response.getContentAsByteArray()));
+    }
+
+    /**
+     * Tests that the plain copy is sent to clients refusing gzip with a
+     * zero quality.
+     */
+    @Test
+    public void sendsPlainCopyWhenGzipIsRefused() throws Exception {
+        perform(request("none"));
+        MockHttpServletRequest refusing = request("none");
+        refusing.addHeader(HttpHeaders.ACCEPT_ENCODING, "gzip;q=0, deflate");
+
+        MockHttpServletResponse response = perform(refusing);
+
+        assertNull(response.getHeader(HttpHeaders.CONTENT_ENCODING));
+        assertArrayEquals(BODY.getBytes(StandardCharsets.UTF_8), response.getContentAsByteArray());
+    }
+
+    /**
+     * Tests that Accept-Encoding is read with the quality of each coding.
+     */
+    @Test
+    public void readsGzipQuality() {
+        assertTrue(RenderedCarFilter.acceptsGzip(encoding("gzip")));
+        assertTrue(RenderedCarFilter.acceptsGzip(encoding("deflate, GZIP;q=0.5")));
+        assertTrue(RenderedCarFilter.acceptsGzip(encoding("*")));
+        assertTrue(RenderedCarFilter.acceptsGzip(encoding("x-gzip; q=1.0")));
+        assertFalse(RenderedCarFilter.acceptsGzip(encoding("gzip;q=0")));
+        assertFalse(RenderedCarFilter.acceptsGzip(encoding("gzip;q=0.000, *")));
+        assertFalse(RenderedCarFilter.acceptsGzip(encoding("*;q=0")));
+        assertFalse(RenderedCarFilter.acceptsGzip(encoding("deflate, br")));
+        assertFalse(RenderedCarFilter.acceptsGzip(encoding("gzipx")));
+        assertFalse(RenderedCarFilter.acceptsGzip(encoding("gzip;q=high")));
+        assertFalse(RenderedCarFilter.acceptsGzip(request("none")));
+    }
+
+    /**
+     * Tests that the renderings of a car are dropped once it changes.
+     */
+    @Test
+    public void dropsChangedCar() throws Exception {
+        perform(request("none"));
+        cache.onCarChanged(new CarChangedEvent(1L, null));
+        perform(request("none"));
+
+        assertEquals(2, renders.get());
+    }
+
+    /**
+     * Tests that a rendering started before the car changed is not kept.
+     */
+    @Test
+    public void skipsRenderingOlderThanChange() throws Exception {
+        duringRender = () -> cache.onCarChanged(new CarChangedEvent(1L, null));
+        perform(request("none"));
+        duringRender = () -> { };
+        perform(request("none"));
+        perform(request("none"));
+
+        assertEquals(2, renders.get());
+    }
+
+    /**
+     * Tests that a change to one car neither drops the renderings of
+     * another car nor keeps them from being kept while in progress.
+     */
+    @Test
+    public void keepsOtherCarsWhenOneChanges() throws Exception {
+        perform(request("none", 2L));
+        duringRender = () -> cache.onCarChanged(new CarChangedEvent(1L, null));
+        perform(request("none", 3L));
+        duringRender = () -> { };
+        perform(request("none", 2L));
+        perform(request("none", 3L));
+
+        assertEquals(2, renders.get());
+    }
+
+    /**
+     * Tests that a car is not kept when its price is no longer cached,
+     * and that it expires along with the cached price.
+     */
+    @Test
+    public void followsPriceExpiry() throws Exception {
+        perform(request("price"));
+        perform(request("price"));
+        assertEquals(2, renders.get());
+
+        given(pricing.peekPrice(1L)).willReturn(new Cached<>("USD 1", Instant.now().minus(Duration.ofMinutes(5))));
+        perform(request("price"));
+        perform(request("price"));
+        assertEquals(4, renders.get());
+
+        given(pricing.peekPrice(1L)).willReturn(new Cached<>("USD 1", Instant.now()));
+        perform(request("price"));
+        perform(request("price"));
+        assertEquals(5, renders.get());
+    }
+
+    /**
+     * Tests that the endpoint describes and flushes the cache.
+     */
+    @Test
+    public void flushesThroughEndpoint() throws Exception {
+        RenderedCarCacheEndpoint endpoint = new RenderedCarCacheEndpoint(cache);
+        perform(request("none"));
+        perform(request("none"));
+
+        assertEquals(1L, endpoint.cache().get("hits"));
+        assertEquals(1, endpoint.car(1L).size());
+
+        endpoint.flush();
+        assertEquals(0, endpoint.car(1L).size());
+        perform(request("none"));
+        assertEquals(2, renders.get());
+    }
+
+    private MockHttpServletResponse perform(MockHttpServletRequest request) throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, render());
+        return response;
+    }
+
+    private FilterChain render() {
+        return (request, response) -> {
+            renders.incrementAndGet();
+            Set<Expansion> expand = Expansion.parse(request.getParameter("expand"));
+            cache.retain((HttpServletRequest) request, car(), expand, VERSION);
+            duringRender.run();
+            HttpServletResponse http = (HttpServletResponse) response;
+            http.setContentType(MediaType.APPLICATION_JSON_UTF8_VALUE);
+            http.setHeader(HttpHeaders.ETAG, VERSION.getETag());
+            http.getOutputStream().write(BODY.getBytes(StandardCharsets.UTF_8));
+        };
+    }
+
+    private static MockHttpServletRequest request(String expand) {
+        return request(expand, 1L);
+    }
+
+    private static MockHttpServletRequest request(String expand, long id) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/cars/" + id);
+        request.setParameter("expand", expand);
+        return request;
+    }
+
+    private static Car car() {
+        Car car = new Car();
+        car.setId(1L);
+        car.setLocation(new Location(40.730610, -73.935242));
+        return car;
+    }
+
+    private static MockHttpServletRequest encoding(String accepted) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/cars/1");
+        request.addHeader(HttpHeaders.ACCEPT_ENCODING, accepted);
+        return request;
+    }
+
+    private static byte[] gunzip(byte[] gzipped) throws IOException {
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(gzipped))) {
+            return in.readAllBytes();
+        }
+    }
+}
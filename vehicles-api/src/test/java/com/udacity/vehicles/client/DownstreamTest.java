@@ -0,0 +1,71 @@
+package com.udacity.vehicles.client;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import io.github.resilience4j.bulkhead.BulkheadFullException;
+import io.github.resilience4j.bulkhead.BulkheadRegistry;
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+
+import org.junit.Test;
+
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+
+/**
+ * Implements testing of the Downstream class.
+ */
+public class DownstreamTest {
+
+    private final AtomicInteger calls = new AtomicInteger();
+
+    /**
+     * Tests that an open circuit rejects calls without subscribing to them.
+     */
+    @Test
+    public void openCircuitRejectsWithoutCalling() {
+        Downstream downstream = downstream(new DownstreamProperties());
+        downstream.getCircuitBreaker().transitionToOpenState();
+
+        try {
+            downstream.block(call());
+            fail("Expected the call to be rejected");
+        } catch (CallNotPermittedException e) {
+            assertEquals(0, calls.get());
+        }
+    }
+
+    /**
+     * Tests that calls beyond the concurrency limit are rejected right away,
+     * and accepted again once the calls in flight complete.
+     */
+    @Test
+    public void bulkheadRejectsExtraCalls() {
+        DownstreamProperties properties = new DownstreamProperties();
+        properties.setMaxConcurrentCalls(1);
+        Downstream downstream = downstream(properties);
+
+        Disposable inFlight = downstream.guard(Mono.never()).subscribe();
+        try {
+            downstream.block(call());
+            fail("Expected the call to be rejected");
+        } catch (BulkheadFullException e) {
+            assertEquals(0, calls.get());
+        }
+
+        inFlight.dispose();
+        assertEquals(1, (int) downstream.block(call()));
+    }
+
+    private Mono<Integer> call() {
+        return Mono.fromCallable(calls::incrementAndGet);
+    }
+
+    private static Downstream downstream(DownstreamProperties properties) {
+        return new Downstream("pricing", properties, CircuitBreakerRegistry.ofDefaults(),
+                BulkheadRegistry.ofDefaults());
+    }
+}
@@ -0,0 +1,195 @@
+package com.udacity.vehicles.client;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.net.URI;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.ExchangeFunction;
+
+import reactor.core.publisher.Mono;
+import reactor.test.scheduler.VirtualTimeScheduler;
+
+/**
+ * Implements testing of the LoadBalancer class.
+ */
+public class LoadBalancerTest {
+
+    private static final URI FIRST = URI.create("http://10.0.0.1:8082/");
+    private static final URI SECOND = URI.create("http://10.0.0.2:8082/");
+    private static final String FALLBACK = "http://localhost:8082";
+
+    private final Map<String, Integer> calls = new HashMap<>();
+    private final Map<String, HttpStatus> statuses = new HashMap<>();
+    private final List<URI> urls = new ArrayList<>();
+    private final ExchangeFunction exchange = request -> {
+        String authority = request.url().getAuthority();
+        calls.merge(authority, 1, Integer::sum);
+        urls.add(request.url());
+        return Mono.just(ClientResponse.create(statuses.getOrDefault(authority, HttpStatus.OK)).build());
+    };
+
+    private Instant now = Instant.parse("2019-06-01T00:00:00Z");
+    private List<URI> instances = Arrays.asList(FIRST, SECOND);
+    private LoadBalancer balancer;
+
+    @Before
+    public void setup() {
+        DownstreamProperties properties = new DownstreamProperties();
+        properties.setEjectionThreshold(3);
+        properties.setEjectionCooldown(Duration.ofSeconds(30));
+        Clock clock = new Clock() {
+            @Override
+            public ZoneOffset getZone() {
+                return ZoneOffset.UTC;
+            }
+
+            @Override
+            public Clock withZone(ZoneId zone) {
+                return this;
+            }
+
+            @Override
+            public Instant instant() {
+                return now;
+            }
+        };
+        balancer = new LoadBalancer("pricing", () -> instances, FALLBACK, properties, clock);
+    }
+
+    /**
+     * Tests that calls are spread across the registered instances,
+     * keeping the request path and query.
+     */
+    @Test
+    public void spreadsAcrossInstances() {
+        for (int i = 0; i < 100; i++) {
+            ClientResponse response = call("/services/price/?vehicleId=1");
+            assertEquals(HttpStatus.OK, response.statusCode());
+        }
+
+        assertTrue(calls.get(FIRST.getAuthority()) > 0);
+        assertTrue(calls.get(SECOND.getAuthority()) > 0);
+        assertEquals(0, balancer.outstanding(FIRST));
+    }
+
+    /**
+     * Tests that a failing instance is left out until its cooldown ends.
+     */
+    @Test
+    public void ejectsFailingInstance() {
+        statuses.put(FIRST.getAuthority(), HttpStatus.SERVICE_UNAVAILABLE);
+        while (!balancer.isEjected(FIRST)) {
+            call("/services/price/");
+        }
+
+        calls.clear();
+        for (int i = 0; i < 20; i++) {
+            call("/services/price/");
+        }
+        assertEquals(Integer.valueOf(20), calls.get(SECOND.getAuthority()));
+
+        statuses.clear();
+        now = now.plusSeconds(31);
+        assertFalse(balancer.isEjected(FIRST));
+        for (int i = 0; i < 100; i++) {
+            call("/services/price/");
+        }
+        assertTrue(calls.get(FIRST.getAuthority()) > 0);
+    }
+
+    /**
+     * Tests that the fixed endpoint is used while no instance is registered.
+     */
+    @Test
+    public void fallsBackWithoutInstances() {
+        instances = Collections.emptyList();
+
+        call("/services/price/");
+
+        assertEquals(Integer.valueOf(1), calls.get("localhost:8082"));
+    }
+
+    /**
+     * Tests that a call stays in flight until its response body is read,
+     * not only until the response headers arrive.
+     */
+    @Test
+    public void holdsInstanceUntilBodyIsRead() {
+        instances = Collections.singletonList(FIRST);
+
+        ClientResponse response = balancer.filter(request("/services/price/"), exchange).block();
+        assertEquals(1, balancer.outstanding(FIRST));
+
+        response.bodyToMono(String.class).block();
+        assertEquals(0, balancer.outstanding(FIRST));
+    }
+
+    /**
+     * Tests that a response whose body is never read stops counting as in
+     * flight after the read timeout, and one without a body right away.
+     */
+    @Test
+    public void reclaimsUnreadResponses() {
+        instances = Collections.singletonList(FIRST);
+        VirtualTimeScheduler time = VirtualTimeScheduler.getOrSet();
+        try {
+            balancer.filter(request("/services/price/"), request -> Mono.just(ClientResponse.create(HttpStatus.OK)
+                    .body("{\"price\":1}")
+                    .build())).block();
+            assertEquals(1, balancer.outstanding(FIRST));
+
+            time.advanceTimeBy(Duration.ofSeconds(3));
+            assertEquals(0, balancer.outstanding(FIRST));
+
+            balancer.filter(request("/services/price/"), request -> Mono.just(
+                    ClientResponse.create(HttpStatus.NO_CONTENT).build())).block();
+            assertEquals(0, balancer.outstanding(FIRST));
+        } finally {
+            VirtualTimeScheduler.reset();
+        }
+    }
+
+    /**
+     * Tests that the context path of an instance is put in front of the
+     * path of the request.
+     */
+    @Test
+    public void keepsContextPathOfInstance() {
+        instances = Collections.singletonList(URI.create("http://10.0.0.3:8762/pricing/"));
+
+        call("/services/price/?vehicleId=1");
+
+        assertEquals(URI.create("http://10.0.0.3:8762/pricing/services/price/?vehicleId=1"), urls.get(0));
+    }
+
+    private ClientResponse call(String path) {
+        ClientResponse response = balancer.filter(request(path), exchange).block();
+        response.bodyToMono(Void.class).block();
+        return response;
+    }
+
+    private static ClientRequest request(String path) {
+        return ClientRequest
+                .create(HttpMethod.GET, URI.create(LoadBalancer.baseUrl("PRICING-SERVICE")).resolve(path))
+                .build();
+    }
+}
@@ -0,0 +1,168 @@
+package com.udacity.vehicles.client;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoProcessor;
+
+/**
+ * Implements testing of the MicroBatcher class.
+ */
+public class MicroBatcherTest {
+
+    private MeterRegistry registry;
+    private List<List<Long>> batches;
+    private MicroBatcher<Long, String> batcher;
+
+    @Before
+    public void setup() {
+        registry = new SimpleMeterRegistry();
+        batches = Collections.synchronizedList(new ArrayList<>());
+    }
+
+    @After
+    public void tearDown() {
+        if (batcher != null) {
+            batcher.close();
+        }
+    }
+
+    /**
+     * Tests that lookups submitted within the window share one bulk lookup,
+     * and that each caller receives its own value.
+     */
+    @Test
+    public void batchesLookupsWithinWindow() {
+        batcher = new MicroBatcher<>("prices", Duration.ofMillis(200), 100, 1000, prices(), registry);
+
+        List<String> results = Flux.range(1, 10)
+                .flatMap(id -> batcher.submit((long) id))
+                .collectList()
+                .block();
+
+        assertEquals(10, results.size());
+        assertEquals(1, batches.size());
+        assertEquals(10, batches.get(0).size());
+        assertEquals("USD 7", batcher.submit(7L).block());
+    }
+
+    /**
+     * Tests that a batch is sent as soon as it holds the maximum number of items.
+     */
+    @Test
+    public void sendsFullBatchesEarly() {
+        batcher = new MicroBatcher<>("prices", Duration.ofSeconds(10), 5, 1000, prices(), registry);
+
+        long start = System.nanoTime();
+        Map<Long, String> results = batcher.submitAll(ids(20)).block(Duration.ofSeconds(5));
+
+        assertEquals(20, results.size());
+        assertEquals("USD 13", results.get(13L));
+        assertTrue(batches.stream().allMatch(batch -> batch.size() <= 5));
+        assertTrue(System.nanoTime() - start < Duration.ofSeconds(5).toNanos());
+    }
+
+    /**
+     * Tests that lookups are rejected while the queue is full.
+     */
+    @Test
+    public void rejectsWhenQueueIsFull() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        batcher = new MicroBatcher<>("prices", Duration.ZERO, 1, 2, ids -> {
+            batches.add(ids);
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return Mono.just(Collections.emptyMap());
+        }, registry);
+
+        List<MonoProcessor<String>> lookups = new ArrayList<>();
+        for (long id = 1; id <= 50; id++) {
+            lookups.add(batcher.submit(id).toProcessor());
+        }
+        long rejected = lookups.stream()
+                .filter(lookup -> lookup.getError() instanceof RejectedExecutionException)
+                .count();
+        release.countDown();
+
+        assertTrue(rejected >= 47);
+        assertEquals(rejected, registry.get("batcher.rejected").counter().count(), 0);
+    }
+
+    /**
+     * Tests that keys of a bulk lookup overfilling the queue are left out
+     * on their own, while the keys that were queued still get their values.
+     */
+    @Test
+    public void dropsRejectedKeysOfBulkLookups() {
+        CountDownLatch release = new CountDownLatch(1);
+        Function<List<Long>, Mono<Map<Long, String>>> prices = prices();
+        batcher = new MicroBatcher<>("prices", Duration.ZERO, 1, 2, ids -> {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return prices.apply(ids);
+        }, registry);
+
+        MonoProcessor<Map<Long, String>> lookup = batcher.submitAll(ids(50)).toProcessor();
+        release.countDown();
+        Map<Long, String> results = lookup.block(Duration.ofSeconds(5));
+
+        assertTrue(results.size() >= 1);
+        assertTrue(results.size() < 50);
+        assertEquals(50 - results.size(), registry.get("batcher.rejected").counter().count(), 0);
+        results.forEach((id, price) -> assertEquals("USD " + id, price));
+    }
+
+    /**
+     * Tests that callers of a failed bulk lookup all receive its error.
+     */
+    @Test
+    public void sharesErrors() {
+        batcher = new MicroBatcher<>("prices", Duration.ofMillis(50), 100, 1000,
+                ids -> Mono.error(new IllegalStateException("pricing is down")), registry);
+
+        try {
+            batcher.submitAll(ids(3)).block(Duration.ofSeconds(5));
+            fail("Expected the lookup to fail");
+        } catch (IllegalStateException e) {
+            assertEquals("pricing is down", e.getMessage());
+        }
+    }
+
+    private Function<List<Long>, Mono<Map<Long, String>>> prices() {
+        return ids -> {
+            batches.add(ids);
+            return Mono.just(ids.stream().collect(Collectors.toMap(id -> id, id -> "USD " + id)));
+        };
+    }
+
+    private static List<Long> ids(int count) {
+        return LongStream.rangeClosed(1, count).boxed().collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,169 @@
+package com.udacity.vehicles.client;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoProcessor;
+
+/**
+ * Implements testing of the SingleFlight class.
+ */
+public class SingleFlightTest {
+
+    private static final int CALLERS = 50;
+
+    private MeterRegistry registry;
+    private SingleFlight<Long, String> flight;
+    private ExecutorService executor;
+
+    @Before
+    public void setup() {
+        registry = new SimpleMeterRegistry();
+        flight = new SingleFlight<>("prices", registry);
+        executor = Executors.newFixedThreadPool(CALLERS);
+    }
+
+    @After
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Tests that concurrent lookups of one key share a single call.
+     */
+    @Test
+    public void coalescesConcurrentLookups() throws Exception {
+        AtomicInteger calls = new AtomicInteger();
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        Future<String> leader = executor.submit(() -> flight.execute(1L, () -> {
+            calls.incrementAndGet();
+            started.countDown();
+            await(release);
+            return "USD 1";
+        }));
+        started.await();
+
+        List<Future<String>> followers = new ArrayList<>();
+        for (int i = 1; i < CALLERS; i++) {
+            followers.add(executor.submit(() -> flight.execute(1L, () -> {
+                calls.incrementAndGet();
+                return "USD 1";
+            })));
+        }
+        while (coalesced() < CALLERS - 1) {
+            Thread.sleep(1);
+        }
+        release.countDown();
+
+        assertEquals("USD 1", leader.get(5, TimeUnit.SECONDS));
+        for (Future<String> follower : followers) {
+            assertEquals("USD 1", follower.get(5, TimeUnit.SECONDS));
+        }
+        assertEquals(1, calls.get());
+        assertEquals(CALLERS - 1, coalesced(), 0);
+    }
+
+    /**
+     * Tests that callers joining a failed lookup receive its error, and
+     * that the key can be looked up again afterwards.
+     */
+    @Test
+    public void sharesErrors() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        Future<String> leader = executor.submit(() -> flight.execute(1L, () -> {
+            started.countDown();
+            await(release);
+            throw new IllegalStateException("pricing is down");
+        }));
+        started.await();
+        Future<String> follower = executor.submit(() -> flight.execute(1L, () -> "USD 1"));
+        while (coalesced() < 1) {
+            Thread.sleep(1);
+        }
+        release.countDown();
+
+        assertFails(leader);
+        assertFails(follower);
+        assertEquals("USD 2", flight.execute(1L, () -> "USD 2"));
+    }
+
+    /**
+     * Tests that a bulk lookup only requests the keys not already in flight.
+     */
+    @Test
+    public void bulkLookupJoinsKeysInFlight() {
+        List<List<Long>> requested = Collections.synchronizedList(new ArrayList<>());
+        MonoProcessor<Map<Long, String>> first = MonoProcessor.create();
+
+        Mono<Map<Long, String>> pending = flight.executeAllAsync(Arrays.asList(1L, 2L), ids -> {
+            requested.add(ids);
+            return first;
+        });
+        MonoProcessor<Map<Long, String>> firstResult = pending.toProcessor();
+
+        Mono<Map<Long, String>> second = flight.executeAllAsync(Arrays.asList(2L, 3L), ids -> {
+            requested.add(ids);
+            return Mono.just(prices().apply(ids));
+        });
+        MonoProcessor<Map<Long, String>> secondResult = second.toProcessor();
+
+        first.onNext(prices().apply(Arrays.asList(1L, 2L)));
+
+        assertEquals(prices().apply(Arrays.asList(1L, 2L)), firstResult.block());
+        assertEquals(prices().apply(Arrays.asList(2L, 3L)), secondResult.block());
+        assertEquals(Arrays.asList(Arrays.asList(1L, 2L), Collections.singletonList(3L)), requested);
+        assertEquals(1, coalesced(), 0);
+    }
+
+    private static Function<List<Long>, Map<Long, String>> prices() {
+        return ids -> ids.stream().collect(Collectors.toMap(id -> id, id -> "USD " + id));
+    }
+
+    private double coalesced() {
+        return registry.get("requests.coalesced").tag("lookup", "prices").counter().count();
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void assertFails(Future<String> call) throws Exception {
+        try {
+            call.get(5, TimeUnit.SECONDS);
+            fail("Expected the lookup to fail");
+        } catch (ExecutionException e) {
+            assertEquals(IllegalStateException.class, e.getCause().getClass());
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package com.udacity.vehicles.client.maps;
+
+import static org.junit.Assert.assertEquals;
+
+import com.udacity.vehicles.client.Downstream;
+import com.udacity.vehicles.client.DownstreamProperties;
+import com.udacity.vehicles.domain.Location;
+import io.github.resilience4j.bulkhead.BulkheadRegistry;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.After;
+import org.junit.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+
+/**
+ * Implements testing of the MapsClient class.
+ */
+public class MapsClientTest {
+
+    private final List<String> requests = new ArrayList<>();
+    private MapsClient maps;
+
+    @After
+    public void tearDown() {
+        if (maps != null) {
+            maps.shutdown();
+        }
+    }
+
+    /**
+     * Tests that locations left out of a short batch response are looked
+     * up one at a time, instead of being dropped.
+     */
+    @Test
+    public void looksUpLocationsMissingFromBatch() {
+        WebClient client = WebClient.builder()
+                .baseUrl("http://maps/")
+                .exchangeFunction(request -> Mono.defer(() -> {
+                    requests.add(request.method() + " " + request.url().getPath());
+                    if (request.method() == HttpMethod.POST) {
+                        return Mono.just(ClientResponse.create(HttpStatus.OK)
+                                .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_STREAM_JSON_VALUE)
+                                .body("{\"address\":\"777 Brockton Avenue\",\"city\":\"Abington\"}\n")
+                                .build());
+                    }
+                    return Mono.just(ClientResponse.create(HttpStatus.OK)
+                            .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                            .body("{\"address\":\"30 Memorial Drive\",\"city\":\"Avon\"}")
+                            .build());
+                }))
+                .build();
+        maps = new MapsClient(client, 8, 1 << 20, Duration.ofHours(24), new SimpleMeterRegistry(),
+                new Downstream("maps", new DownstreamProperties(), CircuitBreakerRegistry.ofDefaults(),
+                        BulkheadRegistry.ofDefaults()));
+
+        List<Location> locations = maps.getAddresses(List.of(
+                new Location(42.1, -70.9), new Location(42.2, -71.0)));
+
+        assertEquals(List.of("POST /maps/batch", "GET /maps/"), requests);
+        assertEquals("777 Brockton Avenue", locations.get(0).getAddress());
+        assertEquals("30 Memorial Drive", locations.get(1).getAddress());
+    }
+}
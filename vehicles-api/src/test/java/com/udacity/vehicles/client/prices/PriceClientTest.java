@@ -0,0 +1,157 @@
+package com.udacity.vehicles.client.prices;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.read.ListAppender;
+import com.udacity.vehicles.client.Downstream;
+import com.udacity.vehicles.client.DownstreamProperties;
+
+import io.github.resilience4j.bulkhead.BulkheadRegistry;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import org.junit.After;
+import org.junit.Test;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.ExchangeFunction;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import reactor.core.publisher.Mono;
+
+/**
+ * Implements testing of the PriceClient class.
+ */
+public class PriceClientTest {
+
+    private final AtomicInteger calls = new AtomicInteger();
+    private PriceClient prices;
+
+    @After
+    public void tearDown() {
+        if (prices != null) {
+            prices.shutdown();
+        }
+    }
+
+    /**
+     * Tests that an open circuit returns the fallback price without
+     * calling the pricing service.
+     */
+    @Test
+    public void openCircuitFallsBackWithoutCalling() {
+        Downstream downstream = downstream();
+        downstream.getCircuitBreaker().transitionToOpenState();
+        prices = priceClient(100, downstream, request -> Mono.defer(() -> {
+            calls.incrementAndGet();
+            return Mono.error(new IllegalStateException("The pricing service was called"));
+        }));
+
+        assertEquals(PriceClient.PRICE_UNAVAILABLE, prices.getPrice(1L));
+        Map<Long, String> found = prices.getPrices(List.of(2L, 3L));
+
+        assertEquals(PriceClient.PRICE_UNAVAILABLE, found.get(2L));
+        assertEquals(PriceClient.PRICE_UNAVAILABLE, found.get(3L));
+        assertEquals(0, calls.get());
+    }
+
+    /**
+     * Tests that a failed chunk of a bulk lookup only falls back for its
+     * own vehicles, keeping the prices of the chunks that succeeded.
+     */
+    @Test
+    public void failedChunkKeepsOtherChunks() {
+        prices = priceClient(1, downstream(), request -> Mono.defer(() -> {
+            if (calls.incrementAndGet() == 1) {
+                return Mono.just(ClientResponse.create(HttpStatus.SERVICE_UNAVAILABLE).build());
+            }
+            return Mono.just(ClientResponse.create(HttpStatus.OK)
+                    .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                    .body("{\"prices\":[{\"currency\":\"USD\",\"price\":15000.5,\"vehicleId\":2}]}")
+                    .build());
+        }));
+
+        Map<Long, String> found = prices.getPrices(List.of(1L, 2L));
+
+        assertEquals(2, calls.get());
+        assertEquals(PriceClient.PRICE_UNAVAILABLE, found.get(1L));
+        assertEquals("USD 15000.5", found.get(2L));
+    }
+
+    /**
+     * Tests that vehicles left out of a batch response fall back, while
+     * the vehicles it does price keep their prices.
+     */
+    @Test
+    public void missingIdsFallBack() {
+        prices = priceClient(100, downstream(), request -> Mono.defer(() -> {
+            calls.incrementAndGet();
+            return Mono.just(ClientResponse.create(HttpStatus.OK)
+                    .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                    .body("{\"prices\":[{\"currency\":\"USD\",\"price\":15000.5,\"vehicleId\":2}],"
+                            + "\"missing\":[3]}")
+                    .build());
+        }));
+
+        Map<Long, String> found = prices.getPrices(List.of(1L, 2L, 3L));
+
+        assertEquals(1, calls.get());
+        assertEquals(PriceClient.PRICE_UNAVAILABLE, found.get(1L));
+        assertEquals("USD 15000.5", found.get(2L));
+        assertEquals(PriceClient.PRICE_UNAVAILABLE, found.get(3L));
+    }
+
+    /**
+     * Tests that a vehicle the pricing service has no price for falls back
+     * quietly, without an error being logged, and is asked for again later.
+     */
+    @Test
+    public void unknownVehicleFallsBackWithoutError() {
+        prices = priceClient(100, downstream(), request -> Mono.defer(() -> {
+            calls.incrementAndGet();
+            return Mono.just(ClientResponse.create(HttpStatus.OK)
+                    .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                    .body("{\"prices\":[]}")
+                    .build());
+        }));
+        Logger logger = (Logger) LoggerFactory.getLogger(PriceClient.class);
+        ListAppender<ILoggingEvent> logged = new ListAppender<>();
+        logged.start();
+        logger.addAppender(logged);
+        try {
+            assertEquals(PriceClient.PRICE_UNAVAILABLE, prices.getPrice(404L));
+            assertEquals(PriceClient.PRICE_UNAVAILABLE, prices.getPrice(404L));
+        } finally {
+            logger.detachAppender(logged);
+        }
+
+        assertEquals(2, calls.get());
+        assertTrue(logged.list.stream().noneMatch(event -> event.getLevel() == Level.ERROR));
+    }
+
+    private static PriceClient priceClient(int batchSize, Downstream downstream, ExchangeFunction exchange) {
+        WebClient client = WebClient.builder()
+                .baseUrl("http://pricing/")
+                .exchangeFunction(exchange)
+                .build();
+        return new PriceClient(client, batchSize, 100, Duration.ofMinutes(5), Duration.ofHours(1),
+                new SimpleMeterRegistry(), downstream);
+    }
+
+    private static Downstream downstream() {
+        return new Downstream("pricing", new DownstreamProperties(), CircuitBreakerRegistry.ofDefaults(),
+                BulkheadRegistry.ofDefaults());
+    }
+}
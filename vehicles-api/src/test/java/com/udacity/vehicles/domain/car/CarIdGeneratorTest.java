@@ -0,0 +1,103 @@
+package com.udacity.vehicles.domain.car;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import com.udacity.vehicles.domain.Condition;
+import com.udacity.vehicles.domain.Location;
+import com.udacity.vehicles.domain.manufacturer.Manufacturer;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.web.reactive.function.client.WebClient;
+
+/**
+ * Implements testing of the CarIdGenerator class against the database.
+ */
+@RunWith(SpringRunner.class)
+@DataJpaTest(properties = {
+        "eureka.client.enabled=false",
+        "spring.jpa.properties." + CarIdGenerator.INCREMENT_SIZE_SETTING + "=" + CarIdGeneratorTest.INCREMENT_SIZE})
+public class CarIdGeneratorTest {
+
+    static final int INCREMENT_SIZE = 10;
+
+    private static final int CARS = 25;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private JdbcTemplate jdbc;
+
+    @MockBean(name = "maps")
+    private WebClient maps;
+
+    @MockBean(name = "pricing")
+    private WebClient pricing;
+
+    /**
+     * Tests that the sequence is created with the configured increment.
+     */
+    @Test
+    public void createsSequenceWithIncrement() {
+        assertEquals(INCREMENT_SIZE, sequence("increment"));
+    }
+
+    /**
+     * Tests that consecutive inserts take their IDs from blocks reserved
+     * once per increment, rather than calling the sequence for each car.
+     */
+    @Test
+    public void reservesIdsInBlocks() {
+        long before = sequence("current_value");
+        Manufacturer manufacturer = entityManager.persist(new Manufacturer(301, "Holden"));
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < CARS; i++) {
+            ids.add(entityManager.persist(getCar(manufacturer)).getId());
+        }
+        entityManager.flush();
+
+        for (int i = 1; i < CARS; i++) {
+            assertEquals(ids.get(i - 1) + 1, (long) ids.get(i));
+        }
+        long calls = (sequence("current_value") - before) / INCREMENT_SIZE;
+        assertTrue(calls + " sequence calls for " + CARS + " cars", calls <= CARS / INCREMENT_SIZE + 2);
+    }
+
+    private long sequence(String column) {
+        return jdbc.queryForObject("select " + column + " from information_schema.sequences"
+                + " where sequence_name = 'CAR_SEQUENCE'", Long.class);
+    }
+
+    /**
+     * Creates an example Car object for use in testing.
+     * @param manufacturer the stored manufacturer of the car
+     * @return an example Car object
+     */
+    private static Car getCar(Manufacturer manufacturer) {
+        Car car = new Car();
+        car.setLocation(new Location(-37.813629, 144.963058));
+        Details details = new Details();
+        details.setManufacturer(manufacturer);
+        details.setModel("Commodore");
+        details.setMileage(32280);
+        details.setExternalColor("white");
+        details.setBody("sedan");
+        details.setEngine("3.6L V6");
+        details.setFuelType("Gasoline");
+        details.setModelYear(2018);
+        details.setProductionYear(2018);
+        details.setNumberOfDoors(4);
+        car.setDetails(details);
+        car.setCondition(Condition.USED);
+        return car;
+    }
+}
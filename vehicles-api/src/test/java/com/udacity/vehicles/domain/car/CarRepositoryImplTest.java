@@ -0,0 +1,99 @@
+package com.udacity.vehicles.domain.car;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import com.udacity.vehicles.domain.Condition;
+import com.udacity.vehicles.domain.Location;
+import com.udacity.vehicles.domain.manufacturer.Manufacturer;
+import java.util.List;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.web.reactive.function.client.WebClient;
+
+/**
+ * Implements testing of the CarRepositoryImpl class against the database.
+ */
+@RunWith(SpringRunner.class)
+@DataJpaTest(properties = "eureka.client.enabled=false")
+public class CarRepositoryImplTest {
+
+    @Autowired
+    private CarRepository repository;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @MockBean(name = "maps")
+    private WebClient maps;
+
+    @MockBean(name = "pricing")
+    private WebClient pricing;
+
+    /**
+     * Tests that addresses are stored without changing the version of
+     * the cars, and only for cars still at the coordinates they were
+     * resolved for.
+     */
+    @Test
+    public void storesAddressesOfCarsNotMoved() {
+        Manufacturer manufacturer = entityManager.persist(new Manufacturer(401, "Chevrolet"));
+        Car parked = entityManager.persist(getCar(manufacturer, 40.730610, -73.935242));
+        Car moved = entityManager.persist(getCar(manufacturer, 42.360082, -71.058880));
+        entityManager.flush();
+        entityManager.clear();
+        Long version = entityManager.find(Car.class, parked.getId()).getVersion();
+        entityManager.clear();
+
+        resolve(parked, "777 Brockton Avenue");
+        moved.setLocation(new Location(41.0, -71.058880));
+        resolve(moved, "30 Memorial Drive");
+        repository.storeAddresses(List.of(parked, moved));
+
+        Car storedParked = entityManager.find(Car.class, parked.getId());
+        Car storedMoved = entityManager.find(Car.class, moved.getId());
+        assertEquals("777 Brockton Avenue", storedParked.getLocation().getAddress());
+        assertEquals(40.730610, storedParked.getLocation().getResolvedLat(), 0);
+        assertEquals(version, storedParked.getVersion());
+        assertNull(storedMoved.getLocation().getAddress());
+    }
+
+    private static void resolve(Car car, String address) {
+        car.getLocation().setAddress(address);
+        car.getLocation().setCity("Abington");
+        car.getLocation().setState("MA");
+        car.getLocation().setZip("02351");
+        car.getLocation().markResolved();
+    }
+
+    /**
+     * Creates an example Car object for use in testing.
+     * @param manufacturer the stored manufacturer of the car
+     * @param lat the latitude of the car
+     * @param lon the longitude of the car
+     * @return an example Car object
+     */
+    private static Car getCar(Manufacturer manufacturer, double lat, double lon) {
+        Car car = new Car();
+        car.setLocation(new Location(lat, lon));
+        Details details = new Details();
+        details.setManufacturer(manufacturer);
+        details.setModel("Impala");
+        details.setMileage(32280);
+        details.setExternalColor("white");
+        details.setBody("sedan");
+        details.setEngine("3.6L V6");
+        details.setFuelType("Gasoline");
+        details.setModelYear(2018);
+        details.setProductionYear(2018);
+        details.setNumberOfDoors(4);
+        car.setDetails(details);
+        car.setCondition(Condition.USED);
+        return car;
+    }
+}
@@ -0,0 +1,166 @@
+package com.udacity.vehicles.domain.car;
+
+import static org.junit.Assert.assertEquals;
+
+import com.udacity.vehicles.domain.Condition;
+import com.udacity.vehicles.domain.Location;
+import com.udacity.vehicles.domain.manufacturer.Manufacturer;
+import java.util.List;
+import java.util.stream.Collectors;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.web.reactive.function.client.WebClient;
+
+/**
+ * Implements testing of the CarSpecifications class against the database.
+ */
+@RunWith(SpringRunner.class)
+@DataJpaTest(properties = "eureka.client.enabled=false")
+public class CarSpecificationsTest {
+
+    @Autowired
+    private CarRepository repository;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @MockBean(name = "maps")
+    private WebClient maps;
+
+    @MockBean(name = "pricing")
+    private WebClient pricing;
+
+    private Car oldSedan;
+    private Car newSedan;
+    private Car truck;
+    private Car otherSedan;
+
+    @Before
+    public void setup() {
+        Manufacturer chevrolet = entityManager.persistFlushFind(new Manufacturer(201, "Chevrolet"));
+        Manufacturer ford = entityManager.persistFlushFind(new Manufacturer(202, "Ford"));
+        oldSedan = entityManager.persist(getCar(chevrolet, Condition.USED, "sedan", 2012, 50000));
+        newSedan = entityManager.persist(getCar(chevrolet, Condition.NEW, "sedan", 2018, 10));
+        truck = entityManager.persist(getCar(ford, Condition.USED, "truck", 2016, 30000));
+        otherSedan = entityManager.persist(getCar(ford, Condition.USED, "sedan", 2016, 30000));
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    /**
+     * Tests that ranges open on either end, and closed ranges, match
+     * their bounds inclusively.
+     */
+    @Test
+    public void matchesRanges() {
+        CarSearch search = new CarSearch();
+        search.setMinModelYear(2016);
+        assertEquals(List.of(newSedan.getId(), truck.getId(), otherSedan.getId()), find(search, Sort.by("id")));
+
+        search = new CarSearch();
+        search.setMaxMileage(30000);
+        assertEquals(List.of(newSedan.getId(), truck.getId(), otherSedan.getId()), find(search, Sort.by("id")));
+
+        search = new CarSearch();
+        search.setMinModelYear(2012);
+        search.setMaxModelYear(2016);
+        search.setMinMileage(30000);
+        search.setMaxMileage(40000);
+        assertEquals(List.of(truck.getId(), otherSedan.getId()), find(search, Sort.by("id")));
+    }
+
+    /**
+     * Tests that a search matches only the cars with every attribute set.
+     */
+    @Test
+    public void matchesEveryAttribute() {
+        CarSearch search = new CarSearch();
+        search.setManufacturer(202);
+        search.setCondition(Condition.USED);
+        search.setBody("sedan");
+
+        assertEquals(List.of(otherSedan.getId()), find(search, Sort.by("id")));
+    }
+
+    /**
+     * Tests that cars sorting equal are ordered by ID, so that pages
+     * neither repeat nor skip cars.
+     */
+    @Test
+    public void breaksTiesById() {
+        Sort byMileage = Sort.by(Sort.Direction.DESC, "mileage");
+
+        assertEquals(List.of(oldSedan.getId(), truck.getId(), otherSedan.getId(), newSedan.getId()),
+                find(new CarSearch(), byMileage));
+
+        Page<Car> first = repository.findAll(CarSpecifications.matching(new CarSearch()),
+                PageRequest.of(0, 2, CarSpecifications.sort(byMileage)));
+        Page<Car> second = repository.findAll(CarSpecifications.matching(new CarSearch()),
+                PageRequest.of(1, 2, CarSpecifications.sort(byMileage)));
+        assertEquals(List.of(oldSedan.getId(), truck.getId()), ids(first.getContent()));
+        assertEquals(List.of(otherSedan.getId(), newSedan.getId()), ids(second.getContent()));
+    }
+
+    /**
+     * Tests that an explicit sort by ID is kept instead of adding another.
+     */
+    @Test
+    public void keepsRequestedIdOrder() {
+        assertEquals(List.of(otherSedan.getId(), truck.getId(), newSedan.getId(), oldSedan.getId()),
+                find(new CarSearch(), Sort.by(Sort.Direction.DESC, "id")));
+    }
+
+    /**
+     * Tests that sorting by a property that is not sortable is rejected.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsUnknownSortProperty() {
+        CarSpecifications.sort(Sort.by("engine"));
+    }
+
+    private List<Long> find(CarSearch search, Sort sort) {
+        return ids(repository.findAll(CarSpecifications.matching(search), CarSpecifications.sort(sort)));
+    }
+
+    private static List<Long> ids(List<Car> cars) {
+        return cars.stream().map(Car::getId).collect(Collectors.toList());
+    }
+
+    /**
+     * Creates an example Car object for use in testing.
+     * @param manufacturer the stored manufacturer of the car
+     * @param condition the condition of the car
+     * @param body the body type of the car
+     * @param modelYear the model year of the car
+     * @param mileage the mileage of the car
+     * @return an example Car object
+     */
+    private static Car getCar(Manufacturer manufacturer, Condition condition, String body, int modelYear,
+            int mileage) {
+        Car car = new Car();
+        car.setLocation(new Location(40.730610, -73.935242));
+        Details details = new Details();
+        details.setManufacturer(manufacturer);
+        details.setModel("Impala");
+        details.setMileage(mileage);
+        details.setExternalColor("white");
+        details.setBody(body);
+        details.setEngine("3.6L V6");
+        details.setFuelType("Gasoline");
+        details.setModelYear(modelYear);
+        details.setProductionYear(modelYear);
+        details.setNumberOfDoors(4);
+        car.setDetails(details);
+        car.setCondition(condition);
+        return car;
+    }
+}
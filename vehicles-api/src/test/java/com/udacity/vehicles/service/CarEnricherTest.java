@@ -0,0 +1,168 @@
+package com.udacity.vehicles.service;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.udacity.vehicles.config.VirtualThreads;
+import com.udacity.vehicles.domain.car.Car;
+
+import org.junit.After;
+import org.junit.Test;
+
+/**
+ * Implements testing of the CarEnricher class.
+ */
+public class CarEnricherTest {
+
+    private static final long LOOKUP_MILLIS = 50;
+
+    private CarEnricher enricher;
+
+    @After
+    public void tearDown() {
+        if (enricher != null) {
+            enricher.shutdown();
+        }
+    }
+
+    /**
+     * Tests that results are applied to the car each lookup belongs to.
+     */
+    @Test
+    public void keepsRepositoryOrder() {
+        enricher = new CarEnricher(4, 5000, false);
+        List<Car> cars = getCars(20);
+
+        enricher.enrich(slowPriceLookups(cars, 0));
+
+        for (Car car : cars) {
+            assertEquals("USD " + car.getId(), car.getPrice());
+        }
+    }
+
+    /**
+     * Tests that lookups missing the deadline leave their car untouched.
+     */
+    @Test
+    public void skipsLookupsPastDeadline() {
+        enricher = new CarEnricher(2, LOOKUP_MILLIS, false);
+        List<Car> cars = getCars(1);
+
+        enricher.enrich(slowPriceLookups(cars, LOOKUP_MILLIS * 10));
+
+        assertNull(cars.get(0).getPrice());
+    }
+
+    /**
+     * Tests that lookups run at the same time: each one waits until all
+     * of them have started, which only happens if none waits for another.
+     */
+    @Test
+    public void runsLookupsConcurrently() {
+        enricher = new CarEnricher(10, 5000, false);
+        List<Car> cars = getCars(10);
+
+        enricher.enrich(meetingPriceLookups(cars));
+
+        for (Car car : cars) {
+            assertEquals("USD " + car.getId(), car.getPrice());
+        }
+    }
+
+    /**
+     * Tests that no more lookups are in flight at once than the
+     * configured concurrency.
+     */
+    @Test
+    public void capsLookupsInFlight() {
+        enricher = new CarEnricher(4, 5000, false);
+        List<Car> cars = getCars(20);
+        AtomicInteger inFlight = new AtomicInteger();
+        AtomicInteger peak = new AtomicInteger();
+        List<Callable<Runnable>> lookups = new ArrayList<>();
+        for (Callable<Runnable> lookup : slowPriceLookups(cars, LOOKUP_MILLIS)) {
+            lookups.add(() -> {
+                peak.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+                try {
+                    return lookup.call();
+                } finally {
+                    inFlight.decrementAndGet();
+                }
+            });
+        }
+
+        enricher.enrich(lookups);
+
+        assertTrue("peak of " + peak.get() + " lookups in flight", peak.get() > 1 && peak.get() <= 4);
+        for (Car car : cars) {
+            assertEquals("USD " + car.getId(), car.getPrice());
+        }
+    }
+
+    /**
+     * Tests that lookups on virtual threads, where the JVM has them,
+     * behave like the ones on the platform thread pool, without being
+     * limited by its size.
+     */
+    @Test
+    public void virtualThreads() {
+        enricher = new CarEnricher(1, 5000, true);
+        List<Car> cars = getCars(20);
+
+        enricher.enrich(VirtualThreads.isAvailable()
+                ? meetingPriceLookups(cars)
+                : slowPriceLookups(cars, LOOKUP_MILLIS));
+
+        for (Car car : cars) {
+            assertEquals("USD " + car.getId(), car.getPrice());
+        }
+    }
+
+    /**
+     * Creates price lookups that each wait for all the others to start,
+     * and only price their car if they all did.
+     */
+    private static List<Callable<Runnable>> meetingPriceLookups(List<Car> cars) {
+        CountDownLatch started = new CountDownLatch(cars.size());
+        List<Callable<Runnable>> lookups = new ArrayList<>();
+        for (Car car : cars) {
+            lookups.add(() -> {
+                started.countDown();
+                boolean met = started.await(2, TimeUnit.SECONDS);
+                String price = met ? "USD " + car.getId() : null;
+                return () -> car.setPrice(price);
+            });
+        }
+        return lookups;
+    }
+
+    private static List<Callable<Runnable>> slowPriceLookups(List<Car> cars, long delayMillis) {
+        List<Callable<Runnable>> lookups = new ArrayList<>();
+        for (Car car : cars) {
+            lookups.add(() -> {
+                Thread.sleep(delayMillis);
+                String price = "USD " + car.getId();
+                return () -> car.setPrice(price);
+            });
+        }
+        return lookups;
+    }
+
+    private static List<Car> getCars(int count) {
+        List<Car> cars = new ArrayList<>();
+        for (long id = 1; id <= count; id++) {
+            Car car = new Car();
+            car.setId(id);
+            cars.add(car);
+        }
+        return cars;
+    }
+}
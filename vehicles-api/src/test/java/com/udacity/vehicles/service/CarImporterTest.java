@@ -0,0 +1,163 @@
+package com.udacity.vehicles.service;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+import javax.validation.Validation;
+
+import com.udacity.vehicles.domain.Condition;
+import com.udacity.vehicles.domain.Location;
+import com.udacity.vehicles.domain.car.Car;
+import com.udacity.vehicles.domain.car.CarRepository;
+import com.udacity.vehicles.domain.car.Details;
+import com.udacity.vehicles.domain.manufacturer.Manufacturer;
+import com.udacity.vehicles.domain.manufacturer.ManufacturerRepository;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Implements testing of the CarImporter class.
+ */
+public class CarImporterTest {
+
+    private static final double LAT = 40.730610;
+    private static final double LON = -73.935242;
+
+    private final AtomicLong nextId = new AtomicLong();
+    private final List<Integer> chunks = new ArrayList<>();
+    private int failingChunks;
+    private CarRepository repository;
+    private CarLocationIndex index;
+    private CarImporter importer;
+
+    @Before
+    public void setup() {
+        repository = mock(CarRepository.class);
+        given(repository.findAllPoints()).willReturn(List.of());
+        doAnswer(invocation -> {
+            List<Car> cars = invocation.getArgument(0);
+            chunks.add(cars.size());
+            if (chunks.size() <= failingChunks) {
+                throw new IllegalStateException("connection reset");
+            }
+            cars.forEach(car -> car.setId(nextId.incrementAndGet()));
+            return null;
+        }).when(repository).insertAll(anyList());
+        ManufacturerRepository manufacturers = mock(ManufacturerRepository.class);
+        given(manufacturers.findAll()).willReturn(List.of(new Manufacturer(101, "Chevrolet")));
+
+        index = new CarLocationIndex(repository, true, Duration.ofMinutes(10), 500);
+        index.rebuild();
+        importer = new CarImporter(repository, manufacturers,
+                Validation.buildDefaultValidatorFactory().getValidator(),
+                event -> index.onCarChanged((CarChangedEvent) event), new SimpleMeterRegistry(), 2);
+    }
+
+    /**
+     * Tests that valid cars are inserted in chunks of the batch size, and
+     * that every item gets its result in the order it was received.
+     */
+    @Test
+    public void importsInChunks() {
+        Car invalid = getCar();
+        invalid.getDetails().setModel("");
+
+        ImportSummary summary = importAll(getCar(), getCar(), invalid, null, getCar(), getCar(), getCar());
+
+        assertEquals(Arrays.asList(2, 2, 1), chunks);
+        assertEquals(7, summary.getReceived());
+        assertEquals(5, summary.getCreated());
+        assertEquals(Arrays.asList("created", "created", "invalid", "invalid", "created", "created", "created"),
+                statuses(summary));
+        assertEquals(Arrays.asList(0, 1, 2, 3, 4, 5, 6), summary.getResults().stream()
+                .map(ImportSummary.Item::getIndex)
+                .collect(Collectors.toList()));
+        assertEquals(Arrays.asList(1L, 2L, null, null, 3L, 4L, 5L), summary.getResults().stream()
+                .map(ImportSummary.Item::getId)
+                .collect(Collectors.toList()));
+        assertEquals("Item is not a car", summary.getResults().get(3).getErrors().get(0));
+    }
+
+    /**
+     * Tests that a chunk failing to insert fails its own cars only, and
+     * that the import goes on with the next chunk.
+     */
+    @Test
+    public void failedChunkContinues() {
+        failingChunks = 1;
+
+        ImportSummary summary = importAll(getCar(), getCar(), getCar());
+
+        assertEquals(Arrays.asList("failed", "failed", "created"), statuses(summary));
+        assertEquals(1, summary.getCreated());
+        assertEquals(2, summary.getFailed());
+        assertNull(summary.getResults().get(0).getId());
+        assertEquals("Could not insert the cars: connection reset", summary.getResults().get(1).getErrors().get(0));
+    }
+
+    /**
+     * Tests that imported cars are found by proximity searches, through
+     * the change events the import publishes.
+     */
+    @Test
+    public void importedCarsAreFoundNearby() {
+        ImportSummary summary = importAll(getCar(), getCar(), getCar());
+
+        assertEquals(Arrays.asList(1L, 2L, 3L), index.within(LAT, LON, 1, 10).stream()
+                .map(CarLocationIndex.Nearby::getCarId)
+                .sorted()
+                .collect(Collectors.toList()));
+        assertEquals(3, summary.getCreated());
+    }
+
+    private ImportSummary importAll(Car... cars) {
+        CarImporter.Import run = importer.begin();
+        for (Car car : cars) {
+            run.add(car);
+        }
+        return run.finish();
+    }
+
+    private static List<String> statuses(ImportSummary summary) {
+        return summary.getResults().stream()
+                .map(result -> result.getStatus().getName())
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Creates an example Car object for use in testing.
+     * @return an example Car object
+     */
+    private static Car getCar() {
+        Car car = new Car();
+        car.setLocation(new Location(LAT, LON));
+        Details details = new Details();
+        details.setManufacturer(new Manufacturer(101, "Chevrolet"));
+        details.setModel("Impala");
+        details.setMileage(32280);
+        details.setExternalColor("white");
+        details.setBody("sedan");
+        details.setEngine("3.6L V6");
+        details.setFuelType("Gasoline");
+        details.setModelYear(2018);
+        details.setProductionYear(2018);
+        details.setNumberOfDoors(4);
+        car.setDetails(details);
+        car.setCondition(Condition.USED);
+        return car;
+    }
+}
@@ -0,0 +1,155 @@
+package com.udacity.vehicles.service;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.mockingDetails;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import com.udacity.vehicles.domain.Geohash;
+import com.udacity.vehicles.domain.Location;
+import com.udacity.vehicles.domain.car.CarPoint;
+import com.udacity.vehicles.domain.car.CarRepository;
+
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Implements testing of the CarLocationIndex class.
+ */
+public class CarLocationIndexTest {
+
+    private static final double LAT = 40.730610;
+    private static final double LON = -73.935242;
+
+    private CarRepository repository;
+    private CarLocationIndex index;
+
+    @Before
+    public void setup() {
+        repository = mock(CarRepository.class);
+        given(repository.findAllPoints()).willReturn(Arrays.asList(
+                new CarPoint(1L, LAT, LON),
+                new CarPoint(2L, LAT + 0.01, LON),
+                new CarPoint(3L, LAT + 0.1, LON),
+                new CarPoint(4L, LAT, LON + 1),
+                new CarPoint(5L, -LAT, -LON)));
+        index = new CarLocationIndex(repository, true, Duration.ofMinutes(10), 500);
+        index.rebuild();
+    }
+
+    /**
+     * Tests that only the cars within the radius are found, nearest first,
+     * without reading cars from the database.
+     */
+    @Test
+    public void findsCarsWithinRadius() {
+        List<CarLocationIndex.Nearby> found = index.within(LAT, LON, 20, 10);
+
+        assertEquals(Arrays.asList(1L, 2L, 3L), ids(found));
+        assertEquals(1.112, found.get(1).getDistanceKm(), 0.001);
+        verify(repository, never()).findPointsByGeohashRange(anyString(), anyString());
+    }
+
+    /**
+     * Tests that the nearest cars are found however far they are.
+     */
+    @Test
+    public void findsNearestCars() {
+        assertEquals(Arrays.asList(1L, 2L), ids(index.nearest(LAT, LON, 2, 20000)));
+        assertEquals(Arrays.asList(1L, 2L, 3L, 4L), ids(index.nearest(LAT, LON, 4, 20000)));
+        assertEquals(Arrays.asList(4L, 1L), ids(index.nearest(LAT, LON + 1, 2, 20000)));
+        assertEquals(5, index.nearest(LAT, LON, 10, 20000).size());
+    }
+
+    /**
+     * Tests that no more than the configured greatest number of cars is
+     * found, however many are asked for.
+     */
+    @Test
+    public void capsNearestCars() {
+        CarLocationIndex capped = new CarLocationIndex(repository, true, Duration.ofMinutes(10), 3);
+        capped.rebuild();
+
+        assertEquals(Arrays.asList(1L, 2L, 3L), ids(capped.nearest(LAT, LON, 10, 20000)));
+    }
+
+    /**
+     * Tests that cars saved or deleted after the index was built are
+     * found where they are now.
+     */
+    @Test
+    public void followsChanges() {
+        index.onCarChanged(new CarChangedEvent(6L, new Location(LAT - 0.005, LON)));
+        index.onCarChanged(new CarChangedEvent(2L, new Location(LAT + 0.5, LON)));
+        index.onCarChanged(new CarChangedEvent(3L, null));
+
+        assertEquals(Arrays.asList(1L, 6L), ids(index.within(LAT, LON, 20, 10)));
+        assertEquals(Arrays.asList(2L), ids(index.within(LAT + 0.5, LON, 1, 10)));
+    }
+
+    /**
+     * Tests that the cells are read from the database until the index is built.
+     */
+    @Test
+    public void readsCellsFromDatabaseUntilBuilt() {
+        CarRepository database = mock(CarRepository.class);
+        readsCellsAsRanges(database);
+        String geohash = Geohash.encode(LAT, LON, Geohash.MAX_PRECISION);
+        given(database.findPointsByGeohashRange(anyString(), anyString())).willAnswer(invocation ->
+                geohash.compareTo(invocation.getArgument(0)) >= 0 && geohash.compareTo(invocation.getArgument(1)) < 0
+                        ? Arrays.asList(new CarPoint(1L, LAT, LON))
+                        : Collections.emptyList());
+        CarLocationIndex unbuilt = new CarLocationIndex(database, true, Duration.ofMinutes(10), 500);
+
+        List<CarLocationIndex.Nearby> found = unbuilt.within(LAT, LON, 5, 10);
+
+        assertEquals(Arrays.asList(1L), ids(found));
+        verify(database, never()).findAllPoints();
+        verify(database, atLeastOnce()).findPointsByGeohashRange(anyString(), anyString());
+    }
+
+    /**
+     * Tests that a search reads a bounded number of cells, however large its radius.
+     */
+    @Test
+    public void boundsCellsRead() {
+        CarRepository database = mock(CarRepository.class);
+        readsCellsAsRanges(database);
+        CarLocationIndex unbuilt = new CarLocationIndex(database, false, Duration.ofMinutes(10), 500);
+
+        for (double radius : new double[] {0.01, 1, 50, 2000}) {
+            unbuilt.within(LAT, LON, radius, 10);
+        }
+
+        assertTrue(mockingDetails(database).getInvocations().stream()
+                .filter(invocation -> invocation.getMethod().getName().equals("findPointsByGeohashRange"))
+                .count() <= 4L * CarLocationIndex.MAX_CELLS);
+    }
+
+    /**
+     * Reads each cell through the geohash range query, as the repository
+     * does. The default method is stubbed rather than called for real, which
+     * Mockito cannot do for interfaces on every JVM.
+     */
+    private static void readsCellsAsRanges(CarRepository database) {
+        given(database.findPointsInCell(anyString())).willAnswer(invocation -> {
+            String cell = invocation.getArgument(0);
+            return database.findPointsByGeohashRange(cell, cell + "~");
+        });
+    }
+
+    private static List<Long> ids(List<CarLocationIndex.Nearby> found) {
+        return found.stream().map(CarLocationIndex.Nearby::getCarId).collect(Collectors.toList());
+    }
+}
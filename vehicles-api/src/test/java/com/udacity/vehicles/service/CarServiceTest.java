@@ -0,0 +1,281 @@
+package com.udacity.vehicles.service;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.clearInvocations;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyZeroInteractions;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+import com.udacity.vehicles.client.Cached;
+import com.udacity.vehicles.client.maps.Address;
+import com.udacity.vehicles.client.maps.MapsClient;
+import com.udacity.vehicles.client.prices.PriceClient;
+import com.udacity.vehicles.domain.Condition;
+import com.udacity.vehicles.domain.Location;
+import com.udacity.vehicles.domain.car.Car;
+import com.udacity.vehicles.domain.car.CarRepository;
+import com.udacity.vehicles.domain.car.Details;
+import com.udacity.vehicles.domain.car.Expansion;
+import com.udacity.vehicles.domain.manufacturer.Manufacturer;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+
+/**
+ * Implements testing of the CarService class.
+ */
+public class CarServiceTest {
+
+    private static final double LAT = 40.730610;
+    private static final double LON = -73.935242;
+
+    private final List<String> storedAddresses = new ArrayList<>();
+    private CarRepository repository;
+    private MapsClient maps;
+    private PriceClient pricing;
+    private CarEnricher enricher;
+
+    @Before
+    public void setup() {
+        repository = mock(CarRepository.class);
+        maps = mock(MapsClient.class);
+        pricing = mock(PriceClient.class);
+        enricher = new CarEnricher(2, 5000, false);
+
+        given(repository.save(any())).willAnswer(invocation -> {
+            Car car = invocation.getArgument(0);
+            if (car.getId() == null) {
+                car.setId(1L);
+            }
+            storedAddresses.add(car.getLocation().getAddress());
+            return car;
+        });
+        given(maps.getAddresses(anyList())).willAnswer(invocation -> {
+            List<Location> locations = invocation.getArgument(0);
+            locations.forEach(location -> {
+                location.setAddress(location.getLat() + " Broadway");
+                location.setCity("New York");
+                location.setState("NY");
+                location.setZip("10001");
+            });
+            return locations;
+        });
+        given(pricing.getPrices(anyCollection())).willAnswer(invocation -> {
+            Collection<Long> ids = invocation.getArgument(0);
+            return ids.stream().collect(Collectors.toMap(Function.identity(), id -> "USD " + id));
+        });
+    }
+
+    @After
+    public void tearDown() {
+        enricher.shutdown();
+    }
+
+    /**
+     * Tests that with addresses persisted, a new car's address is resolved
+     * once, before it is stored, and not again when it is returned.
+     */
+    @Test
+    public void resolvesAddressOnceOnSave() {
+        Car saved = service(true).save(getCar(null, LAT));
+
+        verify(maps, times(1)).getAddresses(anyList());
+        assertEquals(List.of(LAT + " Broadway"), storedAddresses);
+        assertTrue(saved.getLocation().isResolved());
+    }
+
+    /**
+     * Tests that updating a car without moving it keeps its stored address.
+     */
+    @Test
+    public void keepsAddressWhenNotMoved() {
+        given(repository.findById(1L)).willReturn(Optional.of(getResolvedCar()));
+
+        Car saved = service(true).save(getCar(1L, LAT));
+
+        verify(maps, never()).getAddresses(anyList());
+        assertEquals(List.of("Stored address"), storedAddresses);
+        assertEquals("Stored address", saved.getLocation().getAddress());
+    }
+
+    /**
+     * Tests that moving a car resolves its address again, for its new coordinates.
+     */
+    @Test
+    public void resolvesAddressAgainWhenMoved() {
+        given(repository.findById(1L)).willReturn(Optional.of(getResolvedCar()));
+
+        Car saved = service(true).save(getCar(1L, LAT + 1));
+
+        verify(maps, times(1)).getAddresses(anyList());
+        assertEquals(List.of((LAT + 1) + " Broadway"), storedAddresses);
+        assertTrue(saved.getLocation().isResolved());
+    }
+
+    /**
+     * Tests that an address resolved when reading a car stored without one
+     * is stored, and that a stored address is not resolved again.
+     */
+    @Test
+    public void storesAddressesResolvedOnRead() {
+        Car unresolved = getCar(1L, LAT);
+        given(repository.findById(1L)).willReturn(Optional.of(unresolved));
+        given(repository.findById(2L)).willReturn(Optional.of(getResolvedCar()));
+        CarService service = service(true);
+
+        Car read = service.findById(1L, Expansion.all());
+        service.findById(2L, Expansion.all());
+
+        verify(maps, times(1)).getAddresses(anyList());
+        verify(repository, times(1)).storeAddresses(List.of(read));
+        assertEquals(LAT + " Broadway", read.getLocation().getAddress());
+    }
+
+    /**
+     * Tests that without addresses persisted, the address a client sends
+     * is not stored, and resolved addresses are not stored either.
+     */
+    @Test
+    public void storesNoAddressWithoutSetting() {
+        Car car = getCar(null, LAT);
+        car.getLocation().setAddress("Sent by the client");
+        given(repository.findById(1L)).willReturn(Optional.of(getCar(1L, LAT)));
+        CarService service = service(false);
+
+        service.save(car);
+        Car read = service.findById(1L, Expansion.all());
+
+        assertEquals(1, storedAddresses.size());
+        assertNull(storedAddresses.get(0));
+        assertEquals(LAT + " Broadway", read.getLocation().getAddress());
+        verify(repository, never()).storeAddresses(any());
+    }
+
+    /**
+     * Tests that the version worked out from the cached price and address,
+     * before enriching, is the version of the cars once enriched.
+     */
+    @Test
+    public void peeksVersionOfEnrichedCars() {
+        given(repository.findById(1L)).willAnswer(invocation -> Optional.of(getCar(1L, LAT)));
+        given(repository.findByIdGreaterThanOrderByIdAsc(any(), any())).willAnswer(invocation ->
+                new SliceImpl<>(List.of(getCar(1L, LAT), getCar(2L, LAT + 1)), PageRequest.of(0, 2), true));
+        cacheLookups();
+        CarService service = service(false);
+        List<CarVersion> peeked = new ArrayList<>();
+        Predicate<CarVersion> stale = version -> {
+            peeked.add(version);
+            return false;
+        };
+
+        Versioned<Car> read = service.findById(1L, Expansion.all(), stale);
+        Versioned<Slice<Car>> page = service.list(null, 2, Expansion.all(), stale);
+
+        assertEquals(2, peeked.size());
+        assertEquals(read.getVersion().getETag(), peeked.get(0).getETag());
+        assertEquals(page.getVersion().getETag(), peeked.get(1).getETag());
+        assertEquals(LAT + " Broadway", read.getValue().getLocation().getAddress());
+        assertEquals("USD 1", read.getValue().getPrice());
+    }
+
+    /**
+     * Tests that a client holding the current version gets only the
+     * version, without anything being looked up or enriched.
+     */
+    @Test
+    public void skipsLookupsWhenNotModified() {
+        given(repository.findById(1L)).willAnswer(invocation -> Optional.of(getCar(1L, LAT)));
+        cacheLookups();
+        String eTag = service(false).findById(1L, Expansion.all(), version -> false).getVersion().getETag();
+        clearInvocations(maps, pricing);
+        enricher.shutdown();
+        enricher = mock(CarEnricher.class);
+
+        Versioned<Car> read = service(false).findById(1L, Expansion.all(),
+                version -> version.getETag().equals(eTag));
+
+        assertTrue(read.isNotModified());
+        assertEquals(eTag, read.getVersion().getETag());
+        verify(maps, never()).getAddresses(anyList());
+        verify(pricing, never()).getPrices(anyCollection());
+        verifyZeroInteractions(enricher);
+    }
+
+    /**
+     * Caches the price and address the lookups return, as a previous
+     * request would have.
+     */
+    private void cacheLookups() {
+        Instant fetchedAt = Instant.now();
+        given(pricing.peekPrice(any())).willAnswer(invocation -> new Cached<>("USD " + invocation.getArgument(0),
+                fetchedAt));
+        given(maps.peekAddress(any())).willAnswer(invocation -> {
+            Location location = invocation.getArgument(0);
+            Address address = new Address();
+            address.setAddress(location.getLat() + " Broadway");
+            address.setCity("New York");
+            address.setState("NY");
+            address.setZip("10001");
+            return new Cached<>(address, fetchedAt);
+        });
+    }
+
+    private CarService service(boolean persistAddress) {
+        return new CarService(repository, maps, pricing, enricher, mock(CarLocationIndex.class), event -> { },
+                500, 100, persistAddress);
+    }
+
+    private static Car getResolvedCar() {
+        Car car = getCar(1L, LAT);
+        car.getLocation().setAddress("Stored address");
+        car.getLocation().markResolved();
+        return car;
+    }
+
+    /**
+     * Creates an example Car object for use in testing.
+     * @param id ID of the car, or null for a new car
+     * @param lat latitude the car is parked at
+     * @return an example Car object
+     */
+    private static Car getCar(Long id, double lat) {
+        Car car = new Car();
+        car.setId(id);
+        car.setLocation(new Location(lat, LON));
+        Details details = new Details();
+        details.setManufacturer(new Manufacturer(101, "Chevrolet"));
+        details.setModel("Impala");
+        details.setMileage(32280);
+        details.setExternalColor("white");
+        details.setBody("sedan");
+        details.setEngine("3.6L V6");
+        details.setFuelType("Gasoline");
+        details.setModelYear(2018);
+        details.setProductionYear(2018);
+        details.setNumberOfDoors(4);
+        car.setDetails(details);
+        car.setCondition(Condition.USED);
+        return car;
+    }
+}
@@ -0,0 +1,122 @@
+package com.udacity.vehicles.service;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import com.udacity.vehicles.client.maps.MapsClient;
+import com.udacity.vehicles.client.prices.PriceClient;
+import com.udacity.vehicles.domain.Condition;
+import com.udacity.vehicles.domain.Location;
+import com.udacity.vehicles.domain.car.Car;
+import com.udacity.vehicles.domain.car.CarRepository;
+import com.udacity.vehicles.domain.car.Details;
+import com.udacity.vehicles.domain.manufacturer.Manufacturer;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import reactor.core.publisher.Mono;
+
+/**
+ * Implements testing of the ReactiveCarService class.
+ */
+public class ReactiveCarServiceTest {
+
+    private final List<String> savingThreads = new ArrayList<>();
+    private final List<String> storedAddresses = new ArrayList<>();
+    private CarRepository repository;
+    private MapsClient maps;
+    private PriceClient pricing;
+    private CarEnricher enricher;
+    private ReactiveCarService service;
+
+    @Before
+    public void setup() {
+        repository = mock(CarRepository.class);
+        maps = mock(MapsClient.class);
+        pricing = mock(PriceClient.class);
+        enricher = new CarEnricher(2, 5000, false);
+        CarService carService = new CarService(repository, maps, pricing, enricher, mock(CarLocationIndex.class),
+                event -> { }, 500, 100, true);
+        service = new ReactiveCarService(repository, carService, maps, pricing, 5000, 100, true, 2);
+
+        given(repository.save(any())).willAnswer(invocation -> {
+            Car car = invocation.getArgument(0);
+            car.setId(1L);
+            savingThreads.add(Thread.currentThread().getName());
+            storedAddresses.add(car.getLocation().getAddress());
+            return car;
+        });
+        given(maps.getAddressesAsync(anyList())).willAnswer(invocation -> {
+            List<Location> locations = invocation.getArgument(0);
+            locations.forEach(location -> location.setAddress("777 Brockton Avenue"));
+            return Mono.just(locations);
+        });
+        given(pricing.getPricesAsync(anyCollection())).willAnswer(invocation -> {
+            Collection<Long> ids = invocation.getArgument(0);
+            return Mono.just(ids.stream().collect(Collectors.toMap(Function.identity(), id -> "USD " + id)));
+        });
+    }
+
+    @After
+    public void tearDown() {
+        service.shutdown();
+        enricher.shutdown();
+    }
+
+    /**
+     * Tests that saving stores the car on the JDBC pool, then looks up its
+     * location and price without blocking, and stores the resolved address.
+     */
+    @Test
+    public void savesThenEnrichesWithoutBlocking() {
+        Car saved = service.save(getCar()).block();
+
+        assertEquals(1, savingThreads.size());
+        assertTrue(savingThreads.get(0).startsWith("car-jdbc-"));
+        assertNull(storedAddresses.get(0));
+        assertEquals("777 Brockton Avenue", saved.getLocation().getAddress());
+        assertEquals("USD 1", saved.getPrice());
+        verify(maps, never()).getAddresses(anyList());
+        verify(pricing, never()).getPrices(anyCollection());
+        verify(repository).storeAddresses(List.of(saved));
+    }
+
+    /**
+     * Creates an example Car object for use in testing.
+     * @return an example Car object
+     */
+    private static Car getCar() {
+        Car car = new Car();
+        car.setLocation(new Location(40.730610, -73.935242));
+        Details details = new Details();
+        details.setManufacturer(new Manufacturer(101, "Chevrolet"));
+        details.setModel("Impala");
+        details.setMileage(32280);
+        details.setExternalColor("white");
+        details.setBody("sedan");
+        details.setEngine("3.6L V6");
+        details.setFuelType("Gasoline");
+        details.setModelYear(2018);
+        details.setProductionYear(2018);
+        details.setNumberOfDoors(4);
+        car.setDetails(details);
+        car.setCondition(Condition.USED);
+        return car;
+    }
+}